@@ -0,0 +1,24 @@
+package ru.practicum.shareit.event.dto;
+
+import com.fasterxml.jackson.annotation.JsonRawValue;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * A change of a booking or an item. {@code position} orders the events of the stream and is the value
+ * a consumer passes as {@code after} to continue; {@code payload} is the changed entity as JSON.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class EventDto {
+    private Long position;
+    private String type;
+    private Long entityId;
+    private LocalDateTime created;
+    @JsonRawValue
+    private String payload;
+}
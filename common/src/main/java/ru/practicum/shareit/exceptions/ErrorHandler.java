@@ -1,5 +1,6 @@
 package ru.practicum.shareit.exceptions;
 
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseStatus;
@@ -20,6 +21,12 @@ public class ErrorHandler {
         return e.getMessage();
     }
 
+    @ExceptionHandler({ConflictException.class, OptimisticLockingFailureException.class})
+    @ResponseStatus(HttpStatus.CONFLICT)
+    public String conflict(RuntimeException e) {
+        return e.getMessage();
+    }
+
     @ExceptionHandler({UserNotFoundException.class, ItemNotFoundException.class, NoSuchElementException.class, AccessControlException.class})
     @ResponseStatus(HttpStatus.NOT_FOUND)
     public String notFound(RuntimeException e) {
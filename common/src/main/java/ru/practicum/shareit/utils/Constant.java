@@ -2,4 +2,7 @@ package ru.practicum.shareit.utils;
 
 public class Constant {
     public static final String USER_ID = "X-Sharer-User-Id";
+    public static final String NEXT_CURSOR = "X-Next-Cursor";
+    public static final String HAS_NEXT = "X-Has-Next";
+    public static final int MAX_BOOKING_BATCH_SIZE = 100;
 }
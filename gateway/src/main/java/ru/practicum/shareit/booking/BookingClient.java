@@ -7,10 +7,13 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.stereotype.Service;
 import org.springframework.web.util.DefaultUriBuilderFactory;
+import ru.practicum.shareit.booking.dto.BookingDecisionDto;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.model.BookingState;
 import ru.practicum.shareit.client.BaseClient;
 
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 @Service
@@ -27,17 +30,18 @@ public class BookingClient extends BaseClient {
         );
     }
 
-    public ResponseEntity<Object> getBookings(long userId, BookingState state, Integer from, Integer size, boolean isOwner) {
-        Map<String, Object> parameters = Map.of(
+    public ResponseEntity<Object> getBookings(long userId, BookingState state, Integer from, Integer size, String after,
+                                              boolean isOwner) {
+        Map<String, Object> parameters = new HashMap<>(Map.of(
                 "state", state.name(),
                 "from", from,
                 "size", size
-        );
+        ));
         String path = "";
         if (isOwner) {
             path = "/owner";
         }
-        return get(path + "?state={state}&from={from}&size={size}", userId, parameters);
+        return get(withCursor(path + "?state={state}&from={from}&size={size}", parameters, after), userId, parameters);
     }
 
 
@@ -45,6 +49,10 @@ public class BookingClient extends BaseClient {
         return post("", userId, bookingDto);
     }
 
+    public ResponseEntity<Object> bookItems(long userId, List<BookingDto> bookingDtos) {
+        return post("/batch", userId, bookingDtos);
+    }
+
     public ResponseEntity<Object> getBooking(long userId, Long bookingId) {
         return get("/" + bookingId, userId);
     }
@@ -52,4 +60,8 @@ public class BookingClient extends BaseClient {
     public ResponseEntity<Object> setStatus(long bookingId, boolean approved, long userId) {
         return patch("/" + bookingId + "?approved=" + approved, userId);
     }
+
+    public ResponseEntity<Object> setStatuses(List<BookingDecisionDto> decisions, long userId) {
+        return patch("/owner/decisions", userId, decisions);
+    }
 }
@@ -2,6 +2,7 @@ package ru.practicum.shareit.booking;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.validation.annotation.Validated;
@@ -13,12 +14,19 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import ru.practicum.shareit.booking.dto.BookingDecisionDto;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.model.BookingState;
 
 import javax.validation.Valid;
 import javax.validation.constraints.Min;
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.Size;
+import java.util.List;
 
+import static ru.practicum.shareit.utils.Constant.MAX_BOOKING_BATCH_SIZE;
 import static ru.practicum.shareit.utils.Constant.USER_ID;
 
 @Controller
@@ -28,14 +36,16 @@ import static ru.practicum.shareit.utils.Constant.USER_ID;
 @Validated
 public class BookingController {
 	private final BookingClient bookingClient;
+	private final BookingStreamClient bookingStreamClient;
 
 	@GetMapping
 	public ResponseEntity<Object> getBookings(@RequestHeader(USER_ID) long userId,
 											  @RequestParam(defaultValue = "ALL") BookingState state,
 											  @RequestParam(defaultValue = "0") @Min(0) Integer from,
-											  @RequestParam(defaultValue = "20") @Min(1) Integer size) {
-		log.info("Get booking with state {}, userId={}, from={}, size={}", state, userId, from, size);
-		return bookingClient.getBookings(userId, state, from, size, false);
+											  @RequestParam(defaultValue = "20") @Min(1) Integer size,
+											  @RequestParam(required = false) String after) {
+		log.info("Get booking with state {}, userId={}, from={}, size={}, after={}", state, userId, from, size, after);
+		return bookingClient.getBookings(userId, state, from, size, after, false);
 	}
 
 	@PostMapping
@@ -45,6 +55,19 @@ public class BookingController {
 		return bookingClient.bookItem(userId, bookingDto);
 	}
 
+	@PostMapping("/batch")
+	public ResponseEntity<Object> bookItems(@RequestHeader(USER_ID) long userId,
+			@RequestBody @NotEmpty @Size(max = MAX_BOOKING_BATCH_SIZE) List<@Valid BookingDto> bookingDtos) {
+		log.info("Creating {} bookings, userId={}", bookingDtos.size(), userId);
+		return bookingClient.bookItems(userId, bookingDtos);
+	}
+
+	@GetMapping(path = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+	public DeferredResult<ResponseEntity<ResponseBodyEmitter>> stream(@RequestHeader(USER_ID) long userId) {
+		log.info("Stream booking status changes, userId={}", userId);
+		return bookingStreamClient.stream(userId);
+	}
+
 	@GetMapping("/{bookingId}")
 	public ResponseEntity<Object> getBooking(@RequestHeader(USER_ID) long userId,
 			@PathVariable Long bookingId) {
@@ -60,12 +83,20 @@ public class BookingController {
 		return bookingClient.setStatus(bookingId, approved, userId);
 	}
 
+	@PatchMapping("/owner/decisions")
+	public ResponseEntity<Object> setStatuses(@RequestHeader(USER_ID) long userId,
+			@RequestBody @NotEmpty @Size(max = MAX_BOOKING_BATCH_SIZE) List<@Valid BookingDecisionDto> decisions) {
+		log.info("Set statuses for {} bookings from user: {}", decisions.size(), userId);
+		return bookingClient.setStatuses(decisions, userId);
+	}
+
 	@GetMapping("/owner")
 	public ResponseEntity<Object> findBookingsForOwner(@RequestHeader(USER_ID) long userId,
 													   @RequestParam(defaultValue = "ALL") BookingState state,
 													   @RequestParam(defaultValue = "0") @Min(0) Integer from,
-													   @RequestParam(defaultValue = "20") @Min(1) Integer size) {
+													   @RequestParam(defaultValue = "20") @Min(1) Integer size,
+													   @RequestParam(required = false) String after) {
 		log.info("Get request for bookings of user {} as owner with state {}", userId, state);
-		return bookingClient.getBookings(userId, state, from, size, true);
+		return bookingClient.getBookings(userId, state, from, size, after, true);
 	}
 }
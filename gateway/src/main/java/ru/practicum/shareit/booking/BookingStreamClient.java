@@ -0,0 +1,113 @@
+package ru.practicum.shareit.booking;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Flow;
+
+import static ru.practicum.shareit.utils.Constant.USER_ID;
+
+/**
+ * Proxies the server's booking status stream. {@link BookingClient}'s RestTemplate reads a whole response
+ * before returning it, so the stream goes through an asynchronous JDK client instead and every line is
+ * forwarded to the caller as soon as it arrives.
+ */
+@Slf4j
+@Service
+public class BookingStreamClient {
+    private final HttpClient httpClient = HttpClient.newHttpClient();
+    private final URI streamUri;
+
+    public BookingStreamClient(@Value("${shareit-server.url}") String serverUrl) {
+        this.streamUri = URI.create(serverUrl + "/bookings/stream");
+    }
+
+    /**
+     * Opens the stream for the user. The result is set once the server answers: with the forwarding emitter
+     * on success, with the server's status otherwise.
+     */
+    public DeferredResult<ResponseEntity<ResponseBodyEmitter>> stream(long userId) {
+        DeferredResult<ResponseEntity<ResponseBodyEmitter>> result = new DeferredResult<>();
+        HttpRequest request = HttpRequest.newBuilder(streamUri)
+                .header(USER_ID, String.valueOf(userId))
+                .header("Accept", MediaType.TEXT_EVENT_STREAM_VALUE)
+                .GET()
+                .build();
+        HttpResponse.BodyHandler<Void> handler = response -> {
+            if (response.statusCode() != HttpStatus.OK.value()) {
+                HttpStatus status = HttpStatus.valueOf(response.statusCode());
+                return HttpResponse.BodySubscribers.mapping(HttpResponse.BodySubscribers.ofString(StandardCharsets.UTF_8),
+                        body -> {
+                            result.setErrorResult(new ResponseStatusException(status, body));
+                            return null;
+                        });
+            }
+            // Without a timeout of its own the emitter lives as long as the server keeps the stream open
+            ResponseBodyEmitter emitter = new ResponseBodyEmitter(0L);
+            result.setResult(ResponseEntity.ok().contentType(MediaType.TEXT_EVENT_STREAM).body(emitter));
+            return HttpResponse.BodySubscribers.fromLineSubscriber(new LineForwarder(emitter));
+        };
+        httpClient.sendAsync(request, handler).exceptionally(e -> {
+            log.warn("Booking stream of user {} failed: {}", userId, e.getMessage());
+            result.setErrorResult(new ResponseStatusException(HttpStatus.BAD_GATEWAY, e.getMessage()));
+            return null;
+        });
+        return result;
+    }
+
+    /**
+     * Writes server-sent lines to the emitter one at a time, so a slow caller slows down reading from the server
+     * instead of piling lines up in memory. The server connection is closed when the caller goes away.
+     */
+    private static final class LineForwarder implements Flow.Subscriber<String> {
+        private final ResponseBodyEmitter emitter;
+        private Flow.Subscription subscription;
+
+        private LineForwarder(ResponseBodyEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            emitter.onCompletion(subscription::cancel);
+            emitter.onTimeout(subscription::cancel);
+            emitter.onError(e -> subscription.cancel());
+            subscription.request(1);
+        }
+
+        @Override
+        public void onNext(String line) {
+            try {
+                emitter.send(line + "\n", MediaType.TEXT_PLAIN);
+                subscription.request(1);
+            } catch (IOException | IllegalStateException e) {
+                subscription.cancel();
+                emitter.completeWithError(e);
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            emitter.completeWithError(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            emitter.complete();
+        }
+    }
+}
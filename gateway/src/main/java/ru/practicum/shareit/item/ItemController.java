@@ -2,6 +2,7 @@ package ru.practicum.shareit.item;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.validation.annotation.Validated;
@@ -19,6 +20,7 @@ import ru.practicum.shareit.marker.OnCreate;
 
 import javax.validation.Valid;
 import javax.validation.constraints.Min;
+import java.time.LocalDateTime;
 
 import static ru.practicum.shareit.utils.Constant.USER_ID;
 
@@ -53,18 +55,28 @@ public class ItemController {
     @GetMapping
     public ResponseEntity<Object> getAllForUser(@RequestHeader(USER_ID) long userId,
                                                 @RequestParam(defaultValue = "0") @Min(0) Integer from,
-                                                @RequestParam(defaultValue = "20") @Min(1) Integer size) {
-        log.info("Get all items of user {}, from {}, size {}", userId, from, size);
-        return itemClient.getAllForOwner(userId, from, size);
+                                                @RequestParam(defaultValue = "20") @Min(1) Integer size,
+                                                @RequestParam(required = false) String after) {
+        log.info("Get all items of user {}, from {}, size {}, after {}", userId, from, size, after);
+        return itemClient.getAllForOwner(userId, from, size, after);
     }
 
     @GetMapping("/search")
     public ResponseEntity<Object> getAvailable(@RequestParam String text,
                                                @RequestParam(defaultValue = "0") @Min(0) Integer from,
                                                @RequestParam(defaultValue = "20") @Min(1) Integer size,
+                                               @RequestParam(required = false) String after,
                                                @RequestHeader(USER_ID) long userId) {
-        log.info("Search request with text = {}, from {}, size {}", text, from, size);
-        return itemClient.getAvailable(text, from, size, userId);
+        log.info("Search request with text = {}, from {}, size {}, after {}", text, from, size, after);
+        return itemClient.getAvailable(text, from, size, after, userId);
+    }
+
+    @GetMapping("/{itemId}/availability")
+    public ResponseEntity<Object> getAvailability(@RequestHeader(USER_ID) long userId, @PathVariable long itemId,
+                                                  @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                                  @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        log.info("Get availability of item {} from {} to {} for user {}", itemId, from, to, userId);
+        return itemClient.getAvailability(userId, itemId, from, to);
     }
 
     @PostMapping("/{itemId}/comment")
@@ -42,9 +42,10 @@ public class RequestController {
     @GetMapping("/all")
     public ResponseEntity<Object> getAllRequests(@RequestHeader(USER_ID) Long userId,
                                                  @RequestParam(defaultValue = "0") @Min(0) Integer from,
-                                                 @RequestParam(defaultValue = "1") @Min(1) Integer size) {
-        log.info("Get all itemRequests from {}, size {}", from, size);
-        return requestClient.getAll(userId, from, size);
+                                                 @RequestParam(defaultValue = "1") @Min(1) Integer size,
+                                                 @RequestParam(required = false) String after) {
+        log.info("Get all itemRequests from {}, size {}, after {}", from, size, after);
+        return requestClient.getAll(userId, from, size, after);
     }
 
     @GetMapping("/{requestId}")
@@ -1,6 +1,8 @@
 package ru.practicum.shareit.booking;
 
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PatchMapping;
@@ -11,12 +13,19 @@ import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import ru.practicum.shareit.booking.dto.BookingBatchResultDto;
+import ru.practicum.shareit.booking.dto.BookingDecisionDto;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.model.BookingState;
 import ru.practicum.shareit.booking.service.BookingService;
+import ru.practicum.shareit.booking.service.BookingStatusStream;
+import ru.practicum.shareit.utils.Cursor;
+import ru.practicum.shareit.utils.PageResponse;
 
 import javax.validation.constraints.Min;
 import java.util.Collection;
+import java.util.List;
 
 import static ru.practicum.shareit.utils.Constant.USER_ID;
 
@@ -27,9 +36,11 @@ import static ru.practicum.shareit.utils.Constant.USER_ID;
 public class BookingController {
 
     private final BookingService bookingService;
+    private final BookingStatusStream bookingStatusStream;
 
-    public BookingController(BookingService bookingService) {
+    public BookingController(BookingService bookingService, BookingStatusStream bookingStatusStream) {
         this.bookingService = bookingService;
+        this.bookingStatusStream = bookingStatusStream;
     }
 
     @PostMapping
@@ -39,6 +50,20 @@ public class BookingController {
         return bookingService.create(booking, userId);
     }
 
+    @PostMapping("/batch")
+    public List<BookingBatchResultDto> createAll(@RequestBody List<BookingDto> bookings,
+                                                 @RequestHeader(USER_ID) long userId) {
+        log.info("Post request for {} bookings from user {}", bookings.size(), userId);
+        return bookingService.createAll(bookings, userId);
+    }
+
+    @PatchMapping("/owner/decisions")
+    public List<BookingBatchResultDto> decideAll(@RequestBody List<BookingDecisionDto> decisions,
+                                                 @RequestHeader(USER_ID) long userId) {
+        log.info("Patch request for {} booking decisions from user {}", decisions.size(), userId);
+        return bookingService.decideAll(decisions, userId);
+    }
+
     @PatchMapping("/{bookingId}")
     public BookingDto setStatus(@PathVariable long bookingId,
                                 @RequestParam boolean approved,
@@ -47,6 +72,12 @@ public class BookingController {
         return bookingService.setStatus(bookingId, approved, userId);
     }
 
+    @GetMapping(path = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stream(@RequestHeader(USER_ID) long userId) {
+        log.info("Stream request for booking status changes from user {}", userId);
+        return bookingStatusStream.subscribe(userId);
+    }
+
     @GetMapping("/{bookingId}")
     public BookingDto fingBooking(@RequestHeader(USER_ID) long userId,
                                   @PathVariable long bookingId) {
@@ -55,20 +86,24 @@ public class BookingController {
     }
 
     @GetMapping
-    public Collection<BookingDto> findBookingsForUser(@RequestHeader(USER_ID) long userId,
-                                                      @RequestParam(defaultValue = "ALL") BookingState state,
-                                                      @RequestParam(defaultValue = "0") @Min(0) Integer from,
-                                                      @RequestParam(defaultValue = "20") @Min(1) Integer size) {
+    public ResponseEntity<Collection<BookingDto>> findBookingsForUser(@RequestHeader(USER_ID) long userId,
+                                                                      @RequestParam(defaultValue = "ALL") BookingState state,
+                                                                      @RequestParam(defaultValue = "0") @Min(0) Integer from,
+                                                                      @RequestParam(defaultValue = "20") @Min(1) Integer size,
+                                                                      @RequestParam(required = false) String after) {
         log.info("Get request for bookings of user {} with state {}", userId, state);
-        return bookingService.findBookingsForUserOrOwner(userId, state, false, from, size);
+        return PageResponse.of(bookingService.findBookingsForUserOrOwner(userId, state, false, from, size,
+                Cursor.decodeKeyed(after)), booking -> Cursor.of(booking.getStart(), booking.getId()));
     }
 
     @GetMapping("/owner")
-    public Collection<BookingDto> findBookingsForOwner(@RequestHeader(USER_ID) long userId,
-                                                       @RequestParam(defaultValue = "ALL") BookingState state,
-                                                       @RequestParam(defaultValue = "0") @Min(0) Integer from,
-                                                       @RequestParam(defaultValue = "20") @Min(1) Integer size) {
+    public ResponseEntity<Collection<BookingDto>> findBookingsForOwner(@RequestHeader(USER_ID) long userId,
+                                                                       @RequestParam(defaultValue = "ALL") BookingState state,
+                                                                       @RequestParam(defaultValue = "0") @Min(0) Integer from,
+                                                                       @RequestParam(defaultValue = "20") @Min(1) Integer size,
+                                                                       @RequestParam(required = false) String after) {
         log.info("Get request for bookings of user {} as owner with state {}", userId, state);
-        return bookingService.findBookingsForUserOrOwner(userId, state, true, from, size);
+        return PageResponse.of(bookingService.findBookingsForUserOrOwner(userId, state, true, from, size,
+                Cursor.decodeKeyed(after)), booking -> Cursor.of(booking.getStart(), booking.getId()));
     }
 }
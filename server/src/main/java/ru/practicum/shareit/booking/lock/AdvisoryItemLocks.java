@@ -0,0 +1,40 @@
+package ru.practicum.shareit.booking.lock;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+
+/**
+ * Postgres transaction-level advisory locks keyed by item id. They serialize requests across all server
+ * instances and are released by the database on commit or rollback. No table row is locked.
+ */
+@Component
+@ConditionalOnProperty(name = "shareit.bookings.item-lock.mode", havingValue = "advisory")
+public class AdvisoryItemLocks implements ItemLocks {
+    private static final String LOCK = "select pg_advisory_xact_lock(?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public AdvisoryItemLocks(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void lock(Collection<Long> itemIds) {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("Item locks can only be taken inside a transaction");
+        }
+        itemIds.stream()
+                .distinct()
+                .sorted()
+                .forEach(itemId -> jdbcTemplate.queryForList(LOCK, itemId));
+    }
+
+    @Override
+    public boolean spansInstances() {
+        return true;
+    }
+}
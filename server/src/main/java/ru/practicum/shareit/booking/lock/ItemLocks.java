@@ -0,0 +1,32 @@
+package ru.practicum.shareit.booking.lock;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Serializes booking writes per item. A lock is taken inside a transaction and held until it completes,
+ * so the checks and the insert of one booking finish before the next booking of the same item is checked.
+ * The implementation is selected with {@code shareit.bookings.item-lock.mode}.
+ */
+public interface ItemLocks {
+
+    /**
+     * Locks the items until the current transaction completes. Several items are locked in a fixed order,
+     * so two batches with overlapping items can't deadlock.
+     *
+     * @throws IllegalStateException if there is no transaction
+     */
+    void lock(Collection<Long> itemIds);
+
+    default void lock(long itemId) {
+        lock(List.of(itemId));
+    }
+
+    /**
+     * Whether the locks also serialize requests of other server instances. Their bookings then aren't in the
+     * interval index of this instance, which has to be reloaded under the lock.
+     */
+    default boolean spansInstances() {
+        return false;
+    }
+}
@@ -0,0 +1,70 @@
+package ru.practicum.shareit.booking.lock;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.exceptions.ConflictException;
+import ru.practicum.shareit.utils.TransactionHooks;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * In-process locks: item ids are hashed onto a fixed number of stripes, so memory doesn't grow with the number
+ * of items and unrelated items rarely wait for each other. Only serializes requests within one server instance.
+ * A request waits at most {@code shareit.bookings.item-lock.timeout-ms} for a stripe, as it holds a database
+ * connection meanwhile, and is then answered with a conflict.
+ */
+@Component
+@ConditionalOnProperty(name = "shareit.bookings.item-lock.mode", havingValue = "local", matchIfMissing = true)
+public class StripedItemLocks implements ItemLocks {
+    private final ReentrantLock[] stripes;
+    private final long timeoutMs;
+
+    public StripedItemLocks(@Value("${shareit.bookings.item-lock.stripes:64}") int stripes,
+                            @Value("${shareit.bookings.item-lock.timeout-ms:5000}") long timeoutMs) {
+        this.timeoutMs = timeoutMs;
+        this.stripes = new ReentrantLock[stripes];
+        for (int i = 0; i < stripes; i++) {
+            this.stripes[i] = new ReentrantLock();
+        }
+    }
+
+    @Override
+    public void lock(Collection<Long> itemIds) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("Item locks can only be taken inside a transaction");
+        }
+        int[] indexes = itemIds.stream()
+                .mapToInt(this::stripe)
+                .distinct()
+                .sorted()
+                .toArray();
+        for (int index : indexes) {
+            ReentrantLock lock = stripes[index];
+            acquire(lock);
+            TransactionHooks.afterCompletion(lock::unlock);
+        }
+    }
+
+    /**
+     * @throws ConflictException if the lock isn't free within the timeout or the wait is interrupted; stripes
+     *                           taken before are released when the transaction rolls back
+     */
+    private void acquire(ReentrantLock lock) {
+        try {
+            if (!lock.tryLock(timeoutMs, TimeUnit.MILLISECONDS)) {
+                throw new ConflictException("Item is being booked by another request, try again");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ConflictException("Interrupted while waiting for an item lock");
+        }
+    }
+
+    int stripe(long itemId) {
+        return Math.floorMod(Long.hashCode(itemId), stripes.length);
+    }
+}
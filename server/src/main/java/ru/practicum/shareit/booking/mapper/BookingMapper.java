@@ -3,7 +3,11 @@ package ru.practicum.shareit.booking.mapper;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.dto.BookingDtoForOwner;
 import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.storage.BookingView;
+import ru.practicum.shareit.booking.storage.ItemBookingView;
+import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.mapper.ItemMapper;
+import ru.practicum.shareit.user.dto.UserDto;
 import ru.practicum.shareit.user.mapper.UserMapper;
 
 public class BookingMapper {
@@ -16,6 +20,16 @@ public class BookingMapper {
                 booking.getStatus());
     }
 
+    public static BookingDto mapToDto(BookingView booking) {
+        return new BookingDto(booking.getId(),
+                booking.getStart(),
+                booking.getEnd(),
+                new ItemDto(booking.getItemId(), booking.getItemName(), booking.getItemDescription(),
+                        booking.getItemAvailable(), booking.getItemRequestId()),
+                new UserDto(booking.getBookerId(), booking.getBookerName(), booking.getBookerEmail()),
+                booking.getStatus());
+    }
+
     public static Booking mapToBooking(BookingDto bookingDto) {
         Booking booking = new Booking();
         booking.setId(bookingDto.getId());
@@ -29,4 +43,9 @@ public class BookingMapper {
         return new BookingDtoForOwner(booking.getId(), booking.getStart(), booking.getEnd(), booking.getItem().getId(),
                 booking.getBooker().getId(), booking.getStatus());
     }
+
+    public static BookingDtoForOwner mapToDtoForOwner(ItemBookingView booking) {
+        return new BookingDtoForOwner(booking.getId(), booking.getStart(), booking.getEnd(), booking.getItemId(),
+                booking.getBookerId(), booking.getStatus());
+    }
 }
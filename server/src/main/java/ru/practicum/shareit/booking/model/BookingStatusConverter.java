@@ -0,0 +1,55 @@
+package ru.practicum.shareit.booking.model;
+
+import javax.persistence.AttributeConverter;
+import javax.persistence.Converter;
+
+/**
+ * Stores a {@link BookingStatus} as a smallint code. The codes are fixed here rather than taken from the
+ * enum order, so reordering the enum can't change the meaning of stored rows. Native SQL compares
+ * against the constants.
+ */
+@Converter
+public class BookingStatusConverter implements AttributeConverter<BookingStatus, Short> {
+    public static final short WAITING = 1;
+    public static final short APPROVED = 2;
+    public static final short CANCELED = 3;
+    public static final short REJECTED = 4;
+
+    @Override
+    public Short convertToDatabaseColumn(BookingStatus status) {
+        if (status == null) {
+            return null;
+        }
+        switch (status) {
+            case WAITING:
+                return WAITING;
+            case APPROVED:
+                return APPROVED;
+            case CANCELED:
+                return CANCELED;
+            case REJECTED:
+                return REJECTED;
+            default:
+                throw new IllegalArgumentException("Unknown booking status: " + status);
+        }
+    }
+
+    @Override
+    public BookingStatus convertToEntityAttribute(Short code) {
+        if (code == null) {
+            return null;
+        }
+        switch (code) {
+            case WAITING:
+                return BookingStatus.WAITING;
+            case APPROVED:
+                return BookingStatus.APPROVED;
+            case CANCELED:
+                return BookingStatus.CANCELED;
+            case REJECTED:
+                return BookingStatus.REJECTED;
+            default:
+                throw new IllegalArgumentException("Unknown booking status code: " + code);
+        }
+    }
+}
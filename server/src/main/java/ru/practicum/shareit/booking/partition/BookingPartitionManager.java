@@ -0,0 +1,166 @@
+package ru.practicum.shareit.booking.partition;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.booking.model.BookingStatusConverter;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.Year;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static ru.practicum.shareit.booking.partition.BookingPartitions.DEFAULT;
+import static ru.practicum.shareit.booking.partition.BookingPartitions.PARENT;
+import static ru.practicum.shareit.booking.partition.BookingPartitions.PERIODS;
+
+/**
+ * Keeps the Postgres range partitions of {@code bookings} in shape: creates the monthly partitions of the
+ * coming months, moving their bookings out of the default partition, and merges the months of a past year
+ * into one cold partition once none of its bookings is waiting or still running. Queries bounded by start
+ * date only touch the partitions of their range, and the indexes of the hot partitions stay a few months big.
+ * The cold partitions are frozen right after the move, so vacuum has nothing left to do on them.
+ * <p>
+ * Overlaps are excluded across partitions by {@code booking_periods}, which a trigger on {@code bookings} keeps
+ * in step with the waiting and approved bookings. Moving bookings between partitions keeps their periods, and
+ * periods that are over are dropped on every run.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "shareit.bookings.partitioning.enabled", havingValue = "true")
+public class BookingPartitionManager {
+    private static final String PARTITIONS = "select c.relname from pg_inherits i " +
+            "join pg_class c on c.oid = i.inhrelid join pg_class p on p.oid = i.inhparent where p.relname = ?";
+    private static final String ACTIVE = "select exists (select 1 from bookings where start_date >= ? " +
+            "and start_date < ? and (end_date > ? or status = " + BookingStatusConverter.WAITING + "))";
+    private static final String LIKE_PARENT = " (like " + PARENT +
+            " including defaults including constraints including indexes)";
+    private static final String RESTORE_PERIODS = "insert into " + PERIODS +
+            " select id, item_id, tsrange(start_date, end_date) from %s where status in (" +
+            BookingStatusConverter.WAITING + ", " + BookingStatusConverter.APPROVED + ")";
+    private static final String PRUNE_PERIODS = "delete from " + PERIODS + " where upper(period) < ?";
+    // DDL waits this long for its locks and then gives up until the next run, rather than queueing every
+    // booking query behind it
+    private static final String LOCK_TIMEOUT = "set local lock_timeout = '5s'";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final BookingPartitionProperties properties;
+
+    public BookingPartitionManager(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                                   BookingPartitionProperties properties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.properties = properties;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${shareit.bookings.partitioning.interval-ms:3600000}")
+    public void maintain() {
+        try {
+            maintain(LocalDateTime.now());
+        } catch (DataAccessException e) {
+            log.warn("Booking partition upkeep failed, retrying on the next run", e);
+        }
+    }
+
+    public void maintain(LocalDateTime now) {
+        int pruned = jdbcTemplate.update(PRUNE_PERIODS, now);
+        log.debug("Dropped {} booking periods that are over", pruned);
+        YearMonth current = YearMonth.from(now);
+        List<String> existing = jdbcTemplate.queryForList(PARTITIONS, String.class, PARENT);
+        for (YearMonth month : BookingPartitions.missingMonths(existing, current, properties.getMonthsAhead())) {
+            createMonth(month);
+        }
+        for (Year year : BookingPartitions.yearsToArchive(existing, current, properties.getArchiveAfterMonths())) {
+            List<String> months = existing.stream()
+                    .filter(name -> BookingPartitions.parseMonthly(name)
+                            .filter(month -> month.getYear() == year.getValue())
+                            .isPresent())
+                    .sorted()
+                    .collect(Collectors.toList());
+            archiveYear(year, months, now);
+        }
+    }
+
+    /**
+     * Creates the partition of {@code month} detached, fills it with the bookings of that month waiting
+     * in the default partition and attaches it. A check constraint matching the range spares the attach
+     * a scan of the new partition. Deleting the bookings from the default partition drops their periods,
+     * which are put back once the partition is attached, in the same transaction.
+     */
+    private void createMonth(YearMonth month) {
+        String name = BookingPartitions.monthly(month);
+        LocalDate from = month.atDay(1);
+        LocalDate to = month.plusMonths(1).atDay(1);
+        Integer moved = transactionTemplate.execute(status -> {
+            jdbcTemplate.execute(LOCK_TIMEOUT);
+            jdbcTemplate.execute("create table " + name + LIKE_PARENT);
+            jdbcTemplate.update("insert into " + name + " select * from " + DEFAULT +
+                    " where start_date >= ? and start_date < ?", from.atStartOfDay(), to.atStartOfDay());
+            int count = jdbcTemplate.update("delete from " + DEFAULT + " where start_date >= ? and start_date < ?",
+                    from.atStartOfDay(), to.atStartOfDay());
+            attach(name, from, to);
+            jdbcTemplate.update(String.format(RESTORE_PERIODS, name));
+            return count;
+        });
+        log.info("Created booking partition {}, moved {} bookings into it", name, moved);
+    }
+
+    /**
+     * Copies the monthly partitions of {@code year} into a new cold partition and swaps it in for them.
+     * The months are locked against writes while they are copied, reads go on; the parent is locked only
+     * for the swap at the end. A year with a waiting or running booking is left for a later run.
+     */
+    private void archiveYear(Year year, List<String> months, LocalDateTime now) {
+        String name = BookingPartitions.yearly(year);
+        LocalDate from = year.atDay(1);
+        LocalDate to = year.plusYears(1).atDay(1);
+        String tablespace = properties.getColdTablespace() == null ? ""
+                : " tablespace " + properties.getColdTablespace();
+        Boolean archived = transactionTemplate.execute(status -> {
+            jdbcTemplate.execute(LOCK_TIMEOUT);
+            jdbcTemplate.execute("lock table " + String.join(", ", months) + " in share mode");
+            if (Boolean.TRUE.equals(jdbcTemplate.queryForObject(ACTIVE, Boolean.class,
+                    from.atStartOfDay(), to.atStartOfDay(), now))) {
+                return false;
+            }
+            jdbcTemplate.execute("create table " + name + LIKE_PARENT + tablespace);
+            for (String month : months) {
+                jdbcTemplate.update("insert into " + name + " select * from " + month);
+            }
+            for (String month : months) {
+                jdbcTemplate.execute("alter table " + PARENT + " detach partition " + month);
+            }
+            attach(name, from, to);
+            for (String month : months) {
+                jdbcTemplate.execute("drop table " + month);
+            }
+            return true;
+        });
+        if (!Boolean.TRUE.equals(archived)) {
+            log.info("Bookings of {} are not all finished yet, archiving postponed", year);
+            return;
+        }
+        jdbcTemplate.execute("vacuum (freeze, analyze) " + name);
+        log.info("Archived {} monthly booking partitions of {} into {}", months.size(), year, name);
+    }
+
+    private void attach(String name, LocalDate from, LocalDate to) {
+        String constraint = "ck_" + name + "_range";
+        jdbcTemplate.execute("alter table " + name + " add constraint " + constraint +
+                " check (start_date >= '" + from + "' and start_date < '" + to + "')");
+        jdbcTemplate.execute("alter table " + PARENT + " attach partition " + name +
+                " for values from ('" + from + "') to ('" + to + "')");
+        jdbcTemplate.execute("alter table " + name + " drop constraint " + constraint);
+    }
+}
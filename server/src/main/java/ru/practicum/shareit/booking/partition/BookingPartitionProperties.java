@@ -0,0 +1,28 @@
+package ru.practicum.shareit.booking.partition;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Upkeep of the range partitions of {@code bookings} on Postgres. The interval between runs is
+ * {@code shareit.bookings.partitioning.interval-ms}.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "shareit.bookings.partitioning")
+public class BookingPartitionProperties {
+    /**
+     * Monthly partitions kept ready after the current month. Later starts go to the default partition
+     * until their month gets a partition.
+     */
+    private int monthsAhead = 3;
+    /**
+     * Months after its December when a year is moved into one cold partition.
+     */
+    private int archiveAfterMonths = 3;
+    /**
+     * Tablespace of the cold partitions, the database default if not set.
+     */
+    private String coldTablespace;
+}
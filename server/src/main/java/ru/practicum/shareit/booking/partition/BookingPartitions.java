@@ -0,0 +1,71 @@
+package ru.practicum.shareit.booking.partition;
+
+import java.time.Year;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Names and ranges of the {@code bookings} partitions. Hot partitions hold one month of starts each
+ * ({@code bookings_p202611}), cold ones a whole year ({@code bookings_y2025}); starts beyond the last hot
+ * partition wait in {@code bookings_default}.
+ */
+final class BookingPartitions {
+    static final String PARENT = "bookings";
+    static final String DEFAULT = "bookings_default";
+    static final String PERIODS = "booking_periods";
+    private static final Pattern MONTHLY = Pattern.compile("bookings_p(\\d{4})(\\d{2})");
+
+    private BookingPartitions() {
+    }
+
+    static String monthly(YearMonth month) {
+        return String.format("bookings_p%04d%02d", month.getYear(), month.getMonthValue());
+    }
+
+    static String yearly(Year year) {
+        return String.format("bookings_y%04d", year.getValue());
+    }
+
+    static Optional<YearMonth> parseMonthly(String name) {
+        Matcher matcher = MONTHLY.matcher(name);
+        if (!matcher.matches()) {
+            return Optional.empty();
+        }
+        return Optional.of(YearMonth.of(Integer.parseInt(matcher.group(1)), Integer.parseInt(matcher.group(2))));
+    }
+
+    /**
+     * Months from {@code current} to {@code monthsAhead} months after it that have no partition yet.
+     */
+    static List<YearMonth> missingMonths(Collection<String> existing, YearMonth current, int monthsAhead) {
+        List<YearMonth> missing = new ArrayList<>();
+        for (int i = 0; i <= monthsAhead; i++) {
+            YearMonth month = current.plusMonths(i);
+            if (!existing.contains(monthly(month)) && !existing.contains(yearly(Year.of(month.getYear())))) {
+                missing.add(month);
+            }
+        }
+        return missing;
+    }
+
+    /**
+     * Years that still have monthly partitions although {@code current} is {@code archiveAfterMonths} or more
+     * months past their December, oldest first. A year is never archived before it is over.
+     */
+    static List<Year> yearsToArchive(Collection<String> existing, YearMonth current, int archiveAfterMonths) {
+        int after = Math.max(1, archiveAfterMonths);
+        TreeSet<Year> years = new TreeSet<>();
+        for (String name : existing) {
+            parseMonthly(name)
+                    .filter(month -> !YearMonth.of(month.getYear(), 12).plusMonths(after).isAfter(current))
+                    .ifPresent(month -> years.add(Year.of(month.getYear())));
+        }
+        return new ArrayList<>(years);
+    }
+}
@@ -0,0 +1,23 @@
+package ru.practicum.shareit.booking.service;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Sizing of the job that cancels WAITING bookings whose start has passed without a decision.
+ * The interval between runs is {@code shareit.bookings.expiry.interval-ms}.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "shareit.bookings.expiry")
+public class BookingExpiryProperties {
+    /**
+     * Bookings cancelled per transaction.
+     */
+    private int batchSize = 500;
+    /**
+     * Batches per run, so one run can't hold the scheduler thread for long. The rest waits for the next run.
+     */
+    private int maxBatches = 20;
+}
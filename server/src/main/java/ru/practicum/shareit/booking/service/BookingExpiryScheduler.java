@@ -0,0 +1,54 @@
+package ru.practicum.shareit.booking.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs the booking expiry in bounded batches and publishes the backlog of overdue bookings left after the run,
+ * the number of cancelled bookings and the latency of each batch.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "shareit.bookings.expiry.enabled", havingValue = "true", matchIfMissing = true)
+public class BookingExpiryScheduler {
+    private final BookingExpiryService bookingExpiryService;
+    private final BookingExpiryProperties properties;
+    private final AtomicLong backlog = new AtomicLong();
+    private final Counter expired;
+    private final Timer batchTimer;
+
+    public BookingExpiryScheduler(BookingExpiryService bookingExpiryService, BookingExpiryProperties properties,
+                                  MeterRegistry meterRegistry) {
+        this.bookingExpiryService = bookingExpiryService;
+        this.properties = properties;
+        meterRegistry.gauge("shareit.bookings.expiry.backlog", backlog);
+        this.expired = meterRegistry.counter("shareit.bookings.expired");
+        this.batchTimer = meterRegistry.timer("shareit.bookings.expiry.batch");
+    }
+
+    @Scheduled(fixedDelayString = "${shareit.bookings.expiry.interval-ms:60000}")
+    public void expire() {
+        LocalDateTime now = LocalDateTime.now();
+        int total = 0;
+        int batches = 0;
+        int cancelled;
+        do {
+            cancelled = batchTimer.record(() -> bookingExpiryService.expireOverdue(now, properties.getBatchSize()));
+            total += cancelled;
+            batches++;
+        } while (cancelled == properties.getBatchSize() && batches < properties.getMaxBatches());
+        expired.increment(total);
+        backlog.set(bookingExpiryService.countOverdue(now));
+        if (total > 0) {
+            log.info("Cancelled {} overdue bookings in {} batches, {} left", total, batches, backlog.get());
+        }
+    }
+}
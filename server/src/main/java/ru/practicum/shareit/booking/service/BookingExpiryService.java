@@ -0,0 +1,73 @@
+package ru.practicum.shareit.booking.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.booking.mapper.BookingMapper;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.storage.BookingStorage;
+import ru.practicum.shareit.event.model.EventType;
+import ru.practicum.shareit.event.service.OutboxService;
+import ru.practicum.shareit.utils.TransactionHooks;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Cancels WAITING bookings that were not decided before their start.
+ */
+@Slf4j
+@Service
+@Transactional
+public class BookingExpiryService {
+    private final BookingStorage bookingStorage;
+    private final BookingIntervalIndex bookingIntervalIndex;
+    private final OutboxService outboxService;
+
+    public BookingExpiryService(BookingStorage bookingStorage, BookingIntervalIndex bookingIntervalIndex,
+                                OutboxService outboxService) {
+        this.bookingStorage = bookingStorage;
+        this.bookingIntervalIndex = bookingIntervalIndex;
+        this.outboxService = outboxService;
+    }
+
+    /**
+     * Cancels up to {@code limit} overdue bookings, the longest overdue first, records the cancellations
+     * in the outbox and frees their periods once the transaction commits. A booking decided concurrently
+     * keeps its decision.
+     *
+     * @return number of cancelled bookings
+     */
+    public int expireOverdue(LocalDateTime now, int limit) {
+        List<Booking> overdue = bookingStorage.findOverdue(now, PageRequest.of(0, limit));
+        if (overdue.isEmpty()) {
+            return 0;
+        }
+        List<Long> ids = overdue.stream().map(Booking::getId).collect(Collectors.toList());
+        int expired = bookingStorage.updateStatus(ids, BookingStatus.WAITING, BookingStatus.CANCELED);
+        if (expired != ids.size()) {
+            log.debug("{} of {} overdue bookings were decided concurrently", ids.size() - expired, ids.size());
+            overdue = bookingStorage.findAllById(ids).stream()
+                    .filter(booking -> booking.getStatus() == BookingStatus.CANCELED)
+                    .collect(Collectors.toList());
+        }
+        for (Booking booking : overdue) {
+            booking.setStatus(BookingStatus.CANCELED);
+            outboxService.record(EventType.BOOKING_CANCELED, booking.getId(), BookingMapper.mapToDto(booking));
+            long itemId = booking.getItem().getId();
+            LocalDateTime start = booking.getStart();
+            LocalDateTime end = booking.getEnd();
+            TransactionHooks.afterCommit(() -> bookingIntervalIndex.release(itemId, start, end));
+        }
+        log.debug("Cancelled {} overdue bookings", expired);
+        return expired;
+    }
+
+    @Transactional(readOnly = true)
+    public long countOverdue(LocalDateTime now) {
+        return bookingStorage.countOverdue(now);
+    }
+}
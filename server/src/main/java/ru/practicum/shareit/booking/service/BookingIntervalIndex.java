@@ -0,0 +1,157 @@
+package ru.practicum.shareit.booking.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.storage.BookingStorage;
+import ru.practicum.shareit.exceptions.BadRequestException;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Intervals (start to end) of waiting and approved bookings per item that have not ended yet, sorted by start.
+ * Intervals of an item never overlap, so an overlap check is a floor and a higher lookup.
+ * An item is loaded on first use and its past intervals are dropped as they are met; an item left without
+ * intervals, by a release or by the periodic sweep, is dropped too and loaded again when it's next booked. The index
+ * lives in one instance only and misses bookings made by other instances: with locks spanning instances the items
+ * are reloaded under the lock, and on Postgres the exclusion constraint of {@code booking_periods}, which spans all
+ * partitions of bookings, keeps several instances consistent.
+ */
+@Slf4j
+@Component
+public class BookingIntervalIndex {
+    private static final List<BookingStatus> ACTIVE_STATUSES = List.of(BookingStatus.WAITING, BookingStatus.APPROVED);
+
+    private final BookingStorage bookingStorage;
+    private final ConcurrentMap<Long, ItemIntervals> items = new ConcurrentHashMap<>();
+
+    public BookingIntervalIndex(BookingStorage bookingStorage) {
+        this.bookingStorage = bookingStorage;
+    }
+
+    /**
+     * Takes the interval for a new waiting booking.
+     *
+     * @throws BadRequestException if it overlaps a waiting or approved booking of the item
+     */
+    public void reserve(long itemId, LocalDateTime start, LocalDateTime end) {
+        while (true) {
+            ItemIntervals intervals = load(itemId);
+            synchronized (intervals) {
+                if (intervals.dropped) {
+                    // dropped after it was looked up, the interval has to go into the entry that replaces it
+                    continue;
+                }
+                intervals.prune(LocalDateTime.now());
+                Map.Entry<LocalDateTime, LocalDateTime> before = intervals.byStart.floorEntry(start);
+                Map.Entry<LocalDateTime, LocalDateTime> after = intervals.byStart.higherEntry(start);
+                if (before != null && before.getValue().isAfter(start)
+                        || after != null && after.getKey().isBefore(end)) {
+                    throw new BadRequestException("Item " + itemId + " is already booked between " + start + " and " + end);
+                }
+                intervals.byStart.put(start, end);
+                return;
+            }
+        }
+    }
+
+    public void release(long itemId, LocalDateTime start, LocalDateTime end) {
+        ItemIntervals intervals = items.get(itemId);
+        if (intervals == null) {
+            return;
+        }
+        synchronized (intervals) {
+            intervals.byStart.remove(start, end);
+            dropIfEmpty(itemId, intervals);
+        }
+    }
+
+    /**
+     * Prunes the ended intervals of every item and drops the items left without any, so items booked once
+     * don't stay in memory for good.
+     */
+    @Scheduled(fixedDelayString = "${shareit.bookings.interval-index.sweep-interval-ms:600000}")
+    public void sweep() {
+        LocalDateTime now = LocalDateTime.now();
+        int before = items.size();
+        items.forEach((itemId, intervals) -> {
+            synchronized (intervals) {
+                intervals.prune(now);
+                dropIfEmpty(itemId, intervals);
+            }
+        });
+        log.debug("Swept booking intervals, {} of {} items left", items.size(), before);
+    }
+
+    int itemCount() {
+        return items.size();
+    }
+
+    /**
+     * Forgets the intervals of the items, so they are read again from the database on next use. Called under
+     * the item locks when other instances may have booked the items since they were loaded.
+     */
+    public void reload(Collection<Long> itemIds) {
+        for (long itemId : itemIds) {
+            ItemIntervals intervals = items.get(itemId);
+            if (intervals == null) {
+                continue;
+            }
+            synchronized (intervals) {
+                intervals.byStart.clear();
+                intervals.loaded = false;
+            }
+        }
+    }
+
+    private ItemIntervals load(long itemId) {
+        ItemIntervals intervals = items.computeIfAbsent(itemId, id -> new ItemIntervals());
+        synchronized (intervals) {
+            if (!intervals.loaded && !intervals.dropped) {
+                List<Booking> bookings = bookingStorage.findByItem_IdAndStatusInAndEndAfter(itemId, ACTIVE_STATUSES,
+                        LocalDateTime.now());
+                for (Booking booking : bookings) {
+                    intervals.byStart.put(booking.getStart(), booking.getEnd());
+                }
+                intervals.loaded = true;
+                log.debug("Loaded {} booking intervals of item {}", bookings.size(), itemId);
+            }
+        }
+        return intervals;
+    }
+
+    /**
+     * Must be called holding the monitor of {@code intervals}.
+     */
+    private void dropIfEmpty(long itemId, ItemIntervals intervals) {
+        if (intervals.byStart.isEmpty()) {
+            intervals.dropped = true;
+            items.remove(itemId, intervals);
+        }
+    }
+
+    private static final class ItemIntervals {
+        private final TreeMap<LocalDateTime, LocalDateTime> byStart = new TreeMap<>();
+        private boolean loaded;
+        private boolean dropped;
+
+        /**
+         * Intervals don't overlap, so ends grow together with starts and the ended ones are at the head.
+         */
+        private void prune(LocalDateTime now) {
+            Iterator<LocalDateTime> ends = byStart.values().iterator();
+            while (ends.hasNext() && !ends.next().isAfter(now)) {
+                ends.remove();
+            }
+        }
+    }
+}
@@ -1,60 +1,107 @@
 package ru.practicum.shareit.booking.service;
 
 import lombok.extern.slf4j.Slf4j;
+import org.postgresql.util.PSQLException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Sort;
-import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.booking.dto.BookingBatchResultDto;
+import ru.practicum.shareit.booking.dto.BookingDecisionDto;
 import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.lock.ItemLocks;
 import ru.practicum.shareit.booking.mapper.BookingMapper;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.model.BookingState;
 import ru.practicum.shareit.booking.model.BookingStatus;
 import ru.practicum.shareit.booking.storage.BookingStorage;
+import ru.practicum.shareit.event.model.EventType;
+import ru.practicum.shareit.event.service.OutboxService;
 import ru.practicum.shareit.exceptions.BadRequestException;
+import ru.practicum.shareit.exceptions.ConflictException;
 import ru.practicum.shareit.exceptions.UserNotFoundException;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.service.BookingSnapshotService;
 import ru.practicum.shareit.item.storage.ItemStorage;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.service.UserExistenceCache;
 import ru.practicum.shareit.user.storage.UserStorage;
+import ru.practicum.shareit.utils.Cursor;
+import ru.practicum.shareit.utils.TransactionHooks;
 
-import javax.persistence.criteria.Predicate;
 import javax.validation.ConstraintViolation;
 import javax.validation.ValidationException;
 import javax.validation.Validator;
 import java.security.AccessControlException;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
-import java.util.Collection;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
+import static ru.practicum.shareit.utils.Constant.MAX_BOOKING_BATCH_SIZE;
+
 @Slf4j
 @Service
 @Transactional
 public class BookingService {
+    private static final String EXCLUSION_VIOLATION = "23P01";
+
     private final BookingStorage bookingStorage;
     private final UserStorage userStorage;
     private final ItemStorage itemStorage;
     private final Validator validator;
+    private final BookingSnapshotService bookingSnapshotService;
+    private final BookingIntervalIndex bookingIntervalIndex;
+    private final TransactionTemplate transactionTemplate;
+    private final StatusRetryProperties retryProperties;
+    private final ItemLocks itemLocks;
+    private final OutboxService outboxService;
+    private final UserExistenceCache userExistenceCache;
 
-    public BookingService(BookingStorage bookingStorage, UserStorage userStorage, ItemStorage itemStorage, Validator validator) {
+    public BookingService(BookingStorage bookingStorage, UserStorage userStorage, ItemStorage itemStorage, Validator validator,
+                          BookingSnapshotService bookingSnapshotService, BookingIntervalIndex bookingIntervalIndex,
+                          PlatformTransactionManager transactionManager, StatusRetryProperties retryProperties,
+                          ItemLocks itemLocks, OutboxService outboxService, UserExistenceCache userExistenceCache) {
         this.bookingStorage = bookingStorage;
         this.userStorage = userStorage;
         this.itemStorage = itemStorage;
         this.validator = validator;
+        this.bookingSnapshotService = bookingSnapshotService;
+        this.bookingIntervalIndex = bookingIntervalIndex;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.retryProperties = retryProperties;
+        this.itemLocks = itemLocks;
+        this.outboxService = outboxService;
+        this.userExistenceCache = userExistenceCache;
     }
 
     public BookingDto create(BookingDto bookingDto, long userId) {
-        if (!itemStorage.findById(bookingDto.getItemId()).orElseThrow().isAvailable()) {
+        Item item = itemStorage.findById(bookingDto.getItemId()).orElseThrow();
+        itemLocks.lock(item.getId());
+        if (itemLocks.spansInstances()) {
+            bookingIntervalIndex.reload(List.of(item.getId()));
+        }
+        if (!item.isAvailable()) {
             throw new BadRequestException("Item is not available");
         }
-        if (!userStorage.existsById(userId)) {
+        if (!userExistenceCache.exists(userId)) {
             throw new UserNotFoundException(String.valueOf(userId));
         }
         bookingDto.setStatus(BookingStatus.WAITING);
         Booking booking = BookingMapper.mapToBooking(bookingDto);
-        booking.setItem(itemStorage.findById(bookingDto.getItemId()).orElseThrow());
+        booking.setItem(item);
         booking.setBooker(userStorage.findById(userId).orElseThrow());
         if (booking.getItem().getOwnerId() == userId) {
             throw new AccessControlException("Can't book your own item");
@@ -63,26 +110,234 @@ public class BookingService {
         if (!constraintViolations.isEmpty()) {
             throw new ValidationException("Bad booking fields: " + constraintViolations + "\n" + booking);
         }
+        long itemId = booking.getItem().getId();
+        LocalDateTime start = booking.getStart();
+        LocalDateTime end = booking.getEnd();
+        bookingIntervalIndex.reserve(itemId, start, end);
+        TransactionHooks.afterRollback(() -> bookingIntervalIndex.release(itemId, start, end));
         log.debug("Creating booking {}", booking);
-        return BookingMapper.mapToDto(bookingStorage.save(booking));
+        try {
+            BookingDto created = BookingMapper.mapToDto(bookingStorage.saveAndFlush(booking));
+            outboxService.record(EventType.BOOKING_CREATED, created.getId(), created);
+            return created;
+        } catch (DataIntegrityViolationException e) {
+            if (isOverlap(e)) {
+                log.warn("Booking of item {} overlaps: {}", itemId, e.getMostSpecificCause().getMessage());
+                throw new BadRequestException("Item " + itemId + " is already booked between " + start + " and " + end);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Creates several bookings of one user in a single transaction. Items are loaded with one query, each element
+     * is checked like in {@link #create}, and the accepted bookings are inserted together as a JDBC batch.
+     * An element that fails its checks is reported in the result and doesn't prevent the others from being created.
+     * A batch rejected by the database for an overlap the interval index missed is rolled back and tried once more
+     * with the intervals of its items reloaded, so the overlapping elements are reported and the others created.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public List<BookingBatchResultDto> createAll(List<BookingDto> bookingDtos, long userId) {
+        if (bookingDtos == null || bookingDtos.isEmpty() || bookingDtos.size() > MAX_BOOKING_BATCH_SIZE) {
+            throw new BadRequestException("Batch must contain from 1 to " + MAX_BOOKING_BATCH_SIZE + " bookings");
+        }
+        try {
+            return transactionTemplate.execute(status -> insertAll(bookingDtos, userId, false));
+        } catch (DataIntegrityViolationException e) {
+            if (!isOverlap(e)) {
+                throw e;
+            }
+            log.warn("Batch of user {} overlaps, retrying with reloaded intervals: {}", userId,
+                    e.getMostSpecificCause().getMessage());
+        }
+        try {
+            return transactionTemplate.execute(status -> insertAll(bookingDtos, userId, true));
+        } catch (DataIntegrityViolationException e) {
+            if (isOverlap(e)) {
+                log.warn("Batch of user {} overlaps again: {}", userId, e.getMostSpecificCause().getMessage());
+                throw new ConflictException("Some of the items were booked concurrently, try again");
+            }
+            throw e;
+        }
+    }
+
+    private List<BookingBatchResultDto> insertAll(List<BookingDto> bookingDtos, long userId, boolean reload) {
+        User booker = userStorage.findById(userId).orElseThrow(() -> new UserNotFoundException(String.valueOf(userId)));
+        Set<Long> itemIds = bookingDtos.stream()
+                .map(BookingDto::getItemId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        Map<Long, Item> items = itemStorage.findAllById(itemIds).stream()
+                .collect(Collectors.toMap(Item::getId, Function.identity()));
+        itemLocks.lock(items.keySet());
+        if (reload || itemLocks.spansInstances()) {
+            bookingIntervalIndex.reload(items.keySet());
+        }
+        BookingBatchResultDto[] results = new BookingBatchResultDto[bookingDtos.size()];
+        List<Integer> accepted = new ArrayList<>();
+        List<Booking> bookings = new ArrayList<>();
+        for (int i = 0; i < bookingDtos.size(); i++) {
+            BookingDto bookingDto = bookingDtos.get(i);
+            Item item = items.get(bookingDto.getItemId());
+            if (item == null) {
+                results[i] = BookingBatchResultDto.failed(i, "Item " + bookingDto.getItemId() + " not found");
+                continue;
+            }
+            if (!item.isAvailable()) {
+                results[i] = BookingBatchResultDto.failed(i, "Item is not available");
+                continue;
+            }
+            if (item.getOwnerId() == userId) {
+                results[i] = BookingBatchResultDto.failed(i, "Can't book your own item");
+                continue;
+            }
+            if (bookingDto.getStart() == null || bookingDto.getEnd() == null) {
+                results[i] = BookingBatchResultDto.failed(i, "Start and end of booking are required");
+                continue;
+            }
+            bookingDto.setStatus(BookingStatus.WAITING);
+            Booking booking = BookingMapper.mapToBooking(bookingDto);
+            booking.setItem(item);
+            booking.setBooker(booker);
+            Set<ConstraintViolation<Booking>> constraintViolations = validator.validate(booking);
+            if (!constraintViolations.isEmpty()) {
+                results[i] = BookingBatchResultDto.failed(i, "Bad booking fields: " + constraintViolations);
+                continue;
+            }
+            long itemId = item.getId();
+            LocalDateTime start = booking.getStart();
+            LocalDateTime end = booking.getEnd();
+            try {
+                bookingIntervalIndex.reserve(itemId, start, end);
+            } catch (BadRequestException e) {
+                results[i] = BookingBatchResultDto.failed(i, e.getMessage());
+                continue;
+            }
+            TransactionHooks.afterRollback(() -> bookingIntervalIndex.release(itemId, start, end));
+            accepted.add(i);
+            bookings.add(booking);
+        }
+        log.debug("Creating {} of {} bookings for user {}", bookings.size(), bookingDtos.size(), userId);
+        List<Booking> saved = bookingStorage.saveAllAndFlush(bookings);
+        for (int i = 0; i < saved.size(); i++) {
+            int index = accepted.get(i);
+            BookingDto created = BookingMapper.mapToDto(saved.get(i));
+            outboxService.record(EventType.BOOKING_CREATED, created.getId(), created);
+            results[index] = BookingBatchResultDto.succeeded(index, created);
+        }
+        return Arrays.asList(results);
     }
 
+    /**
+     * Runs each attempt in its own transaction. An attempt that loses the optimistic lock to a concurrent change
+     * is retried up to {@link StatusRetryProperties#getMaxAttempts()} times. A retry that finds the booking
+     * already in the requested status returns it, as the concurrent change made the same decision.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public BookingDto setStatus(long bookingId, boolean isApproved, long userId) {
+        for (int attempt = 1; ; attempt++) {
+            boolean retry = attempt > 1;
+            try {
+                return transactionTemplate.execute(status -> decide(bookingId, isApproved, userId, retry));
+            } catch (OptimisticLockingFailureException e) {
+                if (attempt >= retryProperties.getMaxAttempts()) {
+                    log.warn("Booking {} is still changed concurrently after {} attempts", bookingId, attempt);
+                    throw new ConflictException("Booking " + bookingId + " was changed concurrently, try again");
+                }
+                log.debug("Booking {} was changed concurrently, attempt {} of {}", bookingId, attempt,
+                        retryProperties.getMaxAttempts());
+                backOff(attempt);
+            }
+        }
+    }
+
+    private BookingDto decide(long bookingId, boolean isApproved, long userId, boolean retry) {
         Booking booking = bookingStorage.findById(bookingId).orElseThrow();
         if (booking.getItem().getOwnerId() != userId) {
             throw new AccessControlException("User " + userId + " is not owner of the item");
         }
-        if (booking.getStatus().equals(BookingStatus.WAITING)) {
-            if (isApproved) {
-                booking.setStatus(BookingStatus.APPROVED);
-            } else {
-                booking.setStatus(BookingStatus.REJECTED);
-            }
-        } else {
+        BookingStatus target = isApproved ? BookingStatus.APPROVED : BookingStatus.REJECTED;
+        if (retry && booking.getStatus() == target) {
+            log.debug("Booking {} is already {}", bookingId, target);
+            return BookingMapper.mapToDto(booking);
+        }
+        if (booking.getStatus() != BookingStatus.WAITING) {
             throw new BadRequestException("Can't change status after decision");
         }
+        booking.setStatus(target);
         log.debug("Set {} at booking {} by user {}", isApproved, bookingId, userId);
-        return BookingMapper.mapToDto(bookingStorage.save(booking));
+        Booking saved = bookingStorage.saveAndFlush(booking);
+        onDecided(saved);
+        return BookingMapper.mapToDto(saved);
+    }
+
+    private void backOff(int attempt) {
+        try {
+            Thread.sleep(retryProperties.getBackoffMs() * attempt);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ConflictException("Interrupted while waiting to retry");
+        }
+    }
+
+    /**
+     * Approves or rejects several bookings of the owner's items. The bookings are loaded with one query,
+     * ownership and status are checked per element, and the accepted decisions are written with one update
+     * per target status. Elements that fail their checks are reported in the result.
+     */
+    public List<BookingBatchResultDto> decideAll(List<BookingDecisionDto> decisions, long userId) {
+        if (decisions == null || decisions.isEmpty() || decisions.size() > MAX_BOOKING_BATCH_SIZE) {
+            throw new BadRequestException("Batch must contain from 1 to " + MAX_BOOKING_BATCH_SIZE + " decisions");
+        }
+        Set<Long> bookingIds = decisions.stream()
+                .map(BookingDecisionDto::getBookingId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        Map<Long, Booking> bookings = bookingStorage.findAllWithItemAndBooker(bookingIds).stream()
+                .collect(Collectors.toMap(Booking::getId, Function.identity()));
+        BookingBatchResultDto[] results = new BookingBatchResultDto[decisions.size()];
+        Set<Long> decided = new HashSet<>();
+        Map<BookingStatus, List<Booking>> byStatus = new EnumMap<>(BookingStatus.class);
+        for (int i = 0; i < decisions.size(); i++) {
+            BookingDecisionDto decision = decisions.get(i);
+            Booking booking = bookings.get(decision.getBookingId());
+            if (booking == null) {
+                results[i] = BookingBatchResultDto.failed(i, "Booking " + decision.getBookingId() + " not found");
+                continue;
+            }
+            if (decision.getApproved() == null) {
+                results[i] = BookingBatchResultDto.failed(i, "Decision for booking " + booking.getId() + " is missing");
+                continue;
+            }
+            if (booking.getItem().getOwnerId() != userId) {
+                results[i] = BookingBatchResultDto.failed(i, "User " + userId + " is not owner of the item");
+                continue;
+            }
+            if (booking.getStatus() != BookingStatus.WAITING || !decided.add(booking.getId())) {
+                results[i] = BookingBatchResultDto.failed(i, "Can't change status after decision");
+                continue;
+            }
+            BookingStatus status = decision.getApproved() ? BookingStatus.APPROVED : BookingStatus.REJECTED;
+            byStatus.computeIfAbsent(status, key -> new ArrayList<>()).add(booking);
+        }
+        for (Map.Entry<BookingStatus, List<Booking>> entry : byStatus.entrySet()) {
+            List<Long> ids = entry.getValue().stream().map(Booking::getId).collect(Collectors.toList());
+            int updated = bookingStorage.updateStatus(ids, BookingStatus.WAITING, entry.getKey());
+            if (updated != ids.size()) {
+                throw new ConflictException("Some of the bookings were decided concurrently, nothing was changed");
+            }
+            log.debug("Set {} at bookings {} by user {}", entry.getKey(), ids, userId);
+        }
+        for (int i = 0; i < decisions.size(); i++) {
+            if (results[i] != null) {
+                continue;
+            }
+            Booking booking = bookings.get(decisions.get(i).getBookingId());
+            booking.setStatus(decisions.get(i).getApproved() ? BookingStatus.APPROVED : BookingStatus.REJECTED);
+            onDecided(booking);
+            results[i] = BookingBatchResultDto.succeeded(i, BookingMapper.mapToDto(booking));
+        }
+        return Arrays.asList(results);
     }
 
     @Transactional(readOnly = true)
@@ -97,52 +352,38 @@ public class BookingService {
     }
 
     @Transactional(readOnly = true)
-    public Collection<BookingDto> findBookingsForUserOrOwner(long userId, BookingState state, boolean isOwner,
-                                                             Integer from, Integer size) {
-        if (!userStorage.existsById(userId)) {
+    public Slice<BookingDto> findBookingsForUserOrOwner(long userId, BookingState state, boolean isOwner,
+                                                             Integer from, Integer size, Cursor after) {
+        if (!userExistenceCache.exists(userId)) {
             throw new UserNotFoundException(String.valueOf(userId));
         }
-        Specification<Booking> specification = ((root, query, criteriaBuilder) -> {
-            List<Predicate> predicates = new ArrayList<>();
-            Predicate user;
-            if (isOwner) {
-                user = criteriaBuilder.equal(root.join("item").get("ownerId"), userId);
-            } else {
-                user = criteriaBuilder.equal(root.join("booker").get("id"), userId);
-            }
-            predicates.add(user);
-            Predicate predicate = null;
-            switch (state) {
-                case ALL:
-                    break;
-                case CURRENT:
-                    predicate = criteriaBuilder.and(criteriaBuilder.lessThan(root.get("start"), LocalDateTime.now()),
-                            criteriaBuilder.greaterThan(root.get("end"), LocalDateTime.now()));
-                    break;
-                case PAST:
-                    predicate = criteriaBuilder.lessThan(root.get("end"), LocalDateTime.now());
-                    break;
-                case FUTURE:
-                    predicate = criteriaBuilder.greaterThan(root.get("start"), LocalDateTime.now());
-                    break;
-                case WAITING:
-                    predicate = criteriaBuilder.equal(root.get("status"), BookingStatus.WAITING);
-                    break;
-                case REJECTED:
-                    predicate = criteriaBuilder.equal(root.get("status"), BookingStatus.REJECTED);
-                    break;
-                default:
-                    throw new IllegalStateException("Unknown state: " + state);
-            }
-            if (predicate != null) {
-                predicates.add(predicate);
-            }
-            log.debug("Search has {} criteria", predicates.size());
-            return criteriaBuilder.and(predicates.toArray(Predicate[]::new));
-        });
-        return bookingStorage.findAll(specification, PageRequest.of(from / size, size, Sort.by(Sort.Direction.DESC, "start")))
-                .stream()
-                .map(BookingMapper::mapToDto)
-                .collect(Collectors.toList());
+        PageRequest page = after == null ? PageRequest.of(from / size, size) : PageRequest.of(0, size);
+        log.debug("Get bookings of user {} as {} in state {}, page {}, after {}", userId, isOwner ? "owner" : "booker",
+                state, page, after);
+        return bookingStorage.findForUser(userId, isOwner, state, LocalDateTime.now(), after, page)
+                .map(BookingMapper::mapToDto);
+    }
+
+    /**
+     * Side effects of a booking leaving WAITING: the decision goes to the outbox, which also feeds the booker's
+     * stream; an approved booking may become the item's last or next one, a rejected one frees its period.
+     */
+    private void onDecided(Booking booking) {
+        BookingDto decided = BookingMapper.mapToDto(booking);
+        outboxService.record(booking.getStatus() == BookingStatus.APPROVED ? EventType.BOOKING_APPROVED
+                : EventType.BOOKING_REJECTED, booking.getId(), decided);
+        if (booking.getStatus() == BookingStatus.APPROVED) {
+            bookingSnapshotService.onApproved(booking);
+        } else {
+            long itemId = booking.getItem().getId();
+            LocalDateTime start = booking.getStart();
+            LocalDateTime end = booking.getEnd();
+            TransactionHooks.afterCommit(() -> bookingIntervalIndex.release(itemId, start, end));
+        }
+    }
+
+    private static boolean isOverlap(DataIntegrityViolationException e) {
+        return e.getMostSpecificCause() instanceof PSQLException
+                && EXCLUSION_VIOLATION.equals(((PSQLException) e.getMostSpecificCause()).getSQLState());
     }
 }
@@ -0,0 +1,176 @@
+package ru.practicum.shareit.booking.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.event.dto.EventDto;
+import ru.practicum.shareit.event.model.EventType;
+import ru.practicum.shareit.event.service.EventFeed;
+import ru.practicum.shareit.exceptions.UserNotFoundException;
+import ru.practicum.shareit.user.service.UserExistenceCache;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Open {@code /bookings/stream} connections by user. Every instance tails the published outbox events, so
+ * a status change reaches the booker whichever instance made it and whichever one holds the connection.
+ * Changes are pushed from the task executor, so a slow client never holds up the tail. Idle connections get
+ * a heartbeat comment now and then, so proxies don't close them and dead clients are noticed.
+ * The {@code shareit.bookings.stream.fanout} timer runs from the change being written to the outbox to the last
+ * send, so it includes the wait for the relay and the tail.
+ */
+@Slf4j
+@Component
+public class BookingStatusStream {
+    private static final String EVENT_NAME = "booking-status";
+    private static final Set<String> STATUS_EVENTS = Set.of(EventType.BOOKING_APPROVED.name(),
+            EventType.BOOKING_REJECTED.name(), EventType.BOOKING_CANCELED.name());
+    private static final int TAIL_BATCH = 200;
+
+    private final UserExistenceCache userExistenceCache;
+    private final EventFeed eventFeed;
+    private final ObjectMapper objectMapper;
+    private final TaskExecutor taskExecutor;
+    private final long timeoutMs;
+    private final Map<Long, Set<SseEmitter>> emitters = new ConcurrentHashMap<>();
+    private final AtomicInteger connections = new AtomicInteger();
+    private final Timer fanOutTimer;
+    // position of the last event seen, unknown until the first tail
+    private long position = -1;
+
+    public BookingStatusStream(UserExistenceCache userExistenceCache, EventFeed eventFeed, ObjectMapper objectMapper,
+                               @Qualifier(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME)
+                               TaskExecutor taskExecutor, MeterRegistry meterRegistry,
+                               @Value("${shareit.bookings.stream.timeout-ms:1800000}") long timeoutMs) {
+        this.userExistenceCache = userExistenceCache;
+        this.eventFeed = eventFeed;
+        this.objectMapper = objectMapper;
+        this.taskExecutor = taskExecutor;
+        this.timeoutMs = timeoutMs;
+        meterRegistry.gauge("shareit.bookings.stream.connections", connections);
+        this.fanOutTimer = meterRegistry.timer("shareit.bookings.stream.fanout");
+    }
+
+    public SseEmitter subscribe(long userId) {
+        if (!userExistenceCache.exists(userId)) {
+            throw new UserNotFoundException(String.valueOf(userId));
+        }
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        emitters.computeIfAbsent(userId, id -> new CopyOnWriteArraySet<>()).add(emitter);
+        connections.incrementAndGet();
+        Runnable remove = () -> remove(userId, emitter);
+        emitter.onCompletion(remove);
+        emitter.onTimeout(remove);
+        emitter.onError(e -> remove.run());
+        log.debug("User {} subscribed to booking status changes", userId);
+        return emitter;
+    }
+
+    /**
+     * Reads the events published since the last run and pushes the status changes among them. The first run
+     * starts at the end of the feed: connections only get changes made after they were opened.
+     */
+    @Scheduled(fixedDelayString = "${shareit.bookings.stream.poll-interval-ms:500}")
+    public synchronized void tail() {
+        try {
+            if (position < 0) {
+                position = eventFeed.lastPosition();
+                return;
+            }
+            List<EventDto> events;
+            do {
+                events = eventFeed.read(position, TAIL_BATCH);
+                for (EventDto event : events) {
+                    position = event.getPosition();
+                    if (STATUS_EVENTS.contains(event.getType())) {
+                        publish(event);
+                    }
+                }
+            } while (events.size() == TAIL_BATCH);
+        } catch (DataAccessException e) {
+            log.warn("Reading booking events failed, retrying on the next run", e);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${shareit.bookings.stream.heartbeat-ms:15000}")
+    public void heartbeat() {
+        List<SseEmitter> targets = new ArrayList<>();
+        emitters.values().forEach(targets::addAll);
+        if (targets.isEmpty()) {
+            return;
+        }
+        taskExecutor.execute(() -> {
+            for (SseEmitter emitter : targets) {
+                send(emitter, SseEmitter.event().comment("heartbeat"));
+            }
+        });
+    }
+
+    private void publish(EventDto event) {
+        try {
+            publish(objectMapper.readValue(event.getPayload(), BookingDto.class), event.getCreated());
+        } catch (JsonProcessingException e) {
+            log.warn("Skipping unreadable {} event at {}: {}", event.getType(), event.getPosition(), e.getMessage());
+        }
+    }
+
+    /**
+     * Pushes a changed booking to its booker.
+     *
+     * @param changed when the change was written to the outbox
+     */
+    void publish(BookingDto booking, LocalDateTime changed) {
+        Set<SseEmitter> targets = emitters.get(booking.getBooker().getId());
+        if (targets == null || targets.isEmpty()) {
+            return;
+        }
+        taskExecutor.execute(() -> {
+            for (SseEmitter emitter : targets) {
+                send(emitter, SseEmitter.event()
+                        .name(EVENT_NAME)
+                        .id(String.valueOf(booking.getId()))
+                        .data(booking));
+            }
+            // clocks of the instances may differ a little
+            Duration latency = Duration.between(changed, LocalDateTime.now());
+            fanOutTimer.record(latency.isNegative() ? Duration.ZERO : latency);
+        });
+    }
+
+    private void send(SseEmitter emitter, SseEmitter.SseEventBuilder event) {
+        try {
+            emitter.send(event);
+        } catch (IOException | IllegalStateException e) {
+            log.debug("Dropping booking stream connection: {}", e.getMessage());
+            emitter.completeWithError(e);
+        }
+    }
+
+    private void remove(long userId, SseEmitter emitter) {
+        Set<SseEmitter> userEmitters = emitters.get(userId);
+        if (userEmitters != null && userEmitters.remove(emitter)) {
+            connections.decrementAndGet();
+            emitters.computeIfPresent(userId, (id, set) -> set.isEmpty() ? null : set);
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package ru.practicum.shareit.booking.service;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * How often a booking status change is retried after it lost an optimistic lock to a concurrent change.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "shareit.bookings.status-retry")
+public class StatusRetryProperties {
+    /**
+     * Attempts in total, the first one included.
+     */
+    private int maxAttempts = 3;
+    /**
+     * Pause before a retry, multiplied by the number of attempts made so far.
+     */
+    private long backoffMs = 20;
+}
@@ -0,0 +1,9 @@
+package ru.practicum.shareit.booking.storage;
+
+import java.time.LocalDateTime;
+
+public interface BookingPeriod {
+    LocalDateTime getStart();
+
+    LocalDateTime getEnd();
+}
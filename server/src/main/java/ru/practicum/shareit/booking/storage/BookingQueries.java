@@ -0,0 +1,93 @@
+package ru.practicum.shareit.booking.storage;
+
+import ru.practicum.shareit.booking.model.BookingState;
+import ru.practicum.shareit.booking.model.BookingStatus;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * JPQL of the booking list queries, one per role, state and paging mode. The strings are built once,
+ * so Hibernate parses each of them only once and afterwards takes the plan from its query plan cache.
+ */
+class BookingQueries {
+    private static final String SELECT_VIEW = "select new ru.practicum.shareit.booking.storage.BookingView(b.id, " +
+            "b.start, b.end, i.id, i.name, i.description, i.available, i.requestId, u.id, u.name, u.email, b.status) " +
+            "from Booking b join b.item i join b.booker u ";
+    private static final Map<String, ListQuery> LIST_QUERIES = new HashMap<>();
+
+    static {
+        for (boolean isOwner : new boolean[]{false, true}) {
+            for (BookingState state : BookingState.values()) {
+                for (boolean keyset : new boolean[]{false, true}) {
+                    LIST_QUERIES.put(key(isOwner, state, keyset), build(isOwner, state, keyset));
+                }
+            }
+        }
+    }
+
+    static ListQuery list(boolean isOwner, BookingState state, boolean keyset) {
+        return LIST_QUERIES.get(key(isOwner, state, keyset));
+    }
+
+    private static String key(boolean isOwner, BookingState state, boolean keyset) {
+        return (isOwner ? "owner:" : "booker:") + state + (keyset ? ":keyset" : "");
+    }
+
+    private static ListQuery build(boolean isOwner, BookingState state, boolean keyset) {
+        StringBuilder jpql = new StringBuilder(SELECT_VIEW)
+                .append(isOwner ? "where i.ownerId = :userId" : "where u.id = :userId");
+        boolean timed = false;
+        BookingStatus status = null;
+        switch (state) {
+            case ALL:
+                break;
+            case CURRENT:
+                jpql.append(" and b.start < :now and b.end > :now");
+                timed = true;
+                break;
+            case PAST:
+                // implied by the end bound, but only a start bound lets Postgres skip the partitions of later months
+                jpql.append(" and b.start < :now and b.end < :now");
+                timed = true;
+                break;
+            case FUTURE:
+                jpql.append(" and b.start > :now");
+                timed = true;
+                break;
+            case WAITING:
+                jpql.append(" and b.status = :status");
+                status = BookingStatus.WAITING;
+                break;
+            case REJECTED:
+                jpql.append(" and b.status = :status");
+                status = BookingStatus.REJECTED;
+                break;
+            default:
+                throw new IllegalStateException("Unknown state: " + state);
+        }
+        if (keyset) {
+            jpql.append(" and (b.start < :afterStart or (b.start = :afterStart and b.id < :afterId))");
+        }
+        jpql.append(" order by b.start desc, b.id desc");
+        return new ListQuery(jpql.toString(), timed, status);
+    }
+
+    static final class ListQuery {
+        final String jpql;
+        /**
+         * Whether the query takes the {@code now} parameter.
+         */
+        final boolean timed;
+        /**
+         * Value of the {@code status} parameter, if the query has one.
+         */
+        final BookingStatus status;
+
+        private ListQuery(String jpql, boolean timed, BookingStatus status) {
+            this.jpql = jpql;
+            this.timed = timed;
+            this.status = status;
+        }
+    }
+}
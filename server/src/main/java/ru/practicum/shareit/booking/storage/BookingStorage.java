@@ -1,22 +1,84 @@
 package ru.practicum.shareit.booking.storage;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
-import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.model.BookingStatus;
-import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.booking.model.BookingStatusConverter;
 
 import java.time.LocalDateTime;
 import java.util.Collection;
 import java.util.List;
 
-public interface BookingStorage extends JpaRepository<Booking, Long>, JpaSpecificationExecutor<Booking> {
-    @Query("select b from Booking b where b.item.ownerId = ?1 and b.status = 'APPROVED' and b.item in ?2")
-    List<Booking> findByItemOwnerId(Long ownerId, Collection<Item> items);
+public interface BookingStorage extends JpaRepository<Booking, Long>, BookingStorageCustom {
+    /**
+     * Status literals for JPQL. Hibernate writes them into the SQL as the codes of {@link BookingStatusConverter},
+     * so Postgres can match the partial indexes on status even with a generic plan of the prepared statement.
+     */
+    String JPQL_WAITING = "ru.practicum.shareit.booking.model.BookingStatus.WAITING";
+    String JPQL_APPROVED = "ru.practicum.shareit.booking.model.BookingStatus.APPROVED";
 
-    @Query("select b from Booking b where b.item.id = ?1 and b.status = 'APPROVED'")
-    List<Booking> findByItemId(Long itemId);
+    /**
+     * For every item returns at most two approved bookings: the last one started before {@code now}
+     * (the one ending latest) and the next one starting after {@code now} (the one starting earliest).
+     */
+    @Query(value = "select id, start_date as start, end_date as \"end\", item_id as itemId, booker_id as bookerId, " +
+            "last from (" +
+            "select b.*, true as last, row_number() over (partition by b.item_id order by b.end_date desc, b.id desc) as rn " +
+            "from bookings b where b.item_id in (:itemIds) and b.status = " + BookingStatusConverter.APPROVED +
+            " and b.start_date < :now) l " +
+            "where rn = 1 " +
+            "union all " +
+            "select id, start_date, end_date, item_id, booker_id, last from (" +
+            "select b.*, false as last, row_number() over (partition by b.item_id order by b.start_date, b.id) as rn " +
+            "from bookings b where b.item_id in (:itemIds) and b.status = " + BookingStatusConverter.APPROVED +
+            " and b.start_date > :now) n " +
+            "where rn = 1", nativeQuery = true)
+    List<ItemBookingView> findLastAndNext(@Param("itemIds") Collection<Long> itemIds, @Param("now") LocalDateTime now);
 
-    boolean existsByBooker_IdAndEndBeforeAndStatus(long id, LocalDateTime end, BookingStatus status);
+    /**
+     * Periods of the approved bookings of the item overlapping {@code [from, to)}.
+     */
+    @Query("select b.start as start, b.end as end from Booking b " +
+            "where b.item.id = :itemId and b.status = " + JPQL_APPROVED +
+            " and b.start < :to and b.end > :from order by b.start")
+    List<BookingPeriod> findApprovedPeriods(@Param("itemId") long itemId, @Param("from") LocalDateTime from,
+                                            @Param("to") LocalDateTime to);
+
+    @Query("select b from Booking b join fetch b.item join fetch b.booker where b.id in :ids")
+    List<Booking> findAllWithItemAndBooker(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Moves the bookings that are still in status {@code from} to status {@code to} with one statement
+     * and bumps their versions, so a concurrent single decision on one of them fails its optimistic check.
+     * Clears the persistence context, so bookings loaded before are detached and keep their old status.
+     *
+     * @return number of bookings moved
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Booking b set b.status = :to, b.version = b.version + 1 where b.id in :ids and b.status = :from")
+    int updateStatus(@Param("ids") Collection<Long> ids, @Param("from") BookingStatus from,
+                     @Param("to") BookingStatus to);
+
+    /**
+     * Waiting bookings that have started by {@code now}, the earliest first.
+     */
+    @Query("select b from Booking b join fetch b.item join fetch b.booker " +
+            "where b.status = " + JPQL_WAITING + " and b.start <= :now order by b.start")
+    List<Booking> findOverdue(@Param("now") LocalDateTime now, Pageable pageable);
+
+    @Query("select count(b) from Booking b where b.status = " + JPQL_WAITING + " and b.start <= :now")
+    long countOverdue(@Param("now") LocalDateTime now);
+
+    List<Booking> findByItem_IdAndStatusInAndEndAfter(long itemId, Collection<BookingStatus> statuses, LocalDateTime end);
+
+    /**
+     * Whether the user has an approved booking that ended before {@code end}.
+     */
+    @Query("select count(b) > 0 from Booking b " +
+            "where b.booker.id = :bookerId and b.status = " + JPQL_APPROVED + " and b.end < :end")
+    boolean existsApprovedEndedBefore(@Param("bookerId") long bookerId, @Param("end") LocalDateTime end);
 }
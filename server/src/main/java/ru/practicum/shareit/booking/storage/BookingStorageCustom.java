@@ -0,0 +1,20 @@
+package ru.practicum.shareit.booking.storage;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import ru.practicum.shareit.booking.model.BookingState;
+import ru.practicum.shareit.utils.Cursor;
+
+import java.time.LocalDateTime;
+
+public interface BookingStorageCustom {
+    /**
+     * Bookings of the booker (or of the owner's items) in the given state, newest start first.
+     * Reads one extra row to tell if there is a next page instead of running a count query. Rows are projections,
+     * so the read loads no managed bookings, items or users.
+     *
+     * @param after keyset position to continue from; when given, the offset of {@code pageable} is ignored
+     */
+    Slice<BookingView> findForUser(long userId, boolean isOwner, BookingState state, LocalDateTime now, Cursor after,
+                               Pageable pageable);
+}
@@ -0,0 +1,44 @@
+package ru.practicum.shareit.booking.storage;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import ru.practicum.shareit.booking.model.BookingState;
+import ru.practicum.shareit.utils.Cursor;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.TypedQuery;
+import java.time.LocalDateTime;
+import java.util.List;
+
+public class BookingStorageImpl implements BookingStorageCustom {
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public Slice<BookingView> findForUser(long userId, boolean isOwner, BookingState state, LocalDateTime now, Cursor after,
+                                      Pageable pageable) {
+        BookingQueries.ListQuery listQuery = BookingQueries.list(isOwner, state, after != null);
+        TypedQuery<BookingView> query = entityManager.createQuery(listQuery.jpql, BookingView.class)
+                .setParameter("userId", userId);
+        if (listQuery.timed) {
+            query.setParameter("now", now);
+        }
+        if (listQuery.status != null) {
+            query.setParameter("status", listQuery.status);
+        }
+        if (after != null) {
+            query.setParameter("afterStart", after.getKey())
+                    .setParameter("afterId", after.getId());
+        } else {
+            query.setFirstResult((int) pageable.getOffset());
+        }
+        List<BookingView> bookings = query.setMaxResults(pageable.getPageSize() + 1).getResultList();
+        boolean hasNext = bookings.size() > pageable.getPageSize();
+        if (hasNext) {
+            bookings = bookings.subList(0, pageable.getPageSize());
+        }
+        return new SliceImpl<>(bookings, pageable, hasNext);
+    }
+}
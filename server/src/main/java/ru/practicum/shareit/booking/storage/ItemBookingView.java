@@ -0,0 +1,29 @@
+package ru.practicum.shareit.booking.storage;
+
+import ru.practicum.shareit.booking.model.BookingStatus;
+
+import java.time.LocalDateTime;
+
+/**
+ * Last or next approved booking of an item, as read by {@link BookingStorage#findLastAndNext}.
+ */
+public interface ItemBookingView {
+    Long getId();
+
+    LocalDateTime getStart();
+
+    LocalDateTime getEnd();
+
+    Long getItemId();
+
+    Long getBookerId();
+
+    /**
+     * The query reads approved bookings only.
+     */
+    default BookingStatus getStatus() {
+        return BookingStatus.APPROVED;
+    }
+
+    boolean isLast();
+}
@@ -0,0 +1,37 @@
+package ru.practicum.shareit.event;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.DeferredResult;
+import ru.practicum.shareit.event.dto.EventDto;
+import ru.practicum.shareit.event.service.EventFeed;
+
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
+import java.util.List;
+
+/**
+ * Change stream for internal consumers: events after the given position, waiting for new ones if there are none.
+ */
+@Slf4j
+@RestController
+@RequestMapping("/events")
+@Validated
+public class EventController {
+    private final EventFeed eventFeed;
+
+    public EventController(EventFeed eventFeed) {
+        this.eventFeed = eventFeed;
+    }
+
+    @GetMapping
+    public DeferredResult<List<EventDto>> getEvents(@RequestParam(defaultValue = "0") @Min(0) long after,
+                                                    @RequestParam(defaultValue = "100") @Min(1) @Max(1000) int limit) {
+        log.info("Get events after {}, limit {}", after, limit);
+        return eventFeed.poll(after, limit);
+    }
+}
@@ -0,0 +1,11 @@
+package ru.practicum.shareit.event.mapper;
+
+import ru.practicum.shareit.event.dto.EventDto;
+import ru.practicum.shareit.event.model.OutboxEvent;
+
+public class EventMapper {
+    public static EventDto mapToDto(OutboxEvent event) {
+        return new EventDto(event.getPosition(), event.getType().name(), event.getEntityId(), event.getCreated(),
+                event.getPayload());
+    }
+}
@@ -0,0 +1,5 @@
+package ru.practicum.shareit.event.model;
+
+public enum EventType {
+    BOOKING_CREATED, BOOKING_APPROVED, BOOKING_REJECTED, BOOKING_CANCELED, ITEM_CREATED, ITEM_UPDATED
+}
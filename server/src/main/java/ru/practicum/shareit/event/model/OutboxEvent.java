@@ -0,0 +1,36 @@
+package ru.practicum.shareit.event.model;
+
+import lombok.Data;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.SequenceGenerator;
+import javax.persistence.Table;
+import java.time.LocalDateTime;
+
+/**
+ * An event written in the transaction of the change it describes. The relay assigns {@code position}
+ * when it publishes the event; unpublished events have none.
+ */
+@Data
+@Entity
+@Table(name = "outbox_events")
+public class OutboxEvent {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "outbox_events_id_seq")
+    @SequenceGenerator(name = "outbox_events_id_seq", sequenceName = "outbox_events_id_seq", allocationSize = 50)
+    private Long id;
+    @Enumerated(EnumType.STRING)
+    private EventType type;
+    @Column(name = "entity_id")
+    private Long entityId;
+    private String payload;
+    private LocalDateTime created;
+    private Long position;
+    private LocalDateTime published;
+}
@@ -0,0 +1,97 @@
+package ru.practicum.shareit.event.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.context.request.async.DeferredResult;
+import ru.practicum.shareit.event.dto.EventDto;
+import ru.practicum.shareit.event.mapper.EventMapper;
+import ru.practicum.shareit.event.storage.OutboxStorage;
+import ru.practicum.shareit.utils.replica.ReplicaRoutingTransactionManager;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.stream.Collectors;
+
+/**
+ * Long-poll reads of published events. A poll with nothing new parks until the relay publishes
+ * or the poll times out with an empty list. Reads the primary, as a poll must see an event
+ * as soon as it is published.
+ */
+@Slf4j
+@Service
+@Transactional(readOnly = true, label = ReplicaRoutingTransactionManager.PRIMARY)
+public class EventFeed {
+    private final OutboxStorage outboxStorage;
+    private final long timeoutMs;
+    private final Queue<Poll> polls = new ConcurrentLinkedQueue<>();
+
+    public EventFeed(OutboxStorage outboxStorage, @Value("${shareit.events.poll-timeout-ms:30000}") long timeoutMs) {
+        this.outboxStorage = outboxStorage;
+        this.timeoutMs = timeoutMs;
+    }
+
+    public DeferredResult<List<EventDto>> poll(long after, int limit) {
+        DeferredResult<List<EventDto>> result = new DeferredResult<>(timeoutMs, Collections.emptyList());
+        Poll poll = new Poll(after, limit, result);
+        polls.add(poll);
+        result.onCompletion(() -> polls.remove(poll));
+        List<EventDto> events = find(after, limit);
+        if (!events.isEmpty()) {
+            result.setResult(events);
+        }
+        return result;
+    }
+
+    /**
+     * Answers the parked polls that have new events. Called after the relay commits, so it reads
+     * in a transaction of its own.
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW, readOnly = true,
+            label = ReplicaRoutingTransactionManager.PRIMARY)
+    public void onPublished() {
+        for (Poll poll : polls) {
+            if (poll.result.isSetOrExpired()) {
+                continue;
+            }
+            List<EventDto> events = find(poll.after, poll.limit);
+            if (!events.isEmpty()) {
+                poll.result.setResult(events);
+            }
+        }
+    }
+
+    /**
+     * Published events after position {@code after}, for consumers tailing the feed on their own schedule.
+     */
+    public List<EventDto> read(long after, int limit) {
+        return find(after, limit);
+    }
+
+    public long lastPosition() {
+        return outboxStorage.findLastPosition();
+    }
+
+    private List<EventDto> find(long after, int limit) {
+        return outboxStorage.findByPositionGreaterThanOrderByPosition(after, PageRequest.of(0, limit)).stream()
+                .map(EventMapper::mapToDto)
+                .collect(Collectors.toList());
+    }
+
+    private static final class Poll {
+        private final long after;
+        private final int limit;
+        private final DeferredResult<List<EventDto>> result;
+
+        private Poll(long after, int limit, DeferredResult<List<EventDto>> result) {
+            this.after = after;
+            this.limit = limit;
+            this.result = result;
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package ru.practicum.shareit.event.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.event.mapper.EventMapper;
+import ru.practicum.shareit.event.model.OutboxEvent;
+import ru.practicum.shareit.event.sink.EventSink;
+import ru.practicum.shareit.event.storage.OutboxStorage;
+import ru.practicum.shareit.utils.TransactionHooks;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Moves events from the outbox to the sink. Events get consecutive positions in the order they are published,
+ * so a consumer tailing by position never skips an event that was committed late.
+ */
+@Slf4j
+@Service
+@Transactional
+public class OutboxRelay {
+    private final OutboxStorage outboxStorage;
+    private final EventSink eventSink;
+    private final EventFeed eventFeed;
+
+    public OutboxRelay(OutboxStorage outboxStorage, EventSink eventSink, EventFeed eventFeed) {
+        this.outboxStorage = outboxStorage;
+        this.eventSink = eventSink;
+        this.eventFeed = eventFeed;
+    }
+
+    /**
+     * Publishes up to {@code limit} events in one transaction.
+     *
+     * @return number of published events
+     */
+    public int relay(int limit) {
+        List<OutboxEvent> events = outboxStorage.lockUnpublished(PageRequest.of(0, limit));
+        if (events.isEmpty()) {
+            return 0;
+        }
+        long position = outboxStorage.findLastPosition();
+        LocalDateTime now = LocalDateTime.now();
+        for (OutboxEvent event : events) {
+            event.setPosition(++position);
+            event.setPublished(now);
+        }
+        eventSink.publish(events.stream().map(EventMapper::mapToDto).collect(Collectors.toList()));
+        TransactionHooks.afterCommit(eventFeed::onPublished);
+        log.debug("Published {} events up to position {}", events.size(), position);
+        return events.size();
+    }
+}
@@ -0,0 +1,31 @@
+package ru.practicum.shareit.event.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Slf4j
+@Component
+public class OutboxRelayScheduler {
+    private final OutboxRelay outboxRelay;
+    private final int batchSize;
+
+    public OutboxRelayScheduler(OutboxRelay outboxRelay, @Value("${shareit.outbox.batch-size:200}") int batchSize) {
+        this.outboxRelay = outboxRelay;
+        this.batchSize = batchSize;
+    }
+
+    @Scheduled(fixedDelayString = "${shareit.outbox.relay-interval-ms:500}")
+    public void relay() {
+        int total = 0;
+        int published;
+        do {
+            published = outboxRelay.relay(batchSize);
+            total += published;
+        } while (published == batchSize);
+        if (total > 0) {
+            log.debug("Relayed {} outbox events", total);
+        }
+    }
+}
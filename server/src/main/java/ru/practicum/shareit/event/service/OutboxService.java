@@ -0,0 +1,44 @@
+package ru.practicum.shareit.event.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.event.model.EventType;
+import ru.practicum.shareit.event.model.OutboxEvent;
+import ru.practicum.shareit.event.storage.OutboxStorage;
+
+import java.time.LocalDateTime;
+
+/**
+ * Writes events to the outbox. Must be called inside the transaction of the change, so the event is stored
+ * if and only if the change commits.
+ */
+@Slf4j
+@Service
+@Transactional(propagation = Propagation.MANDATORY)
+public class OutboxService {
+    private final OutboxStorage outboxStorage;
+    private final ObjectMapper objectMapper;
+
+    public OutboxService(OutboxStorage outboxStorage, ObjectMapper objectMapper) {
+        this.outboxStorage = outboxStorage;
+        this.objectMapper = objectMapper;
+    }
+
+    public void record(EventType type, long entityId, Object payload) {
+        OutboxEvent event = new OutboxEvent();
+        event.setType(type);
+        event.setEntityId(entityId);
+        event.setCreated(LocalDateTime.now());
+        try {
+            event.setPayload(objectMapper.writeValueAsString(payload));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Can't serialize " + type + " event of " + entityId, e);
+        }
+        log.debug("Recording {} event of {}", type, entityId);
+        outboxStorage.save(event);
+    }
+}
@@ -0,0 +1,26 @@
+package ru.practicum.shareit.event.sink;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.event.dto.EventDto;
+
+import java.util.List;
+
+/**
+ * Publishes every event as a Spring application event, for listeners in the same process.
+ */
+@Component
+@ConditionalOnProperty(name = "shareit.outbox.sink.type", havingValue = "application", matchIfMissing = true)
+public class ApplicationEventSink implements EventSink {
+    private final ApplicationEventPublisher applicationEventPublisher;
+
+    public ApplicationEventSink(ApplicationEventPublisher applicationEventPublisher) {
+        this.applicationEventPublisher = applicationEventPublisher;
+    }
+
+    @Override
+    public void publish(List<EventDto> events) {
+        events.forEach(applicationEventPublisher::publishEvent);
+    }
+}
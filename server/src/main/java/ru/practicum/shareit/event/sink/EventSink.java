@@ -0,0 +1,14 @@
+package ru.practicum.shareit.event.sink;
+
+import ru.practicum.shareit.event.dto.EventDto;
+
+import java.util.List;
+
+/**
+ * Destination the outbox relay publishes to. The implementation is selected with {@code shareit.outbox.sink.type}.
+ * Delivery is at least once: a batch is published again if the relay fails to commit it.
+ */
+public interface EventSink {
+
+    void publish(List<EventDto> events);
+}
@@ -0,0 +1,47 @@
+package ru.practicum.shareit.event.sink;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.event.dto.EventDto;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Appends events to a file, one JSON object per line. Meant for local runs.
+ */
+@Component
+@ConditionalOnProperty(name = "shareit.outbox.sink.type", havingValue = "file")
+public class FileEventSink implements EventSink {
+    private final Path file;
+    private final ObjectMapper objectMapper;
+
+    public FileEventSink(@Value("${shareit.outbox.sink.file:events.jsonl}") String file, ObjectMapper objectMapper) {
+        this.file = Path.of(file);
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public synchronized void publish(List<EventDto> events) {
+        List<String> lines = new ArrayList<>(events.size());
+        try {
+            for (EventDto event : events) {
+                lines.add(objectMapper.writeValueAsString(event));
+            }
+            Files.write(file, lines, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Can't serialize event", e);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Can't write events to " + file, e);
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package ru.practicum.shareit.event.storage;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import ru.practicum.shareit.event.model.OutboxEvent;
+
+import javax.persistence.LockModeType;
+import java.util.List;
+
+public interface OutboxStorage extends JpaRepository<OutboxEvent, Long> {
+    /**
+     * Unpublished events in the order they were written, locked so two relays don't publish the same events.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select e from OutboxEvent e where e.position is null order by e.id")
+    List<OutboxEvent> lockUnpublished(Pageable pageable);
+
+    @Query("select coalesce(max(e.position), 0) from OutboxEvent e")
+    long findLastPosition();
+
+    List<OutboxEvent> findByPositionGreaterThanOrderByPosition(long position, Pageable pageable);
+}
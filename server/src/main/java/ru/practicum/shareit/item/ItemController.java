@@ -1,6 +1,8 @@
 package ru.practicum.shareit.item;
 
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -12,12 +14,16 @@ import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import ru.practicum.shareit.item.dto.CommentDto;
 import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.dto.IntervalDto;
 import ru.practicum.shareit.item.dto.ItemDtoWithCommentsAndBookings;
 import ru.practicum.shareit.item.model.Comment;
 import ru.practicum.shareit.item.service.ItemService;
+import ru.practicum.shareit.utils.Cursor;
+import ru.practicum.shareit.utils.PageResponse;
 
 import javax.validation.Valid;
 import javax.validation.constraints.Min;
+import java.time.LocalDateTime;
 import java.util.Collection;
 
 import static ru.practicum.shareit.utils.Constant.USER_ID;
@@ -52,19 +58,31 @@ public class ItemController {
     }
 
     @GetMapping
-    public Collection<ItemDtoWithCommentsAndBookings> getAllForUser(@RequestHeader(USER_ID) long userId,
-                                                                    @RequestParam(defaultValue = "0") @Min(0) Integer from,
-                                                                    @RequestParam(defaultValue = "20") @Min(1) Integer size) {
-        log.info("Get all items of user {}, from {}, size {}", userId, from, size);
-        return itemService.getAllForOwner(userId, from, size);
+    public ResponseEntity<Collection<ItemDtoWithCommentsAndBookings>> getAllForUser(@RequestHeader(USER_ID) long userId,
+                                                                                    @RequestParam(defaultValue = "0") @Min(0) Integer from,
+                                                                                    @RequestParam(defaultValue = "20") @Min(1) Integer size,
+                                                                                    @RequestParam(required = false) String after) {
+        log.info("Get all items of user {}, from {}, size {}, after {}", userId, from, size, after);
+        return PageResponse.of(itemService.getAllForOwner(userId, from, size, Cursor.decode(after)), size,
+                item -> Cursor.of(item.getId()));
     }
 
     @GetMapping("/search")
-    public Collection<ItemDto> getAvailable(@RequestParam String text,
-                                            @RequestParam(defaultValue = "0") @Min(0) Integer from,
-                                            @RequestParam(defaultValue = "20") @Min(1) Integer size) {
-        log.info("Search request with text = {}, from {}, size {}", text, from, size);
-        return itemService.getAvailable(text, from, size);
+    public ResponseEntity<Collection<ItemDto>> getAvailable(@RequestParam String text,
+                                                            @RequestParam(defaultValue = "0") @Min(0) Integer from,
+                                                            @RequestParam(defaultValue = "20") @Min(1) Integer size,
+                                                            @RequestParam(required = false) String after) {
+        log.info("Search request with text = {}, from {}, size {}, after {}", text, from, size, after);
+        return PageResponse.of(itemService.getAvailable(text, from, size, Cursor.decode(after)), size,
+                item -> Cursor.of(item.getId()));
+    }
+
+    @GetMapping("/{itemId}/availability")
+    public Collection<IntervalDto> getAvailability(@RequestHeader(USER_ID) long userId, @PathVariable long itemId,
+                                                   @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                                   @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        log.info("Get availability of item {} from {} to {} for user {}", itemId, from, to, userId);
+        return itemService.getAvailability(itemId, from, to);
     }
 
     @PostMapping("/{itemId}/comment")
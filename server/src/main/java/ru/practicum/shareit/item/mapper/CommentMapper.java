@@ -1,7 +1,9 @@
 package ru.practicum.shareit.item.mapper;
 
 import ru.practicum.shareit.item.dto.CommentDto;
+import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.model.Comment;
+import ru.practicum.shareit.item.storage.CommentView;
 
 public class CommentMapper {
     public static CommentDto mapToDto(Comment comment) {
@@ -11,4 +13,12 @@ public class CommentMapper {
                 comment.getAuthor().getName(),
                 comment.getCreated());
     }
+
+    public static CommentDto mapToDto(CommentView comment, ItemDto item) {
+        return new CommentDto(comment.getId(),
+                comment.getText(),
+                item,
+                comment.getAuthorName(),
+                comment.getCreated());
+    }
 }
@@ -1,16 +1,17 @@
 package ru.practicum.shareit.item.mapper;
 
 import ru.practicum.shareit.booking.dto.BookingDtoForOwner;
-import ru.practicum.shareit.booking.mapper.BookingMapper;
-import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingStatus;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.dto.ItemDtoWithCommentsAndBookings;
+import ru.practicum.shareit.item.model.BookingSnapshot;
 import ru.practicum.shareit.item.model.Comment;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.storage.CommentView;
+import ru.practicum.shareit.item.storage.ItemCardView;
+import ru.practicum.shareit.item.storage.ItemView;
 
-import java.time.LocalDateTime;
 import java.util.Collections;
-import java.util.Comparator;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -26,36 +27,61 @@ public class ItemMapper {
                 item.getRequestId());
     }
 
-    public static ItemDtoWithCommentsAndBookings mapToDtoWithComments(Item item, List<Comment> comments, List<Booking> bookings) {
+    public static ItemDto mapToDto(ItemView item) {
+        return new ItemDto(item.getId(),
+                item.getName(),
+                item.getDescription(),
+                item.getAvailable(),
+                item.getRequestId());
+    }
+
+    public static ItemDtoWithCommentsAndBookings mapToDtoWithComments(Item item, List<Comment> comments) {
+        return mapToDtoWithComments(item, comments, mapToDtoForOwner(item, item.getLastBooking()),
+                mapToDtoForOwner(item, item.getNextBooking()));
+    }
+
+    public static ItemDtoWithCommentsAndBookings mapToDtoWithComments(Item item, List<Comment> comments,
+                                                                      BookingDtoForOwner lastBooking,
+                                                                      BookingDtoForOwner nextBooking) {
         return new ItemDtoWithCommentsAndBookings(item.getId(),
                 item.getName(),
                 item.getDescription(),
                 item.isAvailable(),
                 comments != null ? comments.stream().map(CommentMapper::mapToDto).collect(Collectors.toList()) : Collections.emptyList(),
-                getLastBooking(bookings),
-                getNextBooking(bookings));
+                lastBooking,
+                nextBooking);
     }
 
-    private static BookingDtoForOwner getNextBooking(List<Booking> bookings) {
-        if (bookings == null) {
-            return null;
-        }
-        return bookings.stream()
-                .filter(booking -> booking.getStart().isAfter(LocalDateTime.now()))
-                .map(BookingMapper::mapToDtoForOwner)
-                .min(Comparator.comparing(BookingDtoForOwner::getStart))
-                .orElse(null);
+    public static ItemDtoWithCommentsAndBookings mapToDtoWithComments(ItemCardView item, List<CommentView> comments) {
+        return mapToDtoWithComments(item, comments, mapToDtoForOwner(item.getId(), item.getLastBooking()),
+                mapToDtoForOwner(item.getId(), item.getNextBooking()));
+    }
+
+    public static ItemDtoWithCommentsAndBookings mapToDtoWithComments(ItemCardView item, List<CommentView> comments,
+                                                                      BookingDtoForOwner lastBooking,
+                                                                      BookingDtoForOwner nextBooking) {
+        ItemDto itemDto = new ItemDto(item.getId(), item.getName(), item.getDescription(), item.getAvailable(),
+                item.getRequestId());
+        return new ItemDtoWithCommentsAndBookings(item.getId(),
+                item.getName(),
+                item.getDescription(),
+                item.getAvailable(),
+                comments != null ? comments.stream().map(comment -> CommentMapper.mapToDto(comment, itemDto))
+                        .collect(Collectors.toList()) : Collections.emptyList(),
+                lastBooking,
+                nextBooking);
+    }
+
+    private static BookingDtoForOwner mapToDtoForOwner(Item item, BookingSnapshot booking) {
+        return mapToDtoForOwner(item.getId(), booking);
     }
 
-    private static BookingDtoForOwner getLastBooking(List<Booking> bookings) {
-        if (bookings == null) {
+    private static BookingDtoForOwner mapToDtoForOwner(Long itemId, BookingSnapshot booking) {
+        if (booking == null) {
             return null;
         }
-        return bookings.stream()
-                .filter(booking -> booking.getStart().isBefore(LocalDateTime.now()))
-                .map(BookingMapper::mapToDtoForOwner)
-                .max(Comparator.comparing(BookingDtoForOwner::getEnd))
-                .orElse(null);
+        return new BookingDtoForOwner(booking.getId(), booking.getStart(), booking.getEnd(), itemId,
+                booking.getBookerId(), BookingStatus.APPROVED);
     }
 
     public static Item mapToItem(ItemDto itemDto, Item item) {
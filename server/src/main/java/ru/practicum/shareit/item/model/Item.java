@@ -2,23 +2,34 @@ package ru.practicum.shareit.item.model;
 
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
+import javax.persistence.AttributeOverride;
+import javax.persistence.AttributeOverrides;
+import javax.persistence.Cacheable;
 import javax.persistence.Column;
+import javax.persistence.Embedded;
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.SequenceGenerator;
 import javax.persistence.Table;
+import javax.persistence.Version;
 import javax.validation.constraints.NotBlank;
 import javax.validation.constraints.NotNull;
 
 @Data
 @Entity
 @Table(name = "items")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "items")
 @NoArgsConstructor
 public class Item {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "items_id_seq")
+    @SequenceGenerator(name = "items_id_seq", sequenceName = "items_id_seq", allocationSize = 50)
     private Long id;
     @NotNull
     private Long ownerId;
@@ -29,4 +40,27 @@ public class Item {
     private boolean available = false;
     @Column(name = "request_id")
     private Long requestId;
+    /**
+     * Snapshots are maintained by booking decisions and the roll-forward job through the update queries of
+     * {@link ru.practicum.shareit.item.storage.ItemStorage}, not by the owner. The entity never writes them,
+     * so an owner's edit of a copy loaded before an approval can't overwrite the snapshot the approval set.
+     */
+    @Embedded
+    @AttributeOverrides({
+            @AttributeOverride(name = "id", column = @Column(name = "last_booking_id", insertable = false, updatable = false)),
+            @AttributeOverride(name = "start", column = @Column(name = "last_booking_start", insertable = false, updatable = false)),
+            @AttributeOverride(name = "end", column = @Column(name = "last_booking_end", insertable = false, updatable = false)),
+            @AttributeOverride(name = "bookerId", column = @Column(name = "last_booker_id", insertable = false, updatable = false))
+    })
+    private BookingSnapshot lastBooking;
+    @Embedded
+    @AttributeOverrides({
+            @AttributeOverride(name = "id", column = @Column(name = "next_booking_id", insertable = false, updatable = false)),
+            @AttributeOverride(name = "start", column = @Column(name = "next_booking_start", insertable = false, updatable = false)),
+            @AttributeOverride(name = "end", column = @Column(name = "next_booking_end", insertable = false, updatable = false)),
+            @AttributeOverride(name = "bookerId", column = @Column(name = "next_booker_id", insertable = false, updatable = false))
+    })
+    private BookingSnapshot nextBooking;
+    @Version
+    private Long version;
 }
@@ -0,0 +1,216 @@
+package ru.practicum.shareit.item.search;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.mapper.ItemMapper;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.storage.ItemStorage;
+import ru.practicum.shareit.utils.TransactionHooks;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Inverted index of 1-, 2- and 3-grams over the name and description of available items.
+ * A query of up to three characters is answered by a single posting list, longer queries intersect
+ * the posting lists of their trigrams and verify the candidates, so matching stays a substring match
+ * like the JPQL fallback. Posting lists are ordered by item id, which gives stable pagination.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "shareit.search.engine", havingValue = "memory")
+public class InMemoryItemSearchEngine implements ItemSearchEngine {
+    private static final int GRAM_SIZE = 3;
+    private static final int LOAD_BATCH_SIZE = 1000;
+
+    private final ItemStorage itemStorage;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, NavigableSet<Long>> postings = new HashMap<>();
+    private final Map<Long, Document> documents = new HashMap<>();
+
+    public InMemoryItemSearchEngine(ItemStorage itemStorage) {
+        this.itemStorage = itemStorage;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        long lastId = 0;
+        int count = 0;
+        List<Item> batch;
+        do {
+            batch = itemStorage.findAvailableAfter(lastId, PageRequest.of(0, LOAD_BATCH_SIZE));
+            for (Item item : batch) {
+                apply(item.getId(), Document.of(item));
+                lastId = item.getId();
+            }
+            count += batch.size();
+        } while (batch.size() == LOAD_BATCH_SIZE);
+        log.info("Search index built for {} available items", count);
+    }
+
+    @Override
+    public Collection<ItemDto> search(String text, int from, int size) {
+        return load(findIds(text.toLowerCase(Locale.ROOT), 0, from / size * size, size));
+    }
+
+    @Override
+    public Collection<ItemDto> searchAfter(String text, long afterId, int size) {
+        return load(findIds(text.toLowerCase(Locale.ROOT), afterId, 0, size));
+    }
+
+    @Override
+    public void index(Item item) {
+        long itemId = item.getId();
+        Document document = item.isAvailable() ? Document.of(item) : null;
+        TransactionHooks.afterCommit(() -> apply(itemId, document));
+    }
+
+    List<Long> findIds(String query, long afterId, int offset, int limit) {
+        lock.readLock().lock();
+        try {
+            List<NavigableSet<Long>> lists = new ArrayList<>();
+            for (String gram : queryGrams(query)) {
+                NavigableSet<Long> list = postings.get(gram);
+                if (list == null) {
+                    return Collections.emptyList();
+                }
+                lists.add(list);
+            }
+            lists.sort(Comparator.comparingInt(Set::size));
+            List<Long> result = new ArrayList<>(limit);
+            int skipped = 0;
+            for (Long id : lists.get(0).tailSet(afterId, false)) {
+                if (!containsInAll(lists, id) || !documents.get(id).matches(query)) {
+                    continue;
+                }
+                if (skipped < offset) {
+                    skipped++;
+                } else {
+                    result.add(id);
+                    if (result.size() == limit) {
+                        break;
+                    }
+                }
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Loads the hits by id, which the second-level cache of items mostly answers without a query.
+     */
+    private Collection<ItemDto> load(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return Collections.emptyList();
+        }
+        Map<Long, Item> items = itemStorage.findAllById(ids).stream()
+                .collect(Collectors.toMap(Item::getId, Function.identity()));
+        return ids.stream()
+                .map(items::get)
+                .filter(Objects::nonNull)
+                .map(ItemMapper::mapToDto)
+                .collect(Collectors.toList());
+    }
+
+    private void apply(long itemId, Document document) {
+        lock.writeLock().lock();
+        try {
+            Document previous = document == null ? documents.remove(itemId) : documents.put(itemId, document);
+            if (previous != null) {
+                for (String gram : previous.grams()) {
+                    NavigableSet<Long> list = postings.get(gram);
+                    list.remove(itemId);
+                    if (list.isEmpty()) {
+                        postings.remove(gram);
+                    }
+                }
+            }
+            if (document != null) {
+                for (String gram : document.grams()) {
+                    postings.computeIfAbsent(gram, key -> new TreeSet<>()).add(itemId);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static boolean containsInAll(List<NavigableSet<Long>> lists, Long id) {
+        for (int i = 1; i < lists.size(); i++) {
+            if (!lists.get(i).contains(id)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static Collection<String> queryGrams(String query) {
+        if (query.length() <= GRAM_SIZE) {
+            return List.of(query);
+        }
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + GRAM_SIZE <= query.length(); i++) {
+            grams.add(query.substring(i, i + GRAM_SIZE));
+        }
+        return grams;
+    }
+
+    private static final class Document {
+        private final String name;
+        private final String description;
+
+        private Document(String name, String description) {
+            this.name = name;
+            this.description = description;
+        }
+
+        static Document of(Item item) {
+            return new Document(lower(item.getName()), lower(item.getDescription()));
+        }
+
+        boolean matches(String query) {
+            return name.contains(query) || description.contains(query);
+        }
+
+        Set<String> grams() {
+            Set<String> grams = new HashSet<>();
+            addGrams(name, grams);
+            addGrams(description, grams);
+            return grams;
+        }
+
+        private static void addGrams(String text, Set<String> grams) {
+            for (int length = 1; length <= GRAM_SIZE; length++) {
+                for (int i = 0; i + length <= text.length(); i++) {
+                    grams.add(text.substring(i, i + length));
+                }
+            }
+        }
+
+        private static String lower(String text) {
+            return text == null ? "" : text.toLowerCase(Locale.ROOT);
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package ru.practicum.shareit.item.search;
+
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.model.Item;
+
+import java.util.Collection;
+
+/**
+ * Full text lookup over available items. The implementation is selected with {@code shareit.search.engine}.
+ */
+public interface ItemSearchEngine {
+
+    Collection<ItemDto> search(String text, int from, int size);
+
+    /**
+     * Next page after the item with the given id, in the same order as {@link #search}.
+     */
+    Collection<ItemDto> searchAfter(String text, long afterId, int size);
+
+    /**
+     * Called after an item was created or updated, including {@code available} toggles.
+     */
+    void index(Item item);
+}
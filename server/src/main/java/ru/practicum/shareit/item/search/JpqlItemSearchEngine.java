@@ -0,0 +1,34 @@
+package ru.practicum.shareit.item.search;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.storage.ItemStorage;
+
+import java.util.Collection;
+
+@Component
+@ConditionalOnProperty(name = "shareit.search.engine", havingValue = "jpql", matchIfMissing = true)
+public class JpqlItemSearchEngine implements ItemSearchEngine {
+    private final ItemStorage itemStorage;
+
+    public JpqlItemSearchEngine(ItemStorage itemStorage) {
+        this.itemStorage = itemStorage;
+    }
+
+    @Override
+    public Collection<ItemDto> search(String text, int from, int size) {
+        return itemStorage.findAvailable(text, PageRequest.of(from / size, size));
+    }
+
+    @Override
+    public Collection<ItemDto> searchAfter(String text, long afterId, int size) {
+        return itemStorage.findAvailable(text, afterId, PageRequest.of(0, size));
+    }
+
+    @Override
+    public void index(Item item) {
+    }
+}
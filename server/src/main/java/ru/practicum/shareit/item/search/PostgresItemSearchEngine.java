@@ -0,0 +1,44 @@
+package ru.practicum.shareit.item.search;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.mapper.ItemMapper;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.storage.ItemStorage;
+
+import java.util.Collection;
+import java.util.stream.Collectors;
+
+/**
+ * Serves search from the partial pg_trgm GIN indexes on {@code items(name)} and {@code items(description)},
+ * most similar items first. Requires the postgresql schema script, so it is not usable on H2.
+ */
+@Component
+@ConditionalOnProperty(name = "shareit.search.engine", havingValue = "postgres")
+public class PostgresItemSearchEngine implements ItemSearchEngine {
+    private final ItemStorage itemStorage;
+
+    public PostgresItemSearchEngine(ItemStorage itemStorage) {
+        this.itemStorage = itemStorage;
+    }
+
+    @Override
+    public Collection<ItemDto> search(String text, int from, int size) {
+        return itemStorage.findAvailableRanked(text, PageRequest.of(from / size, size)).stream()
+                .map(ItemMapper::mapToDto)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public Collection<ItemDto> searchAfter(String text, long afterId, int size) {
+        return itemStorage.findAvailableRankedAfter(text, afterId, PageRequest.of(0, size)).stream()
+                .map(ItemMapper::mapToDto)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public void index(Item item) {
+    }
+}
@@ -0,0 +1,33 @@
+package ru.practicum.shareit.item.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+
+@Slf4j
+@Component
+public class BookingSnapshotScheduler {
+    private static final int BATCH_SIZE = 500;
+
+    private final BookingSnapshotService bookingSnapshotService;
+
+    public BookingSnapshotScheduler(BookingSnapshotService bookingSnapshotService) {
+        this.bookingSnapshotService = bookingSnapshotService;
+    }
+
+    @Scheduled(fixedDelayString = "${shareit.items.booking-snapshot.refresh-interval-ms:60000}")
+    public void rollForward() {
+        LocalDateTime now = LocalDateTime.now();
+        int total = 0;
+        int refreshed;
+        do {
+            refreshed = bookingSnapshotService.rollForward(now, BATCH_SIZE);
+            total += refreshed;
+        } while (refreshed == BATCH_SIZE);
+        if (total > 0) {
+            log.info("Booking snapshots of {} items rolled forward", total);
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package ru.practicum.shareit.item.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.storage.BookingStorage;
+import ru.practicum.shareit.booking.storage.ItemBookingView;
+import ru.practicum.shareit.item.model.BookingSnapshot;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.storage.ItemStorage;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Maintains the last/next booking snapshots of items. An approval is applied right away,
+ * the move of a next booking into the past is picked up by {@link #rollForward}.
+ */
+@Slf4j
+@Service
+@Transactional
+public class BookingSnapshotService {
+    private final ItemStorage itemStorage;
+    private final BookingStorage bookingStorage;
+
+    public BookingSnapshotService(ItemStorage itemStorage, BookingStorage bookingStorage) {
+        this.itemStorage = itemStorage;
+        this.bookingStorage = bookingStorage;
+    }
+
+    /**
+     * Snapshot can't be used once its next booking has started: the last booking may have changed
+     * and the booking after it is unknown.
+     */
+    public static boolean isStale(Item item, LocalDateTime now) {
+        return isStale(item.getNextBooking(), now);
+    }
+
+    public static boolean isStale(BookingSnapshot nextBooking, LocalDateTime now) {
+        return nextBooking != null && !nextBooking.getStart().isAfter(now);
+    }
+
+    public void onApproved(Booking booking) {
+        long itemId = booking.getItem().getId();
+        if (booking.getStart().isAfter(LocalDateTime.now())) {
+            itemStorage.offerNextBooking(itemId, booking.getId(), booking.getStart(), booking.getEnd(),
+                    booking.getBooker().getId());
+        } else {
+            itemStorage.offerLastBooking(itemId, booking.getId(), booking.getStart(), booking.getEnd(),
+                    booking.getBooker().getId());
+        }
+        log.debug("Booking {} offered to snapshot of item {}", booking.getId(), itemId);
+    }
+
+    /**
+     * Recomputes the snapshots of up to {@code limit} items whose next booking has started.
+     * The items are locked first, so approvals of their bookings wait and are not lost.
+     *
+     * @return number of refreshed items
+     */
+    public int rollForward(LocalDateTime now, int limit) {
+        List<Item> items = itemStorage.lockWithStartedNextBooking(now, PageRequest.of(0, limit));
+        if (items.isEmpty()) {
+            return 0;
+        }
+        List<Long> itemIds = items.stream().map(Item::getId).collect(Collectors.toList());
+        itemStorage.clearBookingSnapshots(itemIds);
+        for (ItemBookingView booking : bookingStorage.findLastAndNext(itemIds, now)) {
+            if (booking.isLast()) {
+                itemStorage.offerLastBooking(booking.getItemId(), booking.getId(), booking.getStart(), booking.getEnd(),
+                        booking.getBookerId());
+            } else {
+                itemStorage.offerNextBooking(booking.getItemId(), booking.getId(), booking.getStart(), booking.getEnd(),
+                        booking.getBookerId());
+            }
+        }
+        log.debug("Rolled forward booking snapshots of {} items", items.size());
+        return items.size();
+    }
+}
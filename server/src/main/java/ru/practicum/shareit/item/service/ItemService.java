@@ -2,9 +2,12 @@ package ru.practicum.shareit.item.service;
 
 import ru.practicum.shareit.item.dto.CommentDto;
 import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.dto.IntervalDto;
 import ru.practicum.shareit.item.dto.ItemDtoWithCommentsAndBookings;
 import ru.practicum.shareit.item.model.Comment;
+import ru.practicum.shareit.utils.Cursor;
 
+import java.time.LocalDateTime;
 import java.util.Collection;
 
 public interface ItemService {
@@ -15,9 +18,14 @@ public interface ItemService {
 
     ItemDtoWithCommentsAndBookings get(long itemId, long id);
 
-    Collection<ItemDtoWithCommentsAndBookings> getAllForOwner(long userId, Integer from, Integer size);
+    Collection<ItemDtoWithCommentsAndBookings> getAllForOwner(long userId, Integer from, Integer size, Cursor after);
 
-    Collection<ItemDto> getAvailable(String text, Integer from, Integer size);
+    Collection<ItemDto> getAvailable(String text, Integer from, Integer size, Cursor after);
 
     CommentDto createComment(long userId, Comment comment, long itemId);
+
+    /**
+     * Free intervals of the item between {@code from} and {@code to}: the gaps between its approved bookings.
+     */
+    Collection<IntervalDto> getAvailability(long itemId, LocalDateTime from, LocalDateTime to);
 }
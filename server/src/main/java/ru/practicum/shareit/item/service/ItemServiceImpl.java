@@ -2,12 +2,15 @@ package ru.practicum.shareit.item.service;
 
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import ru.practicum.shareit.booking.model.Booking;
-import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.dto.BookingDtoForOwner;
+import ru.practicum.shareit.booking.mapper.BookingMapper;
+import ru.practicum.shareit.booking.storage.BookingPeriod;
 import ru.practicum.shareit.booking.storage.BookingStorage;
+import ru.practicum.shareit.booking.storage.ItemBookingView;
+import ru.practicum.shareit.event.model.EventType;
+import ru.practicum.shareit.event.service.OutboxService;
 import ru.practicum.shareit.exceptions.BadRequestException;
 import ru.practicum.shareit.exceptions.ItemNotFoundException;
 import ru.practicum.shareit.exceptions.UserNotFoundException;
@@ -15,20 +18,28 @@ import ru.practicum.shareit.exceptions.WrongUserException;
 import ru.practicum.shareit.item.dto.CommentDto;
 import ru.practicum.shareit.item.mapper.CommentMapper;
 import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.dto.IntervalDto;
 import ru.practicum.shareit.item.dto.ItemDtoWithCommentsAndBookings;
 import ru.practicum.shareit.item.mapper.ItemMapper;
 import ru.practicum.shareit.item.model.Comment;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.search.ItemSearchEngine;
 import ru.practicum.shareit.item.storage.CommentStorage;
+import ru.practicum.shareit.item.storage.CommentView;
+import ru.practicum.shareit.item.storage.ItemCardView;
 import ru.practicum.shareit.item.storage.ItemStorage;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.service.UserService;
+import ru.practicum.shareit.utils.Cursor;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -39,12 +50,17 @@ public class ItemServiceImpl implements ItemService {
     private final BookingStorage bookingStorage;
     private final UserService userService;
     private final CommentStorage commentStorage;
+    private final ItemSearchEngine itemSearchEngine;
+    private final OutboxService outboxService;
 
-    public ItemServiceImpl(ItemStorage itemStorage, BookingStorage bookingStorage, UserService userService, CommentStorage commentStorage) {
+    public ItemServiceImpl(ItemStorage itemStorage, BookingStorage bookingStorage, UserService userService,
+                           CommentStorage commentStorage, ItemSearchEngine itemSearchEngine, OutboxService outboxService) {
         this.itemStorage = itemStorage;
         this.bookingStorage = bookingStorage;
         this.userService = userService;
         this.commentStorage = commentStorage;
+        this.itemSearchEngine = itemSearchEngine;
+        this.outboxService = outboxService;
     }
 
     @Override
@@ -57,7 +73,10 @@ public class ItemServiceImpl implements ItemService {
         item.setOwnerId(userId);
         log.debug("Creating item {}", itemDto);
         Item itemCreated = itemStorage.save(ItemMapper.mapToItem(itemDto, item));
-        return ItemMapper.mapToDto(itemCreated);
+        itemSearchEngine.index(itemCreated);
+        ItemDto created = ItemMapper.mapToDto(itemCreated);
+        outboxService.record(EventType.ITEM_CREATED, created.getId(), created);
+        return created;
     }
 
     @Override
@@ -70,7 +89,12 @@ public class ItemServiceImpl implements ItemService {
         ItemMapper.mapToItem(itemDto, item);
         log.debug("Updating item {}", itemId);
         Item itemUpdated = itemStorage.save(item);
-        return ItemMapper.mapToDto(itemUpdated);
+        // the item may have been loaded before a concurrent approval changed its snapshots
+        itemStorage.evictAfterCommit(itemId);
+        itemSearchEngine.index(itemUpdated);
+        ItemDto updated = ItemMapper.mapToDto(itemUpdated);
+        outboxService.record(EventType.ITEM_UPDATED, itemId, updated);
+        return updated;
     }
 
     @Transactional(readOnly = true)
@@ -78,42 +102,70 @@ public class ItemServiceImpl implements ItemService {
     public ItemDtoWithCommentsAndBookings get(long userId, long itemId) {
         log.debug("Getting item for id {}", itemId);
         Item item = itemStorage.findById(itemId).orElseThrow(() -> new ItemNotFoundException(String.valueOf(itemId)));
-        List<Booking> bookingList = Collections.emptyList();
-        if (item.getOwnerId() == userId) {
-            bookingList = bookingStorage.findByItemId(itemId);
+        List<Comment> comments = commentStorage.findByItem_Id(itemId);
+        if (item.getOwnerId() != userId) {
+            return ItemMapper.mapToDtoWithComments(item, comments, null, null);
         }
-        return ItemMapper.mapToDtoWithComments(item, commentStorage.findByItem_Id(itemId), bookingList);
+        LocalDateTime now = LocalDateTime.now();
+        if (!BookingSnapshotService.isStale(item, now)) {
+            return ItemMapper.mapToDtoWithComments(item, comments);
+        }
+        Map<Long, BookingDtoForOwner> lastBookings = new HashMap<>();
+        Map<Long, BookingDtoForOwner> nextBookings = new HashMap<>();
+        loadLastAndNextBookings(List.of(itemId), now, lastBookings, nextBookings);
+        return ItemMapper.mapToDtoWithComments(item, comments, lastBookings.get(itemId), nextBookings.get(itemId));
     }
 
     @Transactional(readOnly = true)
     @Override
-    public Collection<ItemDtoWithCommentsAndBookings> getAllForOwner(long userId, Integer from, Integer size) {
+    public Collection<ItemDtoWithCommentsAndBookings> getAllForOwner(long userId, Integer from, Integer size, Cursor after) {
         log.debug("Getting all items of user {}", userId);
-        Collection<Item> items = itemStorage.findByOwnerId(userId, PageRequest.of(from / size, size, Sort.by("id")));
-        Map<Long, List<Booking>> bookingMap = bookingStorage.findByItemOwnerId(userId, items).stream()
-                .collect(Collectors.groupingBy(booking -> booking.getItem().getId()));
-        Map<Long, List<Comment>> commentMap = commentStorage.findByItem_OwnerIdAndItemIn(userId, items).stream()
-                .collect(Collectors.groupingBy(comment -> comment.getItem().getId()));
+        List<ItemCardView> items;
+        if (after == null) {
+            items = itemStorage.findCardsByOwnerId(userId, PageRequest.of(from / size, size));
+        } else {
+            items = itemStorage.findCardsByOwnerIdAfter(userId, after.getId(), PageRequest.of(0, size));
+        }
+        if (items.isEmpty()) {
+            return Collections.emptyList();
+        }
+        LocalDateTime now = LocalDateTime.now();
+        Set<Long> staleItemIds = items.stream()
+                .filter(item -> BookingSnapshotService.isStale(item.getNextBooking(), now))
+                .map(ItemCardView::getId)
+                .collect(Collectors.toSet());
+        Map<Long, BookingDtoForOwner> lastBookings = new HashMap<>();
+        Map<Long, BookingDtoForOwner> nextBookings = new HashMap<>();
+        loadLastAndNextBookings(staleItemIds, now, lastBookings, nextBookings);
+        List<Long> itemIds = items.stream().map(ItemCardView::getId).collect(Collectors.toList());
+        Map<Long, List<CommentView>> commentMap = commentStorage.findViewsByItemIdIn(itemIds).stream()
+                .collect(Collectors.groupingBy(CommentView::getItemId));
         return items.stream()
-                .map(item -> ItemMapper.mapToDtoWithComments(item, commentMap.get(item.getId()), bookingMap.get(item.getId())))
+                .map(item -> staleItemIds.contains(item.getId())
+                        ? ItemMapper.mapToDtoWithComments(item, commentMap.get(item.getId()),
+                        lastBookings.get(item.getId()), nextBookings.get(item.getId()))
+                        : ItemMapper.mapToDtoWithComments(item, commentMap.get(item.getId())))
                 .collect(Collectors.toList());
     }
 
     @Transactional(readOnly = true)
     @Override
-    public Collection<ItemDto> getAvailable(String text, Integer from, Integer size) {
+    public Collection<ItemDto> getAvailable(String text, Integer from, Integer size, Cursor after) {
         if (text.length() == 0) {
             log.debug("Empty search text");
             return Collections.emptyList();
         }
         log.debug("Getting all available items for search text {}", text);
-        return itemStorage.findAvailable(text, PageRequest.of(from / size, size)).stream().map(ItemMapper::mapToDto).collect(Collectors.toList());
+        if (after == null) {
+            return itemSearchEngine.search(text, from, size);
+        }
+        return itemSearchEngine.searchAfter(text, after.getId(), size);
     }
 
     @Override
     public CommentDto createComment(long userId, Comment comment, long itemId) {
         User author = userService.findById(userId);
-        if (!bookingStorage.existsByBooker_IdAndEndBeforeAndStatus(userId, LocalDateTime.now(), BookingStatus.APPROVED)) {
+        if (!bookingStorage.existsApprovedEndedBefore(userId, LocalDateTime.now())) {
             throw new BadRequestException("User " + userId + " hasn't rent the item");
         }
         comment.setCreated(LocalDateTime.now());
@@ -122,4 +174,48 @@ public class ItemServiceImpl implements ItemService {
         log.debug("Saving comment from user {} to item {}", userId, itemId);
         return CommentMapper.mapToDto(commentStorage.save(comment));
     }
+
+    @Transactional(readOnly = true)
+    @Override
+    public Collection<IntervalDto> getAvailability(long itemId, LocalDateTime from, LocalDateTime to) {
+        if (!from.isBefore(to)) {
+            throw new BadRequestException("Availability range must end after it starts");
+        }
+        Item item = itemStorage.findById(itemId).orElseThrow(() -> new ItemNotFoundException(String.valueOf(itemId)));
+        if (!item.isAvailable()) {
+            log.debug("Item {} is not available", itemId);
+            return Collections.emptyList();
+        }
+        List<IntervalDto> free = new ArrayList<>();
+        LocalDateTime freeFrom = from;
+        for (BookingPeriod booked : bookingStorage.findApprovedPeriods(itemId, from, to)) {
+            if (booked.getStart().isAfter(freeFrom)) {
+                free.add(new IntervalDto(freeFrom, booked.getStart()));
+            }
+            if (booked.getEnd().isAfter(freeFrom)) {
+                freeFrom = booked.getEnd();
+            }
+        }
+        if (freeFrom.isBefore(to)) {
+            free.add(new IntervalDto(freeFrom, to));
+        }
+        log.debug("Item {} has {} free intervals between {} and {}", itemId, free.size(), from, to);
+        return free;
+    }
+
+    /**
+     * Reads last and next bookings from the bookings table, for items whose snapshot is stale.
+     */
+    private void loadLastAndNextBookings(Collection<Long> itemIds, LocalDateTime now,
+                                         Map<Long, BookingDtoForOwner> lastBookings,
+                                         Map<Long, BookingDtoForOwner> nextBookings) {
+        if (itemIds.isEmpty()) {
+            return;
+        }
+        log.debug("Booking snapshots of items {} are stale", itemIds);
+        for (ItemBookingView booking : bookingStorage.findLastAndNext(itemIds, now)) {
+            Map<Long, BookingDtoForOwner> target = booking.isLast() ? lastBookings : nextBookings;
+            target.put(booking.getItemId(), BookingMapper.mapToDtoForOwner(booking));
+        }
+    }
 }
@@ -1,14 +1,19 @@
 package ru.practicum.shareit.item.storage;
 
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 import ru.practicum.shareit.item.model.Comment;
-import ru.practicum.shareit.item.model.Item;
 
 import java.util.Collection;
 import java.util.List;
 
 public interface CommentStorage extends CrudRepository<Comment, Long> {
-    List<Comment> findByItem_OwnerIdAndItemIn(Long ownerId, Collection<Item> items);
+    @Query("select new ru.practicum.shareit.item.storage.CommentView(c.id, c.text, c.item.id, a.name, c.created) " +
+            "from Comment c join c.author a where c.item.id in :itemIds order by c.id")
+    List<CommentView> findViewsByItemIdIn(@Param("itemIds") Collection<Long> itemIds);
 
+    @EntityGraph(attributePaths = {"item", "author"})
     List<Comment> findByItem_Id(Long id);
 }
@@ -0,0 +1,21 @@
+package ru.practicum.shareit.item.storage;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.time.LocalDateTime;
+
+/**
+ * Comment with the name of its author, selected by a constructor expression of {@link CommentStorage}.
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class CommentView {
+    private final Long id;
+    private final String text;
+    private final Long itemId;
+    private final String authorName;
+    private final LocalDateTime created;
+}
@@ -0,0 +1,41 @@
+package ru.practicum.shareit.item.storage;
+
+import lombok.Getter;
+import lombok.ToString;
+import ru.practicum.shareit.item.model.BookingSnapshot;
+
+import java.time.LocalDateTime;
+
+/**
+ * Item of the owner's list with its booking snapshots, selected by a constructor expression
+ * instead of loading managed {@link ru.practicum.shareit.item.model.Item} entities.
+ */
+@Getter
+@ToString
+public class ItemCardView {
+    private final Long id;
+    private final String name;
+    private final String description;
+    private final Boolean available;
+    private final Long requestId;
+    private final BookingSnapshot lastBooking;
+    private final BookingSnapshot nextBooking;
+
+    public ItemCardView(Long id, String name, String description, Boolean available, Long requestId,
+                        Long lastBookingId, LocalDateTime lastBookingStart, LocalDateTime lastBookingEnd,
+                        Long lastBookingBookerId,
+                        Long nextBookingId, LocalDateTime nextBookingStart, LocalDateTime nextBookingEnd,
+                        Long nextBookingBookerId) {
+        this.id = id;
+        this.name = name;
+        this.description = description;
+        this.available = available;
+        this.requestId = requestId;
+        this.lastBooking = snapshot(lastBookingId, lastBookingStart, lastBookingEnd, lastBookingBookerId);
+        this.nextBooking = snapshot(nextBookingId, nextBookingStart, nextBookingEnd, nextBookingBookerId);
+    }
+
+    private static BookingSnapshot snapshot(Long id, LocalDateTime start, LocalDateTime end, Long bookerId) {
+        return id == null ? null : new BookingSnapshot(id, start, end, bookerId);
+    }
+}
@@ -1,18 +1,68 @@
 package ru.practicum.shareit.item.storage;
 
-import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.model.Item;
 
+import javax.persistence.LockModeType;
+import java.time.LocalDateTime;
 import java.util.Collection;
+import java.util.List;
 
-public interface ItemStorage extends JpaRepository<Item, Long> {
+/**
+ * Read-only lists select straight into DTO-shaped projections, so no managed entities are loaded for them.
+ */
+public interface ItemStorage extends JpaRepository<Item, Long>, ItemStorageCustom {
+    String SELECT_DTO = "select new ru.practicum.shareit.item.dto.ItemDto(i.id, i.name, i.description, i.available, " +
+            "i.requestId) from Item i ";
+    String SELECT_CARD = "select new ru.practicum.shareit.item.storage.ItemCardView(i.id, i.name, i.description, " +
+            "i.available, i.requestId, i.lastBooking.id, i.lastBooking.start, i.lastBooking.end, i.lastBooking.bookerId, " +
+            "i.nextBooking.id, i.nextBooking.start, i.nextBooking.end, i.nextBooking.bookerId) from Item i ";
+    String SELECT_VIEW = "select i.id as id, i.name as name, i.description as description, i.available as available, " +
+            "i.request_id as requestId from items i ";
 
-    Collection<Item> findByOwnerId(Long ownerId, PageRequest pageRequest);
+    @Query(SELECT_CARD + "where i.ownerId = :ownerId order by i.id")
+    List<ItemCardView> findCardsByOwnerId(@Param("ownerId") long ownerId, Pageable pageable);
 
-    @Query("select i from Item i " +
+    @Query(SELECT_CARD + "where i.ownerId = :ownerId and i.id > :afterId order by i.id")
+    List<ItemCardView> findCardsByOwnerIdAfter(@Param("ownerId") long ownerId, @Param("afterId") long afterId,
+                                               Pageable pageable);
+
+    @Query(SELECT_DTO + "where i.requestId in :requestIds order by i.id")
+    List<ItemDto> findDtosByRequestIdIn(@Param("requestIds") Collection<Long> requestIds);
+
+    @Query(SELECT_DTO +
             "where i.available = true and (upper(i.name) like upper(concat('%', :text, '%')) or upper(i.description) like upper(concat('%', :text, '%')))")
-    Collection<Item> findAvailable(@Param("text") String text, PageRequest pageRequest);
+    List<ItemDto> findAvailable(@Param("text") String text, Pageable pageable);
+
+    @Query(SELECT_DTO +
+            "where i.available = true and i.id > :afterId " +
+            "and (upper(i.name) like upper(concat('%', :text, '%')) or upper(i.description) like upper(concat('%', :text, '%'))) " +
+            "order by i.id")
+    List<ItemDto> findAvailable(@Param("text") String text, @Param("afterId") long afterId, Pageable pageable);
+
+    @Query(value = SELECT_VIEW +
+            "where i.available = true and (i.name ilike '%' || :text || '%' or i.description ilike '%' || :text || '%') " +
+            "order by greatest(similarity(i.name, :text), similarity(i.description, :text)) desc, i.id",
+            nativeQuery = true)
+    List<ItemView> findAvailableRanked(@Param("text") String text, Pageable pageable);
+
+    @Query(value = SELECT_VIEW +
+            "where i.available = true and (i.name ilike '%' || :text || '%' or i.description ilike '%' || :text || '%') " +
+            "and (greatest(similarity(i.name, :text), similarity(i.description, :text)), -i.id) < " +
+            "(select greatest(similarity(a.name, :text), similarity(a.description, :text)), -a.id from items a where a.id = :afterId) " +
+            "order by greatest(similarity(i.name, :text), similarity(i.description, :text)) desc, i.id",
+            nativeQuery = true)
+    List<ItemView> findAvailableRankedAfter(@Param("text") String text, @Param("afterId") long afterId, Pageable pageable);
+
+    @Query("select i from Item i where i.available = true and i.id > :id order by i.id")
+    List<Item> findAvailableAfter(@Param("id") long id, Pageable pageable);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select i from Item i where i.nextBooking.start <= :now order by i.id")
+    List<Item> lockWithStartedNextBooking(@Param("now") LocalDateTime now, Pageable pageable);
 }
@@ -0,0 +1,29 @@
+package ru.practicum.shareit.item.storage;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+
+public interface ItemStorageCustom {
+    /**
+     * Makes the booking the next booking of the item unless the current one starts earlier.
+     * The comparison is done by the update itself, so concurrent approvals can't overwrite each other.
+     */
+    int offerNextBooking(long itemId, long bookingId, LocalDateTime start, LocalDateTime end, long bookerId);
+
+    /**
+     * Makes the booking the last booking of the item unless the current one ends later.
+     */
+    int offerLastBooking(long itemId, long bookingId, LocalDateTime start, LocalDateTime end, long bookerId);
+
+    /**
+     * Clears the last and next booking snapshots of the items, so the roll-forward can offer them afresh.
+     */
+    int clearBookingSnapshots(Collection<Long> itemIds);
+
+    /**
+     * Drops the item from the second-level cache once the current transaction commits. A cached copy written
+     * from an entity may hold older booking snapshots than the row: the entity never writes the snapshot
+     * columns, the update queries above do.
+     */
+    void evictAfterCommit(long itemId);
+}
@@ -0,0 +1,88 @@
+package ru.practicum.shareit.item.storage;
+
+import org.hibernate.query.NativeQuery;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.utils.TransactionHooks;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.PersistenceContext;
+import javax.persistence.PersistenceUnit;
+import javax.persistence.Query;
+import java.time.LocalDateTime;
+import java.util.Collection;
+
+/**
+ * Snapshot updates are native statements declaring a query space of their own. A JPQL update of items would
+ * make Hibernate evict the whole items region on every approval; these evict only the items they changed.
+ */
+public class ItemStorageImpl implements ItemStorageCustom {
+    private static final String SNAPSHOT_SPACE = "item_booking_snapshots";
+    private static final String OFFER_NEXT = "update items set next_booking_id = :bookingId, " +
+            "next_booking_start = :start, next_booking_end = :end, next_booker_id = :bookerId " +
+            "where id = :itemId and (next_booking_start is null or next_booking_start > :start " +
+            "or (next_booking_start = :start and next_booking_id > :bookingId))";
+    private static final String OFFER_LAST = "update items set last_booking_id = :bookingId, " +
+            "last_booking_start = :start, last_booking_end = :end, last_booker_id = :bookerId " +
+            "where id = :itemId and (last_booking_end is null or last_booking_end < :end " +
+            "or (last_booking_end = :end and last_booking_id < :bookingId))";
+    private static final String CLEAR = "update items set last_booking_id = null, last_booking_start = null, " +
+            "last_booking_end = null, last_booker_id = null, next_booking_id = null, next_booking_start = null, " +
+            "next_booking_end = null, next_booker_id = null where id in :itemIds";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+    @PersistenceUnit
+    private EntityManagerFactory entityManagerFactory;
+
+    @Override
+    public int offerNextBooking(long itemId, long bookingId, LocalDateTime start, LocalDateTime end, long bookerId) {
+        return offer(OFFER_NEXT, itemId, bookingId, start, end, bookerId);
+    }
+
+    @Override
+    public int offerLastBooking(long itemId, long bookingId, LocalDateTime start, LocalDateTime end, long bookerId) {
+        return offer(OFFER_LAST, itemId, bookingId, start, end, bookerId);
+    }
+
+    @Override
+    public int clearBookingSnapshots(Collection<Long> itemIds) {
+        if (itemIds.isEmpty()) {
+            return 0;
+        }
+        int updated = snapshotUpdate(CLEAR)
+                .setParameter("itemIds", itemIds)
+                .executeUpdate();
+        itemIds.forEach(this::evictAfterCommit);
+        return updated;
+    }
+
+    @Override
+    public void evictAfterCommit(long itemId) {
+        TransactionHooks.afterCommit(() -> entityManagerFactory.getCache().evict(Item.class, itemId));
+    }
+
+    private int offer(String sql, long itemId, long bookingId, LocalDateTime start, LocalDateTime end, long bookerId) {
+        int updated = snapshotUpdate(sql)
+                .setParameter("itemId", itemId)
+                .setParameter("bookingId", bookingId)
+                .setParameter("start", start)
+                .setParameter("end", end)
+                .setParameter("bookerId", bookerId)
+                .executeUpdate();
+        if (updated > 0) {
+            evictAfterCommit(itemId);
+        }
+        return updated;
+    }
+
+    /**
+     * Pending changes are flushed first, as before any update query.
+     */
+    private Query snapshotUpdate(String sql) {
+        entityManager.flush();
+        return entityManager.createNativeQuery(sql)
+                .unwrap(NativeQuery.class)
+                .addSynchronizedQuerySpace(SNAPSHOT_SPACE);
+    }
+}
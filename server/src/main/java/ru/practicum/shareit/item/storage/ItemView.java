@@ -0,0 +1,16 @@
+package ru.practicum.shareit.item.storage;
+
+/**
+ * Columns of an item card, as read by the native search queries of {@link ItemStorage}.
+ */
+public interface ItemView {
+    Long getId();
+
+    String getName();
+
+    String getDescription();
+
+    Boolean getAvailable();
+
+    Long getRequestId();
+}
@@ -1,6 +1,7 @@
 package ru.practicum.shareit.request;
 
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -12,6 +13,8 @@ import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import ru.practicum.shareit.request.dto.RequestDto;
 import ru.practicum.shareit.request.service.RequestService;
+import ru.practicum.shareit.utils.Cursor;
+import ru.practicum.shareit.utils.PageResponse;
 
 import javax.validation.Valid;
 import javax.validation.constraints.Min;
@@ -43,11 +46,13 @@ public class RequestController {
     }
 
     @GetMapping("/all")
-    public Collection<RequestDto> getAllRequests(@RequestHeader(USER_ID) Long userId,
-                                                 @RequestParam(defaultValue = "0") @Min(0) Integer from,
-                                                 @RequestParam(defaultValue = "1") @Min(1) Integer size) {
-        log.info("Get all itemRequests from {}, size {}", from, size);
-        return requestService.getAll(userId, from, size);
+    public ResponseEntity<Collection<RequestDto>> getAllRequests(@RequestHeader(USER_ID) Long userId,
+                                                                 @RequestParam(defaultValue = "0") @Min(0) Integer from,
+                                                                 @RequestParam(defaultValue = "1") @Min(1) Integer size,
+                                                                 @RequestParam(required = false) String after) {
+        log.info("Get all itemRequests from {}, size {}, after {}", from, size, after);
+        return PageResponse.of(requestService.getAll(userId, from, size, Cursor.decodeKeyed(after)), size,
+                request -> Cursor.of(request.getCreated(), request.getId()));
     }
 
     @GetMapping("/{requestId}")
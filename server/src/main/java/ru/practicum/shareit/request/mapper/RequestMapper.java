@@ -4,6 +4,8 @@ import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.mapper.ItemMapper;
 import ru.practicum.shareit.request.dto.RequestDto;
 import ru.practicum.shareit.request.model.ItemRequest;
+import ru.practicum.shareit.request.storage.RequestView;
+import ru.practicum.shareit.user.dto.UserDto;
 import ru.practicum.shareit.user.mapper.UserMapper;
 import ru.practicum.shareit.user.model.User;
 
@@ -38,4 +40,12 @@ public class RequestMapper {
                 request.getCreated(),
                 itemDtoList);
     }
+
+    public static RequestDto toRequestDto(RequestView request, List<ItemDto> items) {
+        return new RequestDto(request.getId(),
+                request.getDescription(),
+                new UserDto(request.getRequestorId(), request.getRequestorName(), request.getRequestorEmail()),
+                request.getCreated(),
+                items != null ? items : new ArrayList<>());
+    }
 }
@@ -5,17 +5,24 @@ import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.shareit.exceptions.UserNotFoundException;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.storage.ItemStorage;
 import ru.practicum.shareit.request.dto.RequestDto;
 import ru.practicum.shareit.request.mapper.RequestMapper;
 import ru.practicum.shareit.request.model.ItemRequest;
 import ru.practicum.shareit.request.storage.RequestStorage;
+import ru.practicum.shareit.request.storage.RequestView;
 import ru.practicum.shareit.user.mapper.UserMapper;
 import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.service.UserExistenceCache;
 import ru.practicum.shareit.user.storage.UserStorage;
+import ru.practicum.shareit.utils.Cursor;
 
 import java.time.LocalDateTime;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Service
@@ -24,10 +31,15 @@ import java.util.stream.Collectors;
 public class RequestService {
     private final RequestStorage requestStorage;
     private final UserStorage userStorage;
+    private final UserExistenceCache userExistenceCache;
+    private final ItemStorage itemStorage;
 
-    public RequestService(RequestStorage requestStorage, UserStorage userStorage) {
+    public RequestService(RequestStorage requestStorage, UserStorage userStorage,
+                          UserExistenceCache userExistenceCache, ItemStorage itemStorage) {
         this.requestStorage = requestStorage;
         this.userStorage = userStorage;
+        this.userExistenceCache = userExistenceCache;
+        this.itemStorage = itemStorage;
     }
 
     public RequestDto create(Long userId, RequestDto requestDto) {
@@ -41,32 +53,54 @@ public class RequestService {
 
     @Transactional(readOnly = true)
     public Collection<RequestDto> getRequestsForUser(Long userId) {
-        if (!userStorage.existsById(userId)) {
+        if (!userExistenceCache.exists(userId)) {
             throw new UserNotFoundException(String.valueOf(userId));
         }
         log.debug("Getting all requests from user {}", userId);
-        Collection<ItemRequest> requests = requestStorage.findByRequestor_IdOrderByCreatedDesc(userId);
-        return requests.stream().map(RequestMapper::toRequestDto).collect(Collectors.toList());
+        return withItems(requestStorage.findViewsOfRequestor(userId));
     }
 
     @Transactional(readOnly = true)
-    public Collection<RequestDto> getAll(Long userId, Integer from, Integer size) {
-        if (!userStorage.existsById(userId)) {
+    public Collection<RequestDto> getAll(Long userId, Integer from, Integer size, Cursor after) {
+        if (!userExistenceCache.exists(userId)) {
             throw new UserNotFoundException(String.valueOf(userId));
         }
-        int page = from / size;
-        log.debug("Get all requests page {}, size {}", from, size);
-        List<ItemRequest> requests = requestStorage.findByRequestor_IdNotOrderByCreatedDesc(userId, PageRequest.of(page, size));
-        return requests.stream().map(RequestMapper::toRequestDto).collect(Collectors.toList());
+        List<RequestView> requests;
+        if (after == null) {
+            int page = from / size;
+            log.debug("Get all requests page {}, size {}", from, size);
+            requests = requestStorage.findViewsOfOthers(userId, PageRequest.of(page, size));
+        } else {
+            log.debug("Get all requests after {}, size {}", after, size);
+            requests = requestStorage.findViewsOfOthersAfter(userId, after.getKey(), after.getId(),
+                    PageRequest.of(0, size));
+        }
+        return withItems(requests);
     }
 
     @Transactional(readOnly = true)
     public RequestDto getRequest(Long userId, Long requestId) {
-        if (!userStorage.existsById(userId)) {
+        if (!userExistenceCache.exists(userId)) {
             throw new UserNotFoundException(String.valueOf(userId));
         }
         ItemRequest request = requestStorage.findById(requestId).orElseThrow();
         log.debug("Get request id {}", requestId);
         return RequestMapper.toRequestDto(request);
     }
+
+    /**
+     * Reads the items answering a page of requests with one query.
+     */
+    private List<RequestDto> withItems(List<RequestView> requests) {
+        if (requests.isEmpty()) {
+            return Collections.emptyList();
+        }
+        Map<Long, List<ItemDto>> items = itemStorage.findDtosByRequestIdIn(requests.stream()
+                        .map(RequestView::getId)
+                        .collect(Collectors.toList())).stream()
+                .collect(Collectors.groupingBy(ItemDto::getRequestId));
+        return requests.stream()
+                .map(request -> RequestMapper.toRequestDto(request, items.get(request.getId())))
+                .collect(Collectors.toList());
+    }
 }
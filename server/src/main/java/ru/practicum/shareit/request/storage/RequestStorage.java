@@ -1,13 +1,37 @@
 package ru.practicum.shareit.request.storage;
 
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import ru.practicum.shareit.request.model.ItemRequest;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
+/**
+ * Feeds select requests with their requestor into {@link RequestView} rows; the items of a page are read with one
+ * more query by the service.
+ */
 public interface RequestStorage extends JpaRepository<ItemRequest, Long> {
-    List<ItemRequest> findByRequestor_IdNotOrderByCreatedDesc(long id, Pageable pageable);
+    String SELECT_VIEW = "select new ru.practicum.shareit.request.storage.RequestView(r.id, r.description, r.created, " +
+            "u.id, u.name, u.email) from ItemRequest r join r.requestor u ";
 
-    List<ItemRequest> findByRequestor_IdOrderByCreatedDesc(long id);
+    @Override
+    @EntityGraph(attributePaths = "requestor")
+    Optional<ItemRequest> findById(Long id);
+
+    @Query(SELECT_VIEW + "where u.id = :userId order by r.created desc, r.id desc")
+    List<RequestView> findViewsOfRequestor(@Param("userId") long userId);
+
+    @Query(SELECT_VIEW + "where u.id <> :userId order by r.created desc, r.id desc")
+    List<RequestView> findViewsOfOthers(@Param("userId") long userId, Pageable pageable);
+
+    @Query(SELECT_VIEW + "where u.id <> :userId " +
+            "and (r.created < :created or (r.created = :created and r.id < :id)) " +
+            "order by r.created desc, r.id desc")
+    List<RequestView> findViewsOfOthersAfter(@Param("userId") long userId, @Param("created") LocalDateTime created,
+                                             @Param("id") long id, Pageable pageable);
 }
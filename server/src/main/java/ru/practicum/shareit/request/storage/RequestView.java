@@ -0,0 +1,22 @@
+package ru.practicum.shareit.request.storage;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.time.LocalDateTime;
+
+/**
+ * Request of a feed with its requestor, selected by a constructor expression of {@link RequestStorage}.
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class RequestView {
+    private final Long id;
+    private final String description;
+    private final LocalDateTime created;
+    private final Long requestorId;
+    private final String requestorName;
+    private final String requestorEmail;
+}
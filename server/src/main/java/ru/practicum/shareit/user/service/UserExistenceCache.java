@@ -0,0 +1,78 @@
+package ru.practicum.shareit.user.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.user.storage.UserStorage;
+import ru.practicum.shareit.utils.TransactionHooks;
+import ru.practicum.shareit.utils.replica.ReplicaRoutingTransactionManager;
+
+/**
+ * Whether a user id exists, remembered so that validating the user header of a request doesn't cost a query.
+ * Missing ids are remembered too, for a shorter time. {@link UserService} forgets an id once a user with it
+ * is created or deleted; another server instance sees the change when the entry expires. Ids are looked up
+ * on the primary, as an answer read on a lagging replica would be remembered past the lag.
+ */
+@Slf4j
+@Component
+public class UserExistenceCache {
+    private final UserStorage userStorage;
+    private final Cache<Long, Boolean> cache;
+
+    public UserExistenceCache(UserStorage userStorage, UserExistenceCacheProperties properties,
+                              MeterRegistry meterRegistry) {
+        this.userStorage = userStorage;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(properties.getMaxSize())
+                .expireAfter(new ExistenceExpiry(properties.getTtl().toNanos(), properties.getNegativeTtl().toNanos()))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "users.existence");
+    }
+
+    public boolean exists(long userId) {
+        return cache.get(userId, id -> {
+            log.debug("Check if user {} exists", id);
+            return ReplicaRoutingTransactionManager.isReadingReplica()
+                    ? userStorage.existsOnPrimary(id)
+                    : userStorage.existsById(id);
+        });
+    }
+
+    /**
+     * Forgets the id once the current transaction commits, so a concurrent lookup can't cache
+     * the state from before the change.
+     */
+    public void invalidate(long userId) {
+        TransactionHooks.afterCommit(() -> cache.invalidate(userId));
+    }
+
+    private static final class ExistenceExpiry implements Expiry<Long, Boolean> {
+        private final long ttlNanos;
+        private final long negativeTtlNanos;
+
+        private ExistenceExpiry(long ttlNanos, long negativeTtlNanos) {
+            this.ttlNanos = ttlNanos;
+            this.negativeTtlNanos = negativeTtlNanos;
+        }
+
+        @Override
+        public long expireAfterCreate(Long userId, Boolean exists, long currentTime) {
+            return exists ? ttlNanos : negativeTtlNanos;
+        }
+
+        @Override
+        public long expireAfterUpdate(Long userId, Boolean exists, long currentTime, long currentDuration) {
+            return expireAfterCreate(userId, exists, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(Long userId, Boolean exists, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package ru.practicum.shareit.user.service;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "shareit.users.existence-cache")
+public class UserExistenceCacheProperties {
+    /**
+     * User ids kept at most; the least recently used go first.
+     */
+    private long maxSize = 100_000;
+    /**
+     * How long an existing user is remembered.
+     */
+    private Duration ttl = Duration.ofMinutes(10);
+    /**
+     * How long a missing user is remembered. Kept short, as an id becomes valid as soon as a user gets it.
+     */
+    private Duration negativeTtl = Duration.ofSeconds(30);
+}
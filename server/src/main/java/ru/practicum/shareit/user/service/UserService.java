@@ -25,10 +25,12 @@ import java.util.stream.Collectors;
 public class UserService {
     private final UserStorage userStorage;
     private final Validator validator;
+    private final UserExistenceCache userExistenceCache;
 
-    public UserService(UserStorage userStorage, Validator validator) {
+    public UserService(UserStorage userStorage, Validator validator, UserExistenceCache userExistenceCache) {
         this.userStorage = userStorage;
         this.validator = validator;
+        this.userExistenceCache = userExistenceCache;
     }
 
     @Transactional(readOnly = true)
@@ -53,7 +55,9 @@ public class UserService {
     public UserDto create(User user) {
         log.debug("Creating user {}", user);
         try {
-            return UserMapper.mapToDto(userStorage.save(user));
+            User created = userStorage.saveAndFlush(user);
+            userExistenceCache.invalidate(created.getId());
+            return UserMapper.mapToDto(created);
         } catch (DataIntegrityViolationException e) {
             if (e.getMostSpecificCause() instanceof PSQLException) {
                 String message = e.getMostSpecificCause().getMessage();
@@ -79,12 +83,12 @@ public class UserService {
 
     @Transactional(readOnly = true)
     public boolean isExist(long userId) {
-        log.debug("Check if user {} exists", userId);
-        return userStorage.existsById(userId);
+        return userExistenceCache.exists(userId);
     }
 
     public void delete(long id) {
         log.debug("Deleting user {}", id);
         userStorage.deleteById(id);
+        userExistenceCache.invalidate(id);
     }
 }
\ No newline at end of file
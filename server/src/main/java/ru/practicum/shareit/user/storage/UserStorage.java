@@ -1,7 +1,21 @@
 package ru.practicum.shareit.user.storage;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.utils.replica.ReplicaRoutingTransactionManager;
 
 public interface UserStorage extends JpaRepository<User, Long> {
-}
\ No newline at end of file
+
+    /**
+     * Same as {@link #existsById}, but read on the primary even from a transaction reading the replica,
+     * so a user created a moment ago is found.
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW, readOnly = true,
+            label = ReplicaRoutingTransactionManager.PRIMARY)
+    @Query("select count(u) > 0 from User u where u.id = :id")
+    boolean existsOnPrimary(@Param("id") long id);
+}
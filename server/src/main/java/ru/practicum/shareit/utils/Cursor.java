@@ -0,0 +1,67 @@
+package ru.practicum.shareit.utils;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+import ru.practicum.shareit.exceptions.BadRequestException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Keyset position after the last element of a page: its sort key (if the list is not sorted by id only) and id.
+ * Clients get it in the {@code X-Next-Cursor} header and send it back as the opaque {@code after} parameter.
+ */
+@Getter
+@ToString
+@EqualsAndHashCode
+public class Cursor {
+    private static final char SEPARATOR = '|';
+
+    private final LocalDateTime key;
+    private final long id;
+
+    private Cursor(LocalDateTime key, long id) {
+        this.key = key;
+        this.id = id;
+    }
+
+    public static Cursor of(long id) {
+        return new Cursor(null, id);
+    }
+
+    public static Cursor of(LocalDateTime key, long id) {
+        return new Cursor(key, id);
+    }
+
+    public static Cursor decode(String token) {
+        if (token == null) {
+            return null;
+        }
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = value.indexOf(SEPARATOR);
+            if (separator < 0) {
+                return of(Long.parseLong(value));
+            }
+            return of(LocalDateTime.parse(value.substring(0, separator)), Long.parseLong(value.substring(separator + 1)));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new BadRequestException("Invalid cursor: " + token);
+        }
+    }
+
+    public static Cursor decodeKeyed(String token) {
+        Cursor cursor = decode(token);
+        if (cursor != null && cursor.key == null) {
+            throw new BadRequestException("Invalid cursor: " + token);
+        }
+        return cursor;
+    }
+
+    public String encode() {
+        String value = key == null ? String.valueOf(id) : key.toString() + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+}
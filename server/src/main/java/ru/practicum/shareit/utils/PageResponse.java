@@ -0,0 +1,39 @@
+package ru.practicum.shareit.utils;
+
+import org.springframework.data.domain.Slice;
+import org.springframework.http.ResponseEntity;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Function;
+
+import static ru.practicum.shareit.utils.Constant.HAS_NEXT;
+import static ru.practicum.shareit.utils.Constant.NEXT_CURSOR;
+
+public class PageResponse {
+    /**
+     * Wraps a page into a response, adding the cursor of its last element when the page is full.
+     */
+    public static <T> ResponseEntity<Collection<T>> of(Collection<T> page, int size, Function<T, Cursor> cursorOf) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.size() == size) {
+            T last = page.stream().reduce((first, second) -> second).orElseThrow();
+            response.header(NEXT_CURSOR, cursorOf.apply(last).encode());
+        }
+        return response.body(page);
+    }
+
+    /**
+     * Wraps a slice into a response with the {@code X-Has-Next} header, adding the cursor of its last element
+     * only when there really is a next page.
+     */
+    public static <T> ResponseEntity<Collection<T>> of(Slice<T> slice, Function<T, Cursor> cursorOf) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .header(HAS_NEXT, String.valueOf(slice.hasNext()));
+        if (slice.hasNext()) {
+            List<T> content = slice.getContent();
+            response.header(NEXT_CURSOR, cursorOf.apply(content.get(content.size() - 1)).encode());
+        }
+        return response.body(slice.getContent());
+    }
+}
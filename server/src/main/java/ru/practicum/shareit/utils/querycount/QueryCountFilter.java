@@ -0,0 +1,111 @@
+package ru.practicum.shareit.utils.querycount;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+import java.io.IOException;
+import java.io.PrintWriter;
+
+/**
+ * Records the statements and rows of each request as {@code shareit.http.statements} and {@code shareit.http.rows}
+ * by method and URI pattern, and logs requests that run suspiciously many statements.
+ */
+@Slf4j
+public class QueryCountFilter extends OncePerRequestFilter {
+    public static final String STATEMENT_COUNT = "X-Statement-Count";
+    public static final String ROW_COUNT = "X-Row-Count";
+
+    private final QueryCountProperties properties;
+    private final MeterRegistry meterRegistry;
+
+    public QueryCountFilter(QueryCountProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        QueryCounter.Counts counts = QueryCounter.start();
+        HttpServletResponse countedResponse = properties.isHeaders() ? new CountHeadersResponse(response, counts)
+                : response;
+        try {
+            chain.doFilter(request, countedResponse);
+        } finally {
+            QueryCounter.stop();
+            if (properties.isHeaders() && !response.isCommitted()) {
+                addHeaders(response, counts);
+            }
+            record(request, counts);
+        }
+    }
+
+    private void record(HttpServletRequest request, QueryCounter.Counts counts) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String uri = pattern == null ? "UNKNOWN" : pattern.toString();
+        DistributionSummary.builder("shareit.http.statements")
+                .tag("method", request.getMethod())
+                .tag("uri", uri)
+                .register(meterRegistry)
+                .record(counts.getStatements());
+        DistributionSummary.builder("shareit.http.rows")
+                .tag("method", request.getMethod())
+                .tag("uri", uri)
+                .register(meterRegistry)
+                .record(counts.getRows());
+        if (counts.getStatements() > properties.getWarnStatements()) {
+            log.warn("{} {} ran {}", request.getMethod(), request.getRequestURI(), counts);
+        }
+    }
+
+    private static void addHeaders(HttpServletResponse response, QueryCounter.Counts counts) {
+        response.setHeader(STATEMENT_COUNT, String.valueOf(counts.getStatements()));
+        response.setHeader(ROW_COUNT, String.valueOf(counts.getRows()));
+    }
+
+    /**
+     * Adds the count headers when the body starts, the last moment headers can still be set.
+     * Services have done their queries by then.
+     */
+    private static final class CountHeadersResponse extends HttpServletResponseWrapper {
+        private final QueryCounter.Counts counts;
+
+        private CountHeadersResponse(HttpServletResponse response, QueryCounter.Counts counts) {
+            super(response);
+            this.counts = counts;
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            beforeBody();
+            return super.getOutputStream();
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            beforeBody();
+            return super.getWriter();
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            beforeBody();
+            super.flushBuffer();
+        }
+
+        private void beforeBody() {
+            if (!isCommitted()) {
+                addHeaders((HttpServletResponse) getResponse(), counts);
+            }
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package ru.practicum.shareit.utils.querycount;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "shareit.query-count")
+public class QueryCountProperties {
+    /**
+     * Adds X-Statement-Count and X-Row-Count to responses, for debugging.
+     */
+    private boolean headers = false;
+    /**
+     * A request running more statements than this is logged as a likely N+1.
+     */
+    private int warnStatements = 30;
+}
@@ -0,0 +1,73 @@
+package ru.practicum.shareit.utils.querycount;
+
+/**
+ * JDBC statements and rows of the work done by the current thread between {@link #start()} and {@link #stop()}.
+ * Counters nest: statements run under an inner counter count for the outer ones as well.
+ */
+public final class QueryCounter {
+    private static final ThreadLocal<Counts> CURRENT = new ThreadLocal<>();
+
+    private QueryCounter() {
+    }
+
+    public static Counts start() {
+        Counts counts = new Counts(CURRENT.get());
+        CURRENT.set(counts);
+        return counts;
+    }
+
+    /**
+     * Stops the innermost counter and returns what it counted.
+     */
+    public static Counts stop() {
+        Counts counts = CURRENT.get();
+        if (counts == null) {
+            throw new IllegalStateException("No query counter started");
+        }
+        if (counts.parent == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(counts.parent);
+        }
+        return counts;
+    }
+
+    static boolean isActive() {
+        return CURRENT.get() != null;
+    }
+
+    static void statementExecuted() {
+        for (Counts counts = CURRENT.get(); counts != null; counts = counts.parent) {
+            counts.statements++;
+        }
+    }
+
+    static void rowRead() {
+        for (Counts counts = CURRENT.get(); counts != null; counts = counts.parent) {
+            counts.rows++;
+        }
+    }
+
+    public static final class Counts {
+        private final Counts parent;
+        private long statements;
+        private long rows;
+
+        private Counts(Counts parent) {
+            this.parent = parent;
+        }
+
+        public long getStatements() {
+            return statements;
+        }
+
+        public long getRows() {
+            return rows;
+        }
+
+        @Override
+        public String toString() {
+            return statements + " statements, " + rows + " rows";
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package ru.practicum.shareit.utils.querycount;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Set;
+
+/**
+ * Reports statement executions and rows read to {@link QueryCounter}. Statements created while no counter
+ * is running are handed out unwrapped, so background jobs pay nothing for the counting.
+ */
+public class QueryCountingDataSource extends DelegatingDataSource implements AutoCloseable {
+    private static final Set<String> STATEMENT_FACTORIES = Set.of("createStatement", "prepareStatement", "prepareCall");
+    private static final Set<String> RESULT_SET_SOURCES = Set.of("executeQuery", "getResultSet");
+
+    public QueryCountingDataSource(DataSource target) {
+        super(target);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return proxy(Connection.class, super.getConnection(), this::connection);
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return proxy(Connection.class, super.getConnection(username, password), this::connection);
+    }
+
+    /**
+     * Closes the wrapped pool: the wrapper replaces the pool bean, so the context shuts the pool down through it.
+     */
+    @Override
+    public void close() throws Exception {
+        if (getTargetDataSource() instanceof AutoCloseable) {
+            ((AutoCloseable) getTargetDataSource()).close();
+        }
+    }
+
+    private Object connection(Object target, Method method, Object[] args) throws Throwable {
+        Object result = invoke(target, method, args);
+        if (result instanceof Statement && STATEMENT_FACTORIES.contains(method.getName()) && QueryCounter.isActive()) {
+            Class<?> type = result instanceof CallableStatement ? CallableStatement.class
+                    : result instanceof PreparedStatement ? PreparedStatement.class : Statement.class;
+            return proxy(type, result, this::statement);
+        }
+        return result;
+    }
+
+    private Object statement(Object target, Method method, Object[] args) throws Throwable {
+        String name = method.getName();
+        if (name.startsWith("execute")) {
+            QueryCounter.statementExecuted();
+        }
+        Object result = invoke(target, method, args);
+        if (result instanceof ResultSet && RESULT_SET_SOURCES.contains(name)) {
+            return proxy(ResultSet.class, result, this::resultSet);
+        }
+        return result;
+    }
+
+    private Object resultSet(Object target, Method method, Object[] args) throws Throwable {
+        Object result = invoke(target, method, args);
+        if ("next".equals(method.getName()) && Boolean.TRUE.equals(result)) {
+            QueryCounter.rowRead();
+        }
+        return result;
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static <T> T proxy(Class<T> type, Object target, Interceptor interceptor) {
+        InvocationHandler handler = (proxy, method, args) -> interceptor.intercept(target, method, args);
+        return type.cast(Proxy.newProxyInstance(QueryCountingDataSource.class.getClassLoader(), new Class<?>[]{type},
+                handler));
+    }
+
+    @FunctionalInterface
+    private interface Interceptor {
+        Object intercept(Object target, Method method, Object[] args) throws Throwable;
+    }
+}
@@ -0,0 +1,73 @@
+package ru.practicum.shareit.utils.replica;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Tells whether the replica may serve reads: it must answer the lag query, and with a lag under the limit.
+ * The replica is not used until the first check has passed.
+ */
+@Slf4j
+public class ReplicaLagMonitor {
+    private final DataSource replica;
+    private final ReplicaProperties properties;
+    private volatile long lagMs = -1;
+    private volatile boolean usable;
+
+    public ReplicaLagMonitor(DataSource replica, ReplicaProperties properties) {
+        this.replica = replica;
+        this.properties = properties;
+    }
+
+    public boolean isUsable() {
+        return usable;
+    }
+
+    /**
+     * Lag found by the last check, -1 if it failed or hasn't run yet.
+     */
+    public long getLagMs() {
+        return lagMs;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${shareit.datasource.replica.lag-check-interval-ms:1000}")
+    public void check() {
+        boolean wasUsable = usable;
+        try {
+            lagMs = readLagMs();
+            usable = lagMs <= properties.getMaxLagMs();
+        } catch (SQLException | RuntimeException e) {
+            lagMs = -1;
+            usable = false;
+            if (wasUsable) {
+                log.warn("Replica lag can't be read, reads go to the primary", e);
+            }
+            return;
+        }
+        if (wasUsable && !usable) {
+            log.warn("Replica lags {} ms behind, reads go to the primary", lagMs);
+        } else if (!wasUsable && usable) {
+            log.info("Replica is {} ms behind, reads go to the replica", lagMs);
+        }
+    }
+
+    private long readLagMs() throws SQLException {
+        try (Connection connection = replica.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery(properties.getLagQuery())) {
+            if (!resultSet.next()) {
+                throw new SQLException("Lag query returned no rows");
+            }
+            return Math.round(resultSet.getDouble(1) * 1000);
+        }
+    }
+}
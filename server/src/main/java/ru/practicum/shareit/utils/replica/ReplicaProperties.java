@@ -0,0 +1,28 @@
+package ru.practicum.shareit.utils.replica;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "shareit.datasource.replica")
+public class ReplicaProperties {
+    /**
+     * Whether read-only transactions are routed to the replica at all.
+     */
+    private boolean enabled = false;
+    private String url;
+    private String username;
+    private String password;
+    private int maxPoolSize = 10;
+    /**
+     * Reads fall back to the primary while the replica lags behind it by more than this.
+     */
+    private long maxLagMs = 5000;
+    /**
+     * Query run on the replica that returns its lag in seconds.
+     */
+    private String lagQuery = "select case when pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() then 0 " +
+            "else coalesce(extract(epoch from now() - pg_last_xact_replay_timestamp()), 0) end";
+}
@@ -0,0 +1,76 @@
+package ru.practicum.shareit.utils.replica;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.transaction.TransactionManagerCustomizers;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.sql.DataSource;
+
+/**
+ * Replaces the single {@code spring.datasource} pool with a primary pool and a replica pool, the routing data
+ * source in front of them being the one JPA and the rest of the application use. Both pools are beans of their
+ * own, so they get the per-pool {@code hikaricp.*} metrics. The transaction manager decides which transactions
+ * read the replica.
+ */
+@Configuration
+@ConditionalOnProperty(name = "shareit.datasource.replica.enabled", havingValue = "true")
+public class ReplicaRoutingConfig {
+
+    @Bean
+    @ConfigurationProperties(prefix = "spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    @Bean
+    public HikariDataSource replicaDataSource(DataSourceProperties dataSourceProperties,
+                                              ReplicaProperties properties) {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setPoolName("replica");
+        dataSource.setDriverClassName(dataSourceProperties.determineDriverClassName());
+        dataSource.setJdbcUrl(properties.getUrl());
+        dataSource.setUsername(properties.getUsername());
+        dataSource.setPassword(properties.getPassword());
+        dataSource.setMaximumPoolSize(properties.getMaxPoolSize());
+        dataSource.setReadOnly(true);
+        return dataSource;
+    }
+
+    @Bean
+    public ReplicaLagMonitor replicaLagMonitor(@Qualifier("replicaDataSource") DataSource replica,
+                                               ReplicaProperties properties) {
+        return new ReplicaLagMonitor(replica, properties);
+    }
+
+    @Bean
+    public ReplicaRoutingMetrics replicaRoutingMetrics(ReplicaLagMonitor lagMonitor) {
+        return new ReplicaRoutingMetrics(lagMonitor);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("primaryDataSource") DataSource primary,
+                                 @Qualifier("replicaDataSource") DataSource replica,
+                                 ReplicaRoutingMetrics metrics) {
+        return new LazyConnectionDataSourceProxy(new ReplicaRoutingDataSource(primary, replica, metrics));
+    }
+
+    @Bean
+    public PlatformTransactionManager transactionManager(ReplicaLagMonitor lagMonitor, ReplicaRoutingMetrics metrics,
+                                                         ObjectProvider<TransactionManagerCustomizers> customizers) {
+        ReplicaRoutingTransactionManager transactionManager = new ReplicaRoutingTransactionManager(lagMonitor, metrics);
+        customizers.ifAvailable(c -> c.customize(transactionManager));
+        return transactionManager;
+    }
+}
@@ -0,0 +1,35 @@
+package ru.practicum.shareit.utils.replica;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+/**
+ * Gives the transactions {@link ReplicaRoutingTransactionManager} sent to the replica connections of the replica,
+ * and everything else connections of the primary. Must sit behind a
+ * {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}, as the transaction manager asks for
+ * a connection before the transaction has begun.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+    private final ReplicaRoutingMetrics metrics;
+
+    public ReplicaRoutingDataSource(DataSource primary, DataSource replica, ReplicaRoutingMetrics metrics) {
+        this.metrics = metrics;
+        setTargetDataSources(Map.of(Pool.PRIMARY, primary, Pool.REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        Pool pool = ReplicaRoutingTransactionManager.isReadingReplica() ? Pool.REPLICA : Pool.PRIMARY;
+        metrics.connectionRouted(pool);
+        return pool;
+    }
+
+    enum Pool {
+        PRIMARY,
+        REPLICA
+    }
+}
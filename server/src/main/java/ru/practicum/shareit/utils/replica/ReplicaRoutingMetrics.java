@@ -0,0 +1,52 @@
+package ru.practicum.shareit.utils.replica;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Connections handed out per pool, reads that fell back to the primary and the replica lag. Counted apart from the
+ * registry and bound to it later, as the meter registry itself is built after the data sources.
+ */
+public class ReplicaRoutingMetrics implements MeterBinder {
+    private final ReplicaLagMonitor lagMonitor;
+    private final LongAdder primaryConnections = new LongAdder();
+    private final LongAdder replicaConnections = new LongAdder();
+    private final LongAdder fallbacks = new LongAdder();
+
+    public ReplicaRoutingMetrics(ReplicaLagMonitor lagMonitor) {
+        this.lagMonitor = lagMonitor;
+    }
+
+    void connectionRouted(ReplicaRoutingDataSource.Pool pool) {
+        (pool == ReplicaRoutingDataSource.Pool.REPLICA ? replicaConnections : primaryConnections).increment();
+    }
+
+    void fellBack() {
+        fallbacks.increment();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        connections(registry, "primary", primaryConnections);
+        connections(registry, "replica", replicaConnections);
+        FunctionCounter.builder("shareit.datasource.replica.fallbacks", fallbacks, LongAdder::sum)
+                .description("Read-only transactions sent to the primary because the replica was lagging or down")
+                .register(registry);
+        TimeGauge.builder("shareit.datasource.replica.lag", lagMonitor, TimeUnit.MILLISECONDS,
+                        ReplicaLagMonitor::getLagMs)
+                .description("Replication lag of the replica, -1 when it can't be read")
+                .register(registry);
+    }
+
+    private static void connections(MeterRegistry registry, String pool, LongAdder count) {
+        FunctionCounter.builder("shareit.datasource.connections", count, LongAdder::sum)
+                .description("Connections handed out, by the pool they came from")
+                .tag("pool", pool)
+                .register(registry);
+    }
+}
@@ -0,0 +1,110 @@
+package ru.practicum.shareit.utils.replica;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.interceptor.TransactionAttribute;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.persistence.CacheStoreMode;
+import javax.persistence.EntityManager;
+
+/**
+ * Decides, when a transaction begins, whether it reads the replica: it must be read-only, not labeled
+ * {@link #PRIMARY} and the replica must not lag too far behind. A transaction reading the replica
+ * may read the second-level cache but never stores into it, so a row the replica hasn't caught up on
+ * doesn't outlive the lag in the cache.
+ */
+public class ReplicaRoutingTransactionManager extends JpaTransactionManager {
+    /**
+     * Label of read-only transactions that must see what was just committed, and so read the primary.
+     */
+    public static final String PRIMARY = "primary";
+
+    private static final Object REPLICA_ROUTE = new Object();
+
+    private final ReplicaLagMonitor lagMonitor;
+    private final ReplicaRoutingMetrics metrics;
+
+    public ReplicaRoutingTransactionManager(ReplicaLagMonitor lagMonitor, ReplicaRoutingMetrics metrics) {
+        this.lagMonitor = lagMonitor;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Whether the current transaction reads the replica.
+     */
+    public static boolean isReadingReplica() {
+        return TransactionSynchronizationManager.hasResource(REPLICA_ROUTE);
+    }
+
+    @Override
+    protected void doBegin(Object transaction, TransactionDefinition definition) {
+        boolean replica = definition.isReadOnly() && !labeledPrimary(definition);
+        if (replica && !lagMonitor.isUsable()) {
+            metrics.fellBack();
+            replica = false;
+        }
+        if (replica) {
+            TransactionSynchronizationManager.bindResource(REPLICA_ROUTE, Boolean.TRUE);
+        }
+        try {
+            super.doBegin(transaction, definition);
+        } catch (RuntimeException | Error e) {
+            if (replica) {
+                TransactionSynchronizationManager.unbindResource(REPLICA_ROUTE);
+            }
+            throw e;
+        }
+        if (replica) {
+            entityManager().setProperty(AvailableSettings.JPA_SHARED_CACHE_STORE_MODE, CacheStoreMode.BYPASS);
+        }
+    }
+
+    @Override
+    protected Object doSuspend(Object transaction) {
+        Object route = TransactionSynchronizationManager.unbindResourceIfPossible(REPLICA_ROUTE);
+        return new SuspendedRoute(super.doSuspend(transaction), route);
+    }
+
+    @Override
+    protected void doResume(Object transaction, Object suspendedResources) {
+        SuspendedRoute suspended = (SuspendedRoute) suspendedResources;
+        super.doResume(transaction, suspended.resources);
+        if (suspended.route != null) {
+            TransactionSynchronizationManager.bindResource(REPLICA_ROUTE, suspended.route);
+        }
+    }
+
+    @Override
+    protected void doCleanupAfterCompletion(Object transaction) {
+        if (isReadingReplica()) {
+            // The session outlives the transaction when it's opened in view
+            entityManager().setProperty(AvailableSettings.JPA_SHARED_CACHE_STORE_MODE, CacheStoreMode.USE);
+            TransactionSynchronizationManager.unbindResource(REPLICA_ROUTE);
+        }
+        super.doCleanupAfterCompletion(transaction);
+    }
+
+    private EntityManager entityManager() {
+        EntityManagerHolder holder =
+                (EntityManagerHolder) TransactionSynchronizationManager.getResource(obtainEntityManagerFactory());
+        return holder.getEntityManager();
+    }
+
+    private static boolean labeledPrimary(TransactionDefinition definition) {
+        return definition instanceof TransactionAttribute
+                && ((TransactionAttribute) definition).getLabels().contains(PRIMARY);
+    }
+
+    private static final class SuspendedRoute {
+        private final Object resources;
+        private final Object route;
+
+        private SuspendedRoute(Object resources, Object route) {
+            this.resources = resources;
+            this.route = route;
+        }
+    }
+}
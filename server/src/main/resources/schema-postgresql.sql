@@ -0,0 +1,71 @@
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+CREATE EXTENSION IF NOT EXISTS btree_gist;
+
+CREATE INDEX IF NOT EXISTS ix_items_name_trgm ON items USING gin (name gin_trgm_ops) WHERE available = true;
+CREATE INDEX IF NOT EXISTS ix_items_description_trgm ON items USING gin (description gin_trgm_ops) WHERE available = true;
+
+-- On Postgres bookings are range-partitioned by start: monthly and yearly partitions are managed by
+-- BookingPartitionManager, starts without a partition of their own wait in bookings_default. The primary key has to
+-- contain the partition key, and so would an exclusion constraint on bookings: it could only exclude overlaps within
+-- one partition. Overlaps are excluded in booking_periods instead, unpartitioned and kept by a trigger on bookings.
+DROP TABLE IF EXISTS bookings;
+DROP TABLE IF EXISTS booking_periods;
+
+CREATE TABLE bookings (
+    id BIGINT NOT NULL,
+    start_date TIMESTAMP NOT NULL,
+    end_date TIMESTAMP,
+    item_id BIGINT,
+    booker_id BIGINT,
+    status SMALLINT,
+    version BIGINT NOT NULL DEFAULT 0,
+    CONSTRAINT pk_bookings PRIMARY KEY (id, start_date),
+    CONSTRAINT ck_bookings_status CHECK (status BETWEEN 1 AND 4),
+    CONSTRAINT fk_bookings_item_id FOREIGN KEY (item_id) REFERENCES items (id),
+    CONSTRAINT fk_bookings_user_id FOREIGN KEY (booker_id) REFERENCES users (id)
+) PARTITION BY RANGE (start_date);
+
+CREATE TABLE bookings_default PARTITION OF bookings DEFAULT;
+
+CREATE INDEX IF NOT EXISTS ix_bookings_booker_start ON bookings (booker_id, start_date, id);
+CREATE INDEX IF NOT EXISTS ix_bookings_item_start ON bookings (item_id, start_date, id);
+-- Status codes are those of BookingStatusConverter: 1 WAITING, 2 APPROVED. Lookups of approved or waiting bookings
+-- use the partial indexes, which hold only the rows of their status. The lookups write the status as a literal: the
+-- generic plan of a prepared statement can't tell that a status parameter matches the index predicate.
+CREATE INDEX IF NOT EXISTS ix_bookings_item_approved ON bookings (item_id, start_date) INCLUDE (end_date, id, booker_id)
+    WHERE status = 2;
+CREATE INDEX IF NOT EXISTS ix_bookings_booker_approved ON bookings (booker_id, end_date) WHERE status = 2;
+CREATE INDEX IF NOT EXISTS ix_bookings_item_waiting ON bookings (item_id) WHERE status = 1;
+CREATE INDEX IF NOT EXISTS ix_bookings_waiting_start ON bookings (start_date) WHERE status = 1;
+
+-- Periods of the waiting and approved bookings; BookingPartitionManager drops those that are over
+CREATE TABLE booking_periods (
+    booking_id BIGINT NOT NULL,
+    item_id BIGINT NOT NULL,
+    period TSRANGE NOT NULL,
+    CONSTRAINT pk_booking_periods PRIMARY KEY (booking_id),
+    CONSTRAINT ex_booking_periods_item_period EXCLUDE USING gist (item_id WITH =, period WITH &&)
+);
+
+CREATE OR REPLACE FUNCTION bookings_sync_period() RETURNS trigger LANGUAGE plpgsql AS '
+BEGIN
+    IF TG_OP = ''UPDATE'' AND NEW.item_id IS NOT DISTINCT FROM OLD.item_id AND NEW.start_date = OLD.start_date
+            AND NEW.end_date IS NOT DISTINCT FROM OLD.end_date
+            AND (NEW.status IN (1, 2)) IS NOT DISTINCT FROM (OLD.status IN (1, 2)) THEN
+        RETURN NULL;
+    END IF;
+    IF TG_OP <> ''INSERT'' THEN
+        DELETE FROM booking_periods WHERE booking_id = OLD.id;
+    END IF;
+    IF TG_OP <> ''DELETE'' AND NEW.status IN (1, 2) THEN
+        INSERT INTO booking_periods (booking_id, item_id, period)
+        VALUES (NEW.id, NEW.item_id, tsrange(NEW.start_date, NEW.end_date));
+    END IF;
+    RETURN NULL;
+END';
+
+-- Row triggers of a partitioned table are cloned to every partition attached later
+CREATE TRIGGER tr_bookings_sync_period AFTER INSERT OR UPDATE OR DELETE ON bookings
+    FOR EACH ROW EXECUTE FUNCTION bookings_sync_period();
+
+CREATE INDEX IF NOT EXISTS ix_outbox_events_unpublished ON outbox_events (id) WHERE position IS NULL;
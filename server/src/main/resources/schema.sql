@@ -1,19 +1,30 @@
+DROP TABLE IF EXISTS outbox_events;
 DROP TABLE IF EXISTS bookings;
 DROP TABLE IF EXISTS comments;
 DROP TABLE IF EXISTS items;
 DROP TABLE IF EXISTS requests;
 DROP TABLE IF EXISTS users;
+DROP SEQUENCE IF EXISTS users_id_seq;
+DROP SEQUENCE IF EXISTS requests_id_seq;
+DROP SEQUENCE IF EXISTS items_id_seq;
+DROP SEQUENCE IF EXISTS bookings_id_seq;
+DROP SEQUENCE IF EXISTS comments_id_seq;
+DROP SEQUENCE IF EXISTS outbox_events_id_seq;
+
+CREATE SEQUENCE IF NOT EXISTS users_id_seq START WITH 1 INCREMENT BY 50;
 
 CREATE TABLE IF NOT EXISTS users (
-    id BIGINT GENERATED ALWAYS AS IDENTITY NOT NULL,
+    id BIGINT NOT NULL,
     name VARCHAR(255) NOT NULL,
     email VARCHAR(512) NOT NULL,
     CONSTRAINT pk_users PRIMARY KEY (id),
     CONSTRAINT uq_user_email UNIQUE (email)
 );
 
+CREATE SEQUENCE IF NOT EXISTS requests_id_seq START WITH 1 INCREMENT BY 50;
+
 CREATE TABLE IF NOT EXISTS requests (
-    id BIGINT GENERATED ALWAYS AS IDENTITY NOT NULL,
+    id BIGINT NOT NULL,
     description VARCHAR(512) NOT NULL,
     user_id BIGINT NOT NULL,
     created TIMESTAMP NOT NULL,
@@ -21,33 +32,50 @@ CREATE TABLE IF NOT EXISTS requests (
     CONSTRAINT fk_requests_user_id FOREIGN KEY (user_id) REFERENCES users (id)
 );
 
+CREATE SEQUENCE IF NOT EXISTS items_id_seq START WITH 1 INCREMENT BY 50;
+
 CREATE TABLE IF NOT EXISTS items (
-    id BIGINT GENERATED ALWAYS AS IDENTITY NOT NULL,
+    id BIGINT NOT NULL,
     owner_id BIGINT NOT NULL,
     name VARCHAR(255) NOT NULL,
     description VARCHAR(512) NOT NULL,
     available BOOLEAN,
     review_id BIGINT,
     request_id BIGINT,
+    last_booking_id BIGINT,
+    last_booking_start TIMESTAMP,
+    last_booking_end TIMESTAMP,
+    last_booker_id BIGINT,
+    next_booking_id BIGINT,
+    next_booking_start TIMESTAMP,
+    next_booking_end TIMESTAMP,
+    next_booker_id BIGINT,
+    version BIGINT NOT NULL DEFAULT 0,
     CONSTRAINT pk_items PRIMARY KEY (id),
     CONSTRAINT fk_items_user_id FOREIGN KEY (owner_id) REFERENCES users (id),
     CONSTRAINT fk_items_request_id FOREIGN KEY (request_id) REFERENCES requests (id)
 );
 
+CREATE SEQUENCE IF NOT EXISTS bookings_id_seq START WITH 1 INCREMENT BY 50;
+
 CREATE TABLE IF NOT EXISTS bookings (
-    id BIGINT GENERATED ALWAYS AS IDENTITY NOT NULL,
+    id BIGINT NOT NULL,
     start_date TIMESTAMP,
     end_date TIMESTAMP,
     item_id BIGINT,
     booker_id BIGINT,
-    status VARCHAR,
+    status SMALLINT,
+    version BIGINT NOT NULL DEFAULT 0,
     CONSTRAINT pk_bookings PRIMARY KEY (id),
+    CONSTRAINT ck_bookings_status CHECK (status BETWEEN 1 AND 4),
     CONSTRAINT fk_bookings_item_id FOREIGN KEY (item_id) REFERENCES items (id),
     CONSTRAINT fk_bookings_user_id FOREIGN KEY (booker_id) REFERENCES users (id)
 );
 
+CREATE SEQUENCE IF NOT EXISTS comments_id_seq START WITH 1 INCREMENT BY 50;
+
 CREATE TABLE IF NOT EXISTS comments (
-    id BIGINT GENERATED ALWAYS AS IDENTITY NOT NULL,
+    id BIGINT NOT NULL,
     text VARCHAR(512) NOT NULL,
     item_id BIGINT,
     author_id BIGINT,
@@ -55,4 +83,24 @@ CREATE TABLE IF NOT EXISTS comments (
     CONSTRAINT pk_comments PRIMARY KEY (id),
     CONSTRAINT fk_comments_item_id FOREIGN KEY (item_id) REFERENCES items (id),
     CONSTRAINT fk_comments_user_id FOREIGN KEY (author_id) REFERENCES users (id)
-);
\ No newline at end of file
+);
+
+CREATE SEQUENCE IF NOT EXISTS outbox_events_id_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE IF NOT EXISTS outbox_events (
+    id BIGINT NOT NULL,
+    type VARCHAR(32) NOT NULL,
+    entity_id BIGINT NOT NULL,
+    payload VARCHAR NOT NULL,
+    created TIMESTAMP NOT NULL,
+    position BIGINT,
+    published TIMESTAMP,
+    CONSTRAINT pk_outbox_events PRIMARY KEY (id),
+    CONSTRAINT uq_outbox_events_position UNIQUE (position)
+);
+
+CREATE INDEX IF NOT EXISTS ix_items_owner_id ON items (owner_id, id);
+CREATE INDEX IF NOT EXISTS ix_bookings_booker_start ON bookings (booker_id, start_date, id);
+CREATE INDEX IF NOT EXISTS ix_bookings_item_start ON bookings (item_id, start_date, id);
+CREATE INDEX IF NOT EXISTS ix_bookings_item_status ON bookings (item_id, status);
+CREATE INDEX IF NOT EXISTS ix_bookings_status_start ON bookings (status, start_date);
@@ -0,0 +1,136 @@
+package ru.practicum.shareit;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.storage.ItemStorage;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.storage.UserStorage;
+
+import javax.persistence.EntityManagerFactory;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Second-level caching of users and items: every step commits on its own, as it does in the services.
+ */
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+class EntityCacheTest {
+    @Autowired
+    private UserStorage userStorage;
+    @Autowired
+    private ItemStorage itemStorage;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void findById_whenUserCached_thenNoQuery() {
+        User user = userStorage.save(user("cached"));
+        userStorage.findById(user.getId());
+        long queries = statistics.getPrepareStatementCount();
+        long misses = statistics.getSecondLevelCacheMissCount();
+
+        assertEquals("cached", userStorage.findById(user.getId()).orElseThrow().getName());
+
+        assertEquals(queries, statistics.getPrepareStatementCount());
+        assertEquals(misses, statistics.getSecondLevelCacheMissCount());
+        assertTrue(statistics.getSecondLevelCacheHitCount() > 0);
+    }
+
+    @Test
+    void findById_whenUserUpdatedOrDeleted_thenNotStale() {
+        User user = userStorage.save(user("before"));
+        user.setName("after");
+        userStorage.save(user);
+
+        assertEquals("after", userStorage.findById(user.getId()).orElseThrow().getName());
+
+        userStorage.deleteById(user.getId());
+
+        assertFalse(userStorage.findById(user.getId()).isPresent());
+    }
+
+    @Test
+    void findById_whenItemUpdated_thenNotStale() {
+        User owner = userStorage.save(user("owner"));
+        Item item = itemStorage.save(item(owner.getId()));
+        item.setName("renamed");
+        itemStorage.save(item);
+        long queries = statistics.getPrepareStatementCount();
+
+        assertEquals("renamed", itemStorage.findById(item.getId()).orElseThrow().getName());
+        assertEquals(queries, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void findById_whenItemSnapshotUpdatedInBulk_thenNotStale() {
+        User owner = userStorage.save(user("owner"));
+        Item item = itemStorage.save(item(owner.getId()));
+        itemStorage.findById(item.getId());
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                itemStorage.offerNextBooking(item.getId(), 7L, start, start.plusDays(1), owner.getId() + 1));
+
+        assertEquals(7L, itemStorage.findById(item.getId()).orElseThrow().getNextBooking().getId());
+    }
+
+    @Test
+    void findById_whenOtherItemSnapshotUpdated_thenStillCached() {
+        User owner = userStorage.save(user("owner"));
+        Item item = itemStorage.save(item(owner.getId()));
+        Item other = itemStorage.save(item(owner.getId()));
+        itemStorage.findById(item.getId());
+        itemStorage.findById(other.getId());
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                itemStorage.offerNextBooking(item.getId(), 7L, start, start.plusDays(1), owner.getId() + 1));
+        long queries = statistics.getPrepareStatementCount();
+
+        assertEquals("item", itemStorage.findById(other.getId()).orElseThrow().getName());
+        assertEquals(queries, statistics.getPrepareStatementCount());
+        assertTrue(entityManagerFactory.getCache().contains(Item.class, other.getId()));
+        assertFalse(entityManagerFactory.getCache().contains(Item.class, item.getId()));
+    }
+
+    private static User user(String name) {
+        User user = new User();
+        user.setName(name);
+        user.setEmail(name + "@email.com");
+        return user;
+    }
+
+    private static Item item(long ownerId) {
+        Item item = new Item();
+        item.setOwnerId(ownerId);
+        item.setName("item");
+        item.setDescription("description");
+        item.setAvailable(true);
+        return item;
+    }
+}
@@ -0,0 +1,148 @@
+package ru.practicum.shareit;
+
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.storage.BookingStorage;
+import ru.practicum.shareit.item.model.Comment;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.storage.CommentStorage;
+import ru.practicum.shareit.item.storage.ItemStorage;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.storage.UserStorage;
+import ru.practicum.shareit.utils.QueryBudget;
+import ru.practicum.shareit.utils.querycount.QueryCounter;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static ru.practicum.shareit.utils.Constant.USER_ID;
+import static ru.practicum.shareit.utils.querycount.QueryCountFilter.STATEMENT_COUNT;
+
+/**
+ * Query budgets of the item and booking feeds, with a page of rows that reference different users. A budget
+ * that depends on the page size is an N+1.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+class FeedQueryBudgetTest {
+    private static final int ITEMS = 10;
+    private static final int BOOKERS = 5;
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private UserStorage userStorage;
+    @Autowired
+    private ItemStorage itemStorage;
+    @Autowired
+    private BookingStorage bookingStorage;
+    @Autowired
+    private CommentStorage commentStorage;
+
+    private long ownerId;
+    private long bookerId;
+    private long itemId;
+
+    @BeforeAll
+    void addData() {
+        User owner = userStorage.save(user("owner"));
+        ownerId = owner.getId();
+        List<User> bookers = new ArrayList<>();
+        for (int i = 0; i < BOOKERS; i++) {
+            bookers.add(userStorage.save(user("booker" + i)));
+        }
+        bookerId = bookers.get(0).getId();
+        LocalDateTime start = LocalDateTime.now().plusDays(1).truncatedTo(ChronoUnit.HOURS);
+        for (int i = 0; i < ITEMS; i++) {
+            Item item = new Item();
+            item.setOwnerId(ownerId);
+            item.setName("item" + i);
+            item.setDescription("description");
+            item.setAvailable(true);
+            item = itemStorage.save(item);
+            itemId = item.getId();
+            for (int j = 0; j < BOOKERS; j++) {
+                Booking booking = new Booking();
+                booking.setItem(item);
+                booking.setBooker(bookers.get(j));
+                booking.setStart(start.plusDays(i * BOOKERS + j));
+                booking.setEnd(start.plusDays(i * BOOKERS + j).plusHours(1));
+                booking.setStatus(j == 0 ? BookingStatus.APPROVED : BookingStatus.WAITING);
+                bookingStorage.save(booking);
+                Comment comment = new Comment();
+                comment.setItem(item);
+                comment.setAuthor(bookers.get(j));
+                comment.setText("comment" + j);
+                comment.setCreated(LocalDateTime.now());
+                commentStorage.save(comment);
+            }
+        }
+    }
+
+    @Test
+    void getItemsOfOwner_withinBudget() {
+        assertWithinBudget(2, get("/items").header(USER_ID, ownerId));
+    }
+
+    @Test
+    void getItem_withinBudget() {
+        assertWithinBudget(1, get("/items/{itemId}", itemId).header(USER_ID, ownerId));
+    }
+
+    @Test
+    void searchItems_withinBudget() {
+        assertWithinBudget(1, get("/items/search").param("text", "item").header(USER_ID, bookerId));
+    }
+
+    @Test
+    void getBookingsOfBooker_withinBudget() {
+        assertWithinBudget(1, get("/bookings").header(USER_ID, bookerId));
+    }
+
+    @Test
+    void getBookingsOfOwner_withinBudget() {
+        assertWithinBudget(1, get("/bookings/owner").header(USER_ID, ownerId));
+    }
+
+    /**
+     * One call, made after a first call has warmed up the caches, runs at most budget statements; the count
+     * reported in the response header must agree.
+     */
+    @SneakyThrows
+    private void assertWithinBudget(long budget, RequestBuilder request) {
+        mockMvc.perform(request).andExpect(status().isOk());
+        MvcResult[] result = new MvcResult[1];
+        QueryCounter.Counts counts = QueryBudget.count(() -> result[0] = mockMvc.perform(request)
+                .andExpect(status().isOk())
+                .andReturn());
+        assertEquals(String.valueOf(counts.getStatements()), result[0].getResponse().getHeader(STATEMENT_COUNT));
+        assertTrue(counts.getStatements() <= budget,
+                () -> "expected at most " + budget + " statements but ran " + counts.getStatements());
+    }
+
+    private static User user(String name) {
+        User user = new User();
+        user.setName(name);
+        user.setEmail(name + "@email.com");
+        return user;
+    }
+}
@@ -0,0 +1,122 @@
+package ru.practicum.shareit;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.item.model.Comment;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.storage.CommentStorage;
+import ru.practicum.shareit.item.storage.ItemStorage;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.storage.UserStorage;
+import ru.practicum.shareit.utils.QueryBudget;
+import ru.practicum.shareit.utils.querycount.QueryCountConfig;
+import ru.practicum.shareit.utils.querycount.QueryCounter;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntFunction;
+
+/**
+ * Rows per second and JDBC statements of inserting users, items and comments, a transaction per chunk as a bulk
+ * import would do. Run with {@code mvn test -Dtest=InsertThroughputBenchmark -Dshareit.benchmark=true}.
+ */
+@DataJpaTest
+@Import(QueryCountConfig.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+@EnabledIfSystemProperty(named = "shareit.benchmark", matches = "true")
+class InsertThroughputBenchmark {
+    private static final int ROWS = 10_000;
+    private static final int WARMUP_ROWS = 2_000;
+    private static final int CHUNK = 500;
+
+    @Autowired
+    private UserStorage userStorage;
+    @Autowired
+    private ItemStorage itemStorage;
+    @Autowired
+    private CommentStorage commentStorage;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private User owner;
+    private Item item;
+    private int sequence;
+
+    @BeforeAll
+    void addData() {
+        owner = userStorage.save(user());
+        item = itemStorage.save(item());
+    }
+
+    @Test
+    void users() {
+        measure("users", userStorage, i -> user());
+    }
+
+    @Test
+    void items() {
+        measure("items", itemStorage, i -> item());
+    }
+
+    @Test
+    void comments() {
+        measure("comments", commentStorage, i -> {
+            Comment comment = new Comment();
+            comment.setText("comment " + i);
+            comment.setItem(item);
+            comment.setAuthor(owner);
+            comment.setCreated(LocalDateTime.now());
+            return comment;
+        });
+    }
+
+    private <T> void measure(String name, CrudRepository<T, ?> storage, IntFunction<T> entity) {
+        insert(storage, entity, WARMUP_ROWS);
+        long nanos = System.nanoTime();
+        QueryCounter.Counts counts = QueryBudget.count(() -> insert(storage, entity, ROWS));
+        long millis = (System.nanoTime() - nanos) / 1_000_000;
+        System.out.printf("%s: %d rows in %d ms, %d rows/s, %d statements%n", name, ROWS, millis,
+                ROWS * 1000L / Math.max(millis, 1), counts.getStatements());
+    }
+
+    private <T> void insert(CrudRepository<T, ?> storage, IntFunction<T> entity, int rows) {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        for (int from = 0; from < rows; from += CHUNK) {
+            List<T> chunk = new ArrayList<>(CHUNK);
+            for (int i = from; i < from + CHUNK; i++) {
+                chunk.add(entity.apply(i));
+            }
+            transaction.executeWithoutResult(status -> storage.saveAll(chunk));
+        }
+    }
+
+    private User user() {
+        User user = new User();
+        user.setName("user");
+        user.setEmail("user" + sequence++ + "@email.com");
+        return user;
+    }
+
+    private Item item() {
+        Item item = new Item();
+        item.setOwnerId(owner == null ? 1L : owner.getId());
+        item.setName("item");
+        item.setDescription("description");
+        item.setAvailable(true);
+        return item;
+    }
+}
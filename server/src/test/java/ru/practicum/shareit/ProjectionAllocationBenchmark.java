@@ -0,0 +1,180 @@
+package ru.practicum.shareit;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.booking.mapper.BookingMapper;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingState;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.storage.BookingStorage;
+import ru.practicum.shareit.item.mapper.ItemMapper;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.storage.ItemStorage;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.storage.UserStorage;
+
+import javax.persistence.EntityManager;
+import java.lang.management.ManagementFactory;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Heap allocated per page by the booking and item lists, read as managed entities and mapped the way they were
+ * before, against the projection queries that serve them now. Every read runs in a read-only transaction of its
+ * own, like a request does. Run with {@code mvn test -Dtest=ProjectionAllocationBenchmark -Dshareit.benchmark=true}.
+ */
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+@EnabledIfSystemProperty(named = "shareit.benchmark", matches = "true")
+class ProjectionAllocationBenchmark {
+    private static final int ITEMS = 200;
+    private static final int BOOKERS = 50;
+    private static final int BOOKINGS_PER_ITEM = 10;
+    private static final int PAGE = 50;
+    private static final int WARMUP = 300;
+    private static final int ROUNDS = 1000;
+
+    @Autowired
+    private UserStorage userStorage;
+    @Autowired
+    private ItemStorage itemStorage;
+    @Autowired
+    private BookingStorage bookingStorage;
+    @Autowired
+    private EntityManager entityManager;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate readOnly;
+    private long ownerId;
+
+    @BeforeAll
+    void addData() {
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            User owner = userStorage.save(user("owner"));
+            ownerId = owner.getId();
+            List<User> bookers = new ArrayList<>();
+            for (int i = 0; i < BOOKERS; i++) {
+                bookers.add(userStorage.save(user("booker" + i)));
+            }
+            LocalDateTime start = LocalDateTime.now().plusDays(1).truncatedTo(ChronoUnit.HOURS);
+            List<Booking> bookings = new ArrayList<>();
+            for (int i = 0; i < ITEMS; i++) {
+                Item item = new Item();
+                item.setOwnerId(ownerId);
+                item.setName("item" + i);
+                item.setDescription("description of item " + i);
+                item.setAvailable(true);
+                item = itemStorage.save(item);
+                for (int j = 0; j < BOOKINGS_PER_ITEM; j++) {
+                    Booking booking = new Booking();
+                    booking.setItem(item);
+                    booking.setBooker(bookers.get((i + j) % BOOKERS));
+                    booking.setStart(start.plusHours((long) i * BOOKINGS_PER_ITEM + j));
+                    booking.setEnd(start.plusHours((long) i * BOOKINGS_PER_ITEM + j).plusMinutes(30));
+                    booking.setStatus(BookingStatus.APPROVED);
+                    bookings.add(booking);
+                }
+            }
+            bookingStorage.saveAll(bookings);
+        });
+    }
+
+    @Test
+    void ownerBookings() {
+        Supplier<List<?>> entities = () -> entityManager.createQuery("select b from Booking b join fetch b.item i " +
+                        "join fetch b.booker where i.ownerId = :userId order by b.start desc, b.id desc", Booking.class)
+                .setParameter("userId", ownerId)
+                .setMaxResults(PAGE + 1)
+                .getResultStream()
+                .limit(PAGE)
+                .map(BookingMapper::mapToDto)
+                .collect(Collectors.toList());
+        Supplier<List<?>> projections = () -> bookingStorage.findForUser(ownerId, true, BookingState.ALL,
+                        LocalDateTime.now(), null, PageRequest.of(0, PAGE))
+                .map(BookingMapper::mapToDto)
+                .getContent();
+
+        compare("owner bookings", entities, projections);
+    }
+
+    @Test
+    void ownerItems() {
+        Supplier<List<?>> entities = () -> entityManager.createQuery("select i from Item i where i.ownerId = :ownerId " +
+                        "order by i.id", Item.class)
+                .setParameter("ownerId", ownerId)
+                .setMaxResults(PAGE)
+                .getResultStream()
+                .map(item -> ItemMapper.mapToDtoWithComments(item, Collections.emptyList()))
+                .collect(Collectors.toList());
+        Supplier<List<?>> projections = () -> itemStorage.findCardsByOwnerId(ownerId, PageRequest.of(0, PAGE)).stream()
+                .map(item -> ItemMapper.mapToDtoWithComments(item, Collections.emptyList()))
+                .collect(Collectors.toList());
+
+        compare("owner items", entities, projections);
+    }
+
+    private void compare(String name, Supplier<List<?>> entities, Supplier<List<?>> projections) {
+        List<?> expected = readOnly.execute(status -> entities.get());
+        assertEquals(expected, readOnly.execute(status -> projections.get()));
+        Result entityResult = measure(entities);
+        Result projectionResult = measure(projections);
+        System.out.printf("%s, page of %d: entities %d bytes %d us, projections %d bytes %d us per page%n", name, PAGE,
+                entityResult.bytes, entityResult.micros, projectionResult.bytes, projectionResult.micros);
+        assertTrue(projectionResult.bytes < entityResult.bytes);
+    }
+
+    private Result measure(Supplier<List<?>> read) {
+        for (int i = 0; i < WARMUP; i++) {
+            readOnly.execute(status -> read.get());
+        }
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        long bytes = threads.getThreadAllocatedBytes(threadId);
+        long nanos = System.nanoTime();
+        for (int i = 0; i < ROUNDS; i++) {
+            readOnly.execute(status -> read.get());
+        }
+        return new Result((threads.getThreadAllocatedBytes(threadId) - bytes) / ROUNDS,
+                (System.nanoTime() - nanos) / ROUNDS / 1000);
+    }
+
+    private static User user(String name) {
+        User user = new User();
+        user.setName(name);
+        user.setEmail(name + "@email.com");
+        return user;
+    }
+
+    private static final class Result {
+        private final long bytes;
+        private final long micros;
+
+        private Result(long bytes, long micros) {
+            this.bytes = bytes;
+            this.micros = micros;
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package ru.practicum.shareit.booking;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.service.BookingService;
+import ru.practicum.shareit.booking.storage.BookingStorage;
+import ru.practicum.shareit.exceptions.BadRequestException;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.service.ItemService;
+import ru.practicum.shareit.item.storage.ItemStorage;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.storage.UserStorage;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Concurrent booking writes: many threads book overlapping periods of one item at once, and exactly one booking
+ * per conflicting group must win; an owner's item edit racing with an approval must keep the approval's snapshot.
+ */
+@Slf4j
+@SpringBootTest
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
+class BookingConcurrencyTest {
+    private static final int THREADS = 8;
+    private static final int SLOTS = 50;
+    private static final int ATTEMPTS_PER_SLOT = 4;
+
+    @Autowired
+    private BookingService bookingService;
+    @Autowired
+    private BookingStorage bookingStorage;
+    @Autowired
+    private UserStorage userStorage;
+    @Autowired
+    private ItemStorage itemStorage;
+    @Autowired
+    private ItemService itemService;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private long itemId;
+    private long ownerId;
+    private long bookerId;
+
+    @BeforeEach
+    void addData() {
+        User owner = new User();
+        owner.setName("owner");
+        owner.setEmail("owner@email.com");
+        ownerId = userStorage.save(owner).getId();
+        User booker = new User();
+        booker.setName("booker");
+        booker.setEmail("booker@email.com");
+        bookerId = userStorage.save(booker).getId();
+        Item item = new Item();
+        item.setOwnerId(owner.getId());
+        item.setName("popular");
+        item.setDescription("popularDesc");
+        item.setAvailable(true);
+        itemId = itemStorage.save(item).getId();
+    }
+
+    @Test
+    void create_whenConcurrentOverlappingRequests_thenNoDoubleBooking() throws Exception {
+        LocalDateTime base = LocalDateTime.now().plusDays(1).truncatedTo(ChronoUnit.HOURS);
+        List<Callable<Boolean>> tasks = new ArrayList<>();
+        for (int attempt = 0; attempt < ATTEMPTS_PER_SLOT; attempt++) {
+            for (int slot = 0; slot < SLOTS; slot++) {
+                BookingDto bookingDto = new BookingDto();
+                bookingDto.setItemId(itemId);
+                bookingDto.setStart(base.plusHours(slot * 2L).plusMinutes(attempt));
+                bookingDto.setEnd(base.plusHours(slot * 2L + 1));
+                tasks.add(() -> {
+                    try {
+                        bookingService.create(bookingDto, bookerId);
+                        return true;
+                    } catch (BadRequestException e) {
+                        return false;
+                    }
+                });
+            }
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        long started = System.nanoTime();
+        List<Future<Boolean>> results = executor.invokeAll(tasks);
+        long elapsedMs = (System.nanoTime() - started) / 1_000_000;
+        executor.shutdown();
+
+        int created = 0;
+        for (Future<Boolean> result : results) {
+            if (result.get()) {
+                created++;
+            }
+        }
+        log.info("{} booking requests from {} threads in {} ms, {} req/s, {} created", tasks.size(), THREADS,
+                elapsedMs, tasks.size() * 1000L / Math.max(elapsedMs, 1), created);
+        List<Booking> bookings = new ArrayList<>(bookingStorage.findAll());
+        bookings.sort(Comparator.comparing(Booking::getStart));
+        assertEquals(SLOTS, created);
+        assertEquals(SLOTS, bookings.size());
+        for (int i = 1; i < bookings.size(); i++) {
+            assertFalse(bookings.get(i).getStart().isBefore(bookings.get(i - 1).getEnd()),
+                    "Bookings overlap: " + bookings.get(i - 1) + " and " + bookings.get(i));
+        }
+    }
+
+    @Test
+    void update_whenItemLoadedBeforeApproval_thenSnapshotKept() {
+        BookingDto bookingDto = new BookingDto();
+        bookingDto.setItemId(itemId);
+        bookingDto.setStart(LocalDateTime.now().plusDays(1));
+        bookingDto.setEnd(LocalDateTime.now().plusDays(2));
+        long bookingId = bookingService.create(bookingDto, bookerId).getId();
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            Item stale = itemStorage.findById(itemId).orElseThrow();
+            assertNull(stale.getNextBooking());
+            bookingService.setStatus(bookingId, true, ownerId);
+            itemService.update(ownerId, itemId, new ItemDto(null, "renamed", null, null, null));
+        });
+
+        Item item = itemStorage.findById(itemId).orElseThrow();
+        assertEquals("renamed", item.getName());
+        assertEquals(bookingId, item.getNextBooking().getId());
+    }
+}
@@ -6,6 +6,8 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.annotation.DirtiesContext;
+import ru.practicum.shareit.booking.dto.BookingBatchResultDto;
+import ru.practicum.shareit.booking.dto.BookingDecisionDto;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.model.BookingState;
 import ru.practicum.shareit.booking.model.BookingStatus;
@@ -17,6 +19,7 @@ import ru.practicum.shareit.user.model.User;
 
 import java.time.LocalDateTime;
 import java.util.Collection;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
@@ -80,7 +83,7 @@ class BookingControllerIntTest {
         int from = 0;
         int size = 20;
 
-        Collection<BookingDto> collection = bookingController.findBookingsForOwner(userId, state, from, size);
+        Collection<BookingDto> collection = bookingController.findBookingsForOwner(userId, state, from, size, null).getBody();
 
         assertEquals(1, collection.size());
     }
@@ -93,8 +96,45 @@ class BookingControllerIntTest {
         int from = 0;
         int size = 20;
 
-        Collection<BookingDto> collection = bookingController.findBookingsForUser(userId, state, from, size);
+        Collection<BookingDto> collection = bookingController.findBookingsForUser(userId, state, from, size, null).getBody();
 
         assertEquals(0, collection.size());
     }
-}
\ No newline at end of file
+
+    @Test
+    void decideAll() {
+        List<BookingBatchResultDto> results = bookingController.decideAll(List.of(
+                new BookingDecisionDto(1L, true),
+                new BookingDecisionDto(2L, true)), 1L);
+
+        assertEquals(BookingStatus.APPROVED, results.get(0).getBooking().getStatus());
+        assertEquals("User 1 is not owner of the item", results.get(1).getError());
+        assertEquals(BookingStatus.APPROVED, bookingService.findBooking(1L, 1L).getStatus());
+        assertEquals(BookingStatus.WAITING, bookingService.findBooking(1L, 2L).getStatus());
+    }
+
+    @Test
+    void createAll() {
+        BookingDto first = new BookingDto();
+        first.setStart(LocalDateTime.now().plusDays(1));
+        first.setEnd(LocalDateTime.now().plusDays(2));
+        first.setItemId(2L);
+        BookingDto second = new BookingDto();
+        second.setStart(LocalDateTime.now().plusDays(3));
+        second.setEnd(LocalDateTime.now().plusDays(4));
+        second.setItemId(2L);
+        BookingDto own = new BookingDto();
+        own.setStart(LocalDateTime.now().plusDays(1));
+        own.setEnd(LocalDateTime.now().plusDays(2));
+        own.setItemId(1L);
+
+        List<BookingBatchResultDto> results = bookingController.createAll(List.of(first, own, second), 1L);
+
+        assertEquals(BookingStatus.WAITING, results.get(0).getBooking().getStatus());
+        assertEquals("Can't book your own item", results.get(1).getError());
+        assertEquals(BookingStatus.WAITING, results.get(2).getBooking().getStatus());
+        Collection<BookingDto> bookings = bookingController.findBookingsForUser(1L, BookingState.FUTURE, 0, 20, null)
+                .getBody();
+        assertEquals(3, bookings.size());
+    }
+}
@@ -2,18 +2,32 @@ package ru.practicum.shareit.booking;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.SneakyThrows;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import ru.practicum.shareit.booking.dto.BookingBatchResultDto;
+import ru.practicum.shareit.booking.dto.BookingDecisionDto;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.model.BookingState;
 import ru.practicum.shareit.booking.service.BookingService;
+import ru.practicum.shareit.booking.service.BookingStatusStream;
+import ru.practicum.shareit.utils.Cursor;
+
+import java.time.LocalDateTime;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(BookingController.class)
@@ -26,6 +40,8 @@ class BookingControllerTest {
 
     @MockBean
     private BookingService bookingService;
+    @MockBean
+    private BookingStatusStream bookingStatusStream;
 
     private static final String USER_ID = "X-Sharer-User-Id";
 
@@ -48,6 +64,27 @@ class BookingControllerTest {
         assertEquals(objectMapper.writeValueAsString(bookingToCreate), response);
     }
 
+    @Test
+    @SneakyThrows
+    void createAll() {
+        BookingDto bookingToCreate = new BookingDto();
+        bookingToCreate.setItemId(1L);
+        long userId = 2L;
+        List<BookingBatchResultDto> results = List.of(BookingBatchResultDto.succeeded(0, bookingToCreate));
+        when(bookingService.createAll(List.of(bookingToCreate), userId)).thenReturn(results);
+
+        String response = mockMvc.perform(post("/bookings/batch")
+                        .header(USER_ID, userId)
+                        .contentType("application/json")
+                        .content(objectMapper.writeValueAsString(List.of(bookingToCreate))))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+
+        assertEquals(objectMapper.writeValueAsString(results), response);
+    }
+
     @SneakyThrows
     @Test
     void setStatus() {
@@ -62,6 +99,21 @@ class BookingControllerTest {
         verify(bookingService).setStatus(bookingId, approved, userId);
     }
 
+    @SneakyThrows
+    @Test
+    void decideAll() {
+        long userId = 2L;
+        List<BookingDecisionDto> decisions = List.of(new BookingDecisionDto(1L, true));
+
+        mockMvc.perform(patch("/bookings/owner/decisions")
+                        .header(USER_ID, userId)
+                        .contentType("application/json")
+                        .content(objectMapper.writeValueAsString(decisions)))
+                .andExpect(status().isOk());
+
+        verify(bookingService).decideAll(decisions, userId);
+    }
+
     @SneakyThrows
     @Test
     void fingBooking() {
@@ -82,12 +134,16 @@ class BookingControllerTest {
         String state = "ALL";
         int from = 0;
         int size = 20;
+        when(bookingService.findBookingsForUserOrOwner(userId, BookingState.ALL, false, from, size, null))
+                .thenReturn(new SliceImpl<>(List.of()));
 
         mockMvc.perform(get("/bookings?state={state}&from={from}&size={size}", state, from, size)
                         .header(USER_ID, userId))
-                .andExpect(status().isOk());
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Has-Next", "false"))
+                .andExpect(header().doesNotExist("X-Next-Cursor"));
 
-        verify(bookingService).findBookingsForUserOrOwner(userId, BookingState.valueOf(state), false, from, size);
+        verify(bookingService).findBookingsForUserOrOwner(userId, BookingState.valueOf(state), false, from, size, null);
     }
 
     @SneakyThrows
@@ -102,7 +158,7 @@ class BookingControllerTest {
                         .header(USER_ID, userId))
                 .andExpect(status().isBadRequest());
 
-        verify(bookingService, never()).findBookingsForUserOrOwner(userId, BookingState.ALL, false, from, size);
+        verify(bookingService, never()).findBookingsForUserOrOwner(userId, BookingState.ALL, false, from, size, null);
     }
 
     @SneakyThrows
@@ -112,11 +168,49 @@ class BookingControllerTest {
         String state = "ALL";
         int from = 0;
         int size = 20;
+        when(bookingService.findBookingsForUserOrOwner(userId, BookingState.ALL, true, from, size, null))
+                .thenReturn(new SliceImpl<>(List.of()));
 
         mockMvc.perform(get("/bookings/owner?state={state}&from={from}&size={size}", state, from, size)
                         .header(USER_ID, userId))
                 .andExpect(status().isOk());
 
-        verify(bookingService).findBookingsForUserOrOwner(userId, BookingState.valueOf(state), true, from, size);
+        verify(bookingService).findBookingsForUserOrOwner(userId, BookingState.valueOf(state), true, from, size, null);
+    }
+
+    @SneakyThrows
+    @Test
+    void findBookingsForOwner_whenHasNext_thenReturnNextCursor() {
+        long userId = 2L;
+        int size = 1;
+        BookingDto booking = new BookingDto();
+        booking.setId(3L);
+        booking.setStart(LocalDateTime.of(2023, 3, 1, 12, 0));
+        when(bookingService.findBookingsForUserOrOwner(userId, BookingState.ALL, true, 0, size, null))
+                .thenReturn(new SliceImpl<>(List.of(booking), PageRequest.of(0, size), true));
+
+        mockMvc.perform(get("/bookings/owner?size={size}", size)
+                        .header(USER_ID, userId))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Has-Next", "true"))
+                .andExpect(header().string("X-Next-Cursor", Cursor.of(booking.getStart(), 3L).encode()));
+    }
+
+    @Test
+    @SneakyThrows
+    void stream_thenSendStatusChanges() {
+        long userId = 2L;
+        SseEmitter emitter = new SseEmitter();
+        when(bookingStatusStream.subscribe(userId)).thenReturn(emitter);
+
+        MvcResult result = mockMvc.perform(get("/bookings/stream").header(USER_ID, userId))
+                .andExpect(status().isOk())
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        emitter.send(SseEmitter.event().name("booking-status").data("{}"));
+
+        assertEquals("event:booking-status\ndata:{}\n\n", result.getResponse().getContentAsString());
+        assertTrue(result.getResponse().getContentType().startsWith("text/event-stream"));
+        verify(bookingStatusStream).subscribe(userId);
     }
-}
\ No newline at end of file
+}
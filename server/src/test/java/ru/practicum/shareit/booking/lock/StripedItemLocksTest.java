@@ -0,0 +1,96 @@
+package ru.practicum.shareit.booking.lock;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.exceptions.ConflictException;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StripedItemLocksTest {
+    private final StripedItemLocks itemLocks = new StripedItemLocks(4, 5000);
+
+    @AfterEach
+    void clear() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void lock_whenNoTransaction_thenThrowException() {
+        assertThrows(IllegalStateException.class, () -> itemLocks.lock(1L));
+    }
+
+    @Test
+    void lock_whenLockedByOtherTransaction_thenWaitForItsCompletion() throws Exception {
+        TransactionSynchronizationManager.initSynchronization();
+        itemLocks.lock(1L);
+
+        CompletableFuture<Void> other = CompletableFuture.runAsync(() -> lockInTransaction(1L));
+        CompletableFuture<Void> unrelated = CompletableFuture.runAsync(() -> lockInTransaction(2L));
+
+        unrelated.get(5, TimeUnit.SECONDS);
+        assertThrows(TimeoutException.class, () -> other.get(200, TimeUnit.MILLISECONDS));
+        complete();
+        other.get(5, TimeUnit.SECONDS);
+        assertTrue(other.isDone());
+    }
+
+    @Test
+    void lock_whenNotFreeInTime_thenThrowConflict() throws Exception {
+        StripedItemLocks impatient = new StripedItemLocks(4, 50);
+        TransactionSynchronizationManager.initSynchronization();
+        impatient.lock(1L);
+
+        CompletableFuture<Void> other = CompletableFuture.runAsync(() -> {
+            TransactionSynchronizationManager.initSynchronization();
+            try {
+                assertThrows(ConflictException.class, () -> impatient.lock(List.of(2L, 1L)));
+            } finally {
+                complete();
+            }
+        });
+
+        other.get(5, TimeUnit.SECONDS);
+        assertDoesNotThrow(() -> impatient.lock(2L));
+        complete();
+    }
+
+    @Test
+    void lock_whenSameStripe_thenLockOnce() {
+        TransactionSynchronizationManager.initSynchronization();
+
+        itemLocks.lock(List.of(1L, 5L, 1L));
+
+        assertEquals(itemLocks.stripe(1L), itemLocks.stripe(5L));
+        assertEquals(1, TransactionSynchronizationManager.getSynchronizations().size());
+        complete();
+        assertFalse(TransactionSynchronizationManager.isSynchronizationActive());
+    }
+
+    private void lockInTransaction(long itemId) {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            itemLocks.lock(itemId);
+        } finally {
+            complete();
+        }
+    }
+
+    private static void complete() {
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        synchronizations.forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+    }
+}
@@ -0,0 +1,29 @@
+package ru.practicum.shareit.booking.model;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class BookingStatusConverterTest {
+    private final BookingStatusConverter converter = new BookingStatusConverter();
+
+    @Test
+    void convert_whenStored_thenFixedCodes() {
+        assertEquals((short) 1, converter.convertToDatabaseColumn(BookingStatus.WAITING));
+        assertEquals((short) 2, converter.convertToDatabaseColumn(BookingStatus.APPROVED));
+        assertEquals((short) 3, converter.convertToDatabaseColumn(BookingStatus.CANCELED));
+        assertEquals((short) 4, converter.convertToDatabaseColumn(BookingStatus.REJECTED));
+        assertNull(converter.convertToDatabaseColumn(null));
+    }
+
+    @Test
+    void convert_whenRead_thenSameStatus() {
+        for (BookingStatus status : BookingStatus.values()) {
+            assertEquals(status, converter.convertToEntityAttribute(converter.convertToDatabaseColumn(status)));
+        }
+        assertNull(converter.convertToEntityAttribute(null));
+        assertThrows(IllegalArgumentException.class, () -> converter.convertToEntityAttribute((short) 9));
+    }
+}
@@ -0,0 +1,101 @@
+package ru.practicum.shareit.booking.partition;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class BookingPartitionManagerTest {
+    private static final LocalDateTime NOW = LocalDateTime.of(2026, 10, 18, 12, 0);
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+    private final BookingPartitionProperties properties = new BookingPartitionProperties();
+    private BookingPartitionManager manager;
+
+    @BeforeEach
+    void setUp() {
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        properties.setMonthsAhead(2);
+        properties.setArchiveAfterMonths(3);
+        manager = new BookingPartitionManager(jdbcTemplate, transactionManager, properties);
+    }
+
+    @Test
+    void maintain_whenMonthsMissing_thenCreatedFromDefaultAndAttached() {
+        existing("bookings_default", "bookings_p202610");
+
+        List<String> statements = maintain();
+
+        assertTrue(statements.contains(
+                "create table bookings_p202611 (like bookings including defaults including constraints including indexes)"));
+        assertTrue(statements.contains(
+                "alter table bookings attach partition bookings_p202612 for values from ('2026-12-01') to ('2027-01-01')"));
+        assertFalse(statements.stream().anyMatch(sql -> sql.contains("bookings_p202610 ")));
+        verify(jdbcTemplate).update(eq("delete from bookings_default where start_date >= ? and start_date < ?"),
+                eq(LocalDateTime.of(2026, 11, 1, 0, 0)), eq(LocalDateTime.of(2026, 12, 1, 0, 0)));
+        verify(jdbcTemplate).update("insert into booking_periods select id, item_id, tsrange(start_date, end_date) " +
+                "from bookings_p202612 where status in (1, 2)");
+        verify(jdbcTemplate).update("delete from booking_periods where upper(period) < ?", NOW);
+    }
+
+    @Test
+    void maintain_whenYearFinished_thenMonthsSwappedForColdPartition() {
+        existing("bookings_p202506", "bookings_p202507", "bookings_p202610", "bookings_p202611", "bookings_p202612");
+        when(jdbcTemplate.queryForObject(anyString(), eq(Boolean.class), any(), any(), any())).thenReturn(false);
+        properties.setColdTablespace("cold");
+
+        List<String> statements = maintain();
+
+        assertTrue(statements.contains("lock table bookings_p202506, bookings_p202507 in share mode"));
+        assertTrue(statements.contains(
+                "create table bookings_y2025 (like bookings including defaults including constraints including indexes) " +
+                        "tablespace cold"));
+        int detach = statements.indexOf("alter table bookings detach partition bookings_p202507");
+        int attach = statements.indexOf(
+                "alter table bookings attach partition bookings_y2025 for values from ('2025-01-01') to ('2026-01-01')");
+        assertTrue(detach >= 0 && attach > detach);
+        assertTrue(statements.contains("drop table bookings_p202506"));
+        assertEquals("vacuum (freeze, analyze) bookings_y2025", statements.get(statements.size() - 1));
+        verify(jdbcTemplate).update("insert into bookings_y2025 select * from bookings_p202506");
+    }
+
+    @Test
+    void maintain_whenYearHasActiveBookings_thenNotArchived() {
+        existing("bookings_p202512", "bookings_p202610", "bookings_p202611", "bookings_p202612");
+        when(jdbcTemplate.queryForObject(anyString(), eq(Boolean.class), any(), any(), any())).thenReturn(true);
+
+        List<String> statements = maintain();
+
+        assertTrue(statements.contains("lock table bookings_p202512 in share mode"));
+        assertFalse(statements.stream().anyMatch(sql -> sql.contains("bookings_y2025")));
+    }
+
+    private void existing(String... names) {
+        when(jdbcTemplate.queryForList(anyString(), eq(String.class), eq("bookings"))).thenReturn(List.of(names));
+    }
+
+    private List<String> maintain() {
+        manager.maintain(NOW);
+        ArgumentCaptor<String> statements = ArgumentCaptor.forClass(String.class);
+        verify(jdbcTemplate, atLeastOnce()).execute(statements.capture());
+        return new ArrayList<>(statements.getAllValues());
+    }
+}
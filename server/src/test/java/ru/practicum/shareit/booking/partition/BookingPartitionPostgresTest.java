@@ -0,0 +1,274 @@
+package ru.practicum.shareit.booking.partition;
+
+import org.junit.jupiter.api.Test;
+import org.postgresql.util.PSQLException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import ru.practicum.shareit.booking.model.BookingState;
+import ru.practicum.shareit.booking.storage.BookingStorage;
+import ru.practicum.shareit.utils.Cursor;
+import ru.practicum.shareit.utils.SqlCapture;
+
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Partitioned bookings on a real Postgres: overlaps are rejected across partitions, also after the bookings
+ * of a month are moved out of the default partition, and a finished year is merged into a cold partition.
+ * Queries are explained with the generic plan Postgres switches a prepared statement to after five runs: the status
+ * lookups must read their partial indexes, and no booking list query may scan a table.
+ */
+@SpringBootTest
+@Testcontainers(disabledWithoutDocker = true)
+class BookingPartitionPostgresTest {
+    private static final String EXCLUSION_VIOLATION = "23P01";
+    private static final AtomicLong IDS = new AtomicLong(1_000_000);
+    private static final Pattern PARAMETER = Pattern.compile("\\?");
+    private static final Pattern INDEX = Pattern.compile("(?:using|Bitmap Index Scan on) (\\S+)");
+
+    @Container
+    private static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:13.7");
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private BookingPartitionManager partitionManager;
+    @Autowired
+    private BookingStorage bookingStorage;
+
+    @DynamicPropertySource
+    static void postgres(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.driverClassName", POSTGRES::getDriverClassName);
+        registry.add("spring.datasource.url", POSTGRES::getJdbcUrl);
+        registry.add("spring.datasource.username", POSTGRES::getUsername);
+        registry.add("spring.datasource.password", POSTGRES::getPassword);
+        registry.add("spring.jpa.properties.hibernate.dialect", () -> "org.hibernate.dialect.PostgreSQL10Dialect");
+        registry.add("spring.sql.init.platform", () -> "postgresql");
+        registry.add("shareit.bookings.partitioning.enabled", () -> "true");
+        registry.add(SqlCapture.PROPERTY, SqlCapture.class::getName);
+    }
+
+    @Test
+    void insert_whenOverlapInOtherMonth_thenRejected() {
+        long itemId = addItem();
+        LocalDateTime nextMonth = YearMonth.now().plusMonths(1).atDay(1).atStartOfDay();
+        long first = addBooking(itemId, nextMonth.minusDays(1), nextMonth.plusDays(1), 2);
+
+        assertOverlapRejected(itemId, nextMonth, nextMonth.plusDays(2));
+        assertEquals(BookingPartitions.monthly(YearMonth.from(nextMonth.minusDays(1))), partitionOf(first));
+    }
+
+    @Test
+    void insert_whenOverlapWithRejected_thenAccepted() {
+        long itemId = addItem();
+        LocalDateTime start = LocalDateTime.now().plusDays(3);
+        long rejected = addBooking(itemId, start, start.plusDays(2), 1);
+        jdbcTemplate.update("update bookings set status = 3 where id = ?", rejected);
+
+        addBooking(itemId, start.plusDays(1), start.plusDays(4), 1);
+        assertOverlapRejected(itemId, start, start.plusDays(2));
+    }
+
+    @Test
+    void maintain_whenBookingMovedFromDefault_thenOverlapStillRejected() {
+        long itemId = addItem();
+        YearMonth later = YearMonth.now().plusMonths(5);
+        LocalDateTime start = later.atDay(10).atStartOfDay();
+        long booking = addBooking(itemId, start, start.plusDays(3), 1);
+        assertEquals(BookingPartitions.DEFAULT, partitionOf(booking));
+
+        partitionManager.maintain(LocalDateTime.now().plusMonths(2));
+
+        assertEquals(BookingPartitions.monthly(later), partitionOf(booking));
+        assertOverlapRejected(itemId, start.plusDays(1), start.plusDays(2));
+        assertOverlapRejected(itemId, start.minusDays(20), start.plusDays(1));
+    }
+
+    @Test
+    void maintain_whenYearFinished_thenMergedIntoColdPartition() {
+        long itemId = addItem();
+        partitionManager.maintain(LocalDateTime.of(2001, 11, 1, 0, 0));
+        long booking = addBooking(itemId, LocalDateTime.of(2001, 12, 10, 12, 0), LocalDateTime.of(2001, 12, 12, 12, 0), 2);
+        assertEquals("bookings_p200112", partitionOf(booking));
+
+        partitionManager.maintain(LocalDateTime.of(2002, 4, 1, 0, 0));
+
+        assertEquals("bookings_y2001", partitionOf(booking));
+        assertEquals(0, jdbcTemplate.queryForObject(
+                "select count(*) from pg_class where relname in ('bookings_p200111', 'bookings_p200112')", Integer.class));
+        assertEquals(0, jdbcTemplate.queryForObject(
+                "select count(*) from booking_periods where booking_id = ?", Integer.class, booking));
+    }
+
+    @Test
+    void statusQueries_whenGenericPlan_thenPartialIndexUsed() {
+        long userIds = addUsers();
+        long itemIds = addItems(userIds);
+        addBookings(itemIds, userIds, 2031);
+        LocalDateTime now = LocalDateTime.of(2031, 6, 1, 0, 0);
+
+        assertUsesIndex("ix_bookings_item_approved",
+                SqlCapture.of(() -> bookingStorage.findApprovedPeriods(itemIds + 1, now, now.plusDays(1))));
+        assertUsesIndex("ix_bookings_waiting_start",
+                SqlCapture.of(() -> bookingStorage.findOverdue(now, PageRequest.of(0, 10))));
+        assertUsesIndex("ix_bookings_waiting_start", SqlCapture.of(() -> bookingStorage.countOverdue(now)));
+        assertUsesIndex("ix_bookings_booker_approved",
+                SqlCapture.of(() -> bookingStorage.existsApprovedEndedBefore(userIds + 1, now)));
+    }
+
+    @Test
+    void listQueries_whenGenericPlan_thenNoSeqScan() {
+        long userIds = addUsers();
+        addBookings(addItems(userIds), userIds, 2032);
+        LocalDateTime now = LocalDateTime.of(2032, 6, 1, 0, 0);
+        for (boolean isOwner : new boolean[]{false, true}) {
+            for (BookingState state : BookingState.values()) {
+                for (boolean keyset : new boolean[]{false, true}) {
+                    Cursor after = keyset ? Cursor.of(now, 1000L) : null;
+                    String sql = SqlCapture.of(() -> bookingStorage.findForUser(userIds + 1, isOwner, state, now,
+                            after, PageRequest.of(0, 10)));
+
+                    String plan = genericPlan(sql);
+
+                    assertFalse(plan.contains("Seq Scan"),
+                            (isOwner ? "owner " : "booker ") + state + (keyset ? " keyset" : "") + " query scans a table:\n" + plan);
+                }
+            }
+        }
+    }
+
+    /**
+     * Adds 50 users, returning the id before the first.
+     */
+    private long addUsers() {
+        long base = IDS.getAndAdd(50);
+        jdbcTemplate.update("insert into users (id, name, email) " +
+                "select " + base + " + x, 'user', 'user' || (" + base + " + x) || '@email.com' " +
+                "from generate_series(1, 50) x");
+        return base;
+    }
+
+    /**
+     * Adds 100 items of the users, returning the id before the first.
+     */
+    private long addItems(long userIds) {
+        long base = IDS.getAndAdd(100);
+        jdbcTemplate.update("insert into items (id, owner_id, name, description, available) " +
+                "select " + base + " + x, " + userIds + " + 1 + x % 50, 'item', 'itemDesc', true " +
+                "from generate_series(1, 100) x");
+        return base;
+    }
+
+    /**
+     * Adds 10000 half-hour bookings of the items through the year, a third of them waiting and the rest approved,
+     * and refreshes the statistics.
+     */
+    private void addBookings(long itemIds, long userIds, int year) {
+        long base = IDS.getAndAdd(10_000);
+        jdbcTemplate.update("insert into bookings (id, start_date, end_date, item_id, booker_id, status) " +
+                "select " + base + " + x, timestamp '" + year + "-01-01' + x * interval '50 minutes', " +
+                "timestamp '" + year + "-01-01' + x * interval '50 minutes' + interval '30 minutes', " +
+                itemIds + " + 1 + x % 100, " + userIds + " + 1 + x % 50, case x % 3 when 0 then 1 else 2 end " +
+                "from generate_series(1, 10000) x");
+        jdbcTemplate.execute("analyze bookings");
+    }
+
+    /**
+     * Asserts that the generic plan of the statement reads one of the partition indexes of the given index.
+     */
+    private void assertUsesIndex(String index, String sql) {
+        Set<String> partitionIndexes = new HashSet<>(jdbcTemplate.queryForList(
+                "select relid::regclass::text from pg_partition_tree(?::regclass)", String.class, index));
+        String plan = genericPlan(sql);
+        Matcher used = INDEX.matcher(plan);
+        boolean found = false;
+        while (used.find()) {
+            found |= partitionIndexes.contains(used.group(1));
+        }
+        assertTrue(found, "Not read through " + index + ":\n" + sql + "\n" + plan);
+    }
+
+    /**
+     * Explains the plan Postgres would cache for the statement once prepared, where the parameters are unknown.
+     * Sequential scans are disabled, so one shows up only where no index can serve the query, and so is pruning,
+     * as the parameters are all null.
+     */
+    private String genericPlan(String sql) {
+        AtomicInteger parameters = new AtomicInteger();
+        String prepared = PARAMETER.matcher(sql).replaceAll(parameter -> "\\$" + parameters.incrementAndGet());
+        String nulls = String.join(", ", Collections.nCopies(parameters.get(), "null"));
+        return jdbcTemplate.execute((ConnectionCallback<String>) connection -> {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("set plan_cache_mode = force_generic_plan");
+                statement.execute("set enable_seqscan = off");
+                statement.execute("set enable_partition_pruning = off");
+                statement.execute("prepare plan_check as " + prepared);
+                try (ResultSet plan = statement.executeQuery("explain execute plan_check(" + nulls + ")")) {
+                    List<String> lines = new ArrayList<>();
+                    while (plan.next()) {
+                        lines.add(plan.getString(1));
+                    }
+                    return String.join("\n", lines);
+                } finally {
+                    statement.execute("deallocate plan_check");
+                    statement.execute("reset plan_cache_mode");
+                    statement.execute("reset enable_seqscan");
+                    statement.execute("reset enable_partition_pruning");
+                }
+            }
+        });
+    }
+
+    private long addItem() {
+        long ownerId = IDS.incrementAndGet();
+        jdbcTemplate.update("insert into users (id, name, email) values (?, 'owner', ?)", ownerId,
+                "owner" + ownerId + "@email.com");
+        long itemId = IDS.incrementAndGet();
+        jdbcTemplate.update("insert into items (id, owner_id, name, description, available) " +
+                "values (?, ?, 'item', 'itemDesc', true)", itemId, ownerId);
+        return itemId;
+    }
+
+    private long addBooking(long itemId, LocalDateTime start, LocalDateTime end, int status) {
+        long id = IDS.incrementAndGet();
+        jdbcTemplate.update("insert into bookings (id, start_date, end_date, item_id, status) values (?, ?, ?, ?, ?)",
+                id, start, end, itemId, status);
+        return id;
+    }
+
+    private void assertOverlapRejected(long itemId, LocalDateTime start, LocalDateTime end) {
+        DataIntegrityViolationException e = assertThrows(DataIntegrityViolationException.class,
+                () -> addBooking(itemId, start, end, 1));
+        assertEquals(EXCLUSION_VIOLATION, ((PSQLException) e.getMostSpecificCause()).getSQLState());
+    }
+
+    private String partitionOf(long bookingId) {
+        return jdbcTemplate.queryForObject("select tableoid::regclass::text from bookings where id = ?",
+                String.class, bookingId);
+    }
+}
@@ -0,0 +1,58 @@
+package ru.practicum.shareit.booking.partition;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Year;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class BookingPartitionsTest {
+    @Test
+    void monthly_whenParsed_thenSameMonth() {
+        YearMonth month = YearMonth.of(2026, 3);
+
+        assertEquals("bookings_p202603", BookingPartitions.monthly(month));
+        assertEquals(Optional.of(month), BookingPartitions.parseMonthly(BookingPartitions.monthly(month)));
+        assertEquals(Optional.empty(), BookingPartitions.parseMonthly("bookings_y2025"));
+        assertEquals(Optional.empty(), BookingPartitions.parseMonthly(BookingPartitions.DEFAULT));
+    }
+
+    @Test
+    void missingMonths_whenSomeExist_thenOnlyTheOthersUpToHorizon() {
+        List<String> existing = List.of("bookings_default", "bookings_p202610", "bookings_p202612");
+
+        List<YearMonth> missing = BookingPartitions.missingMonths(existing, YearMonth.of(2026, 10), 3);
+
+        assertEquals(List.of(YearMonth.of(2026, 11), YearMonth.of(2027, 1)), missing);
+    }
+
+    @Test
+    void missingMonths_whenYearArchived_thenItsMonthsNotMissing() {
+        List<String> existing = List.of("bookings_y2026");
+
+        List<YearMonth> missing = BookingPartitions.missingMonths(existing, YearMonth.of(2026, 12), 1);
+
+        assertEquals(List.of(YearMonth.of(2027, 1)), missing);
+    }
+
+    @Test
+    void yearsToArchive_whenYearOverLongEnough_thenArchivedOldestFirst() {
+        List<String> existing = List.of("bookings_p202601", "bookings_p202511", "bookings_p202412",
+                "bookings_p202512", "bookings_y2023");
+
+        assertEquals(List.of(Year.of(2024)), BookingPartitions.yearsToArchive(existing, YearMonth.of(2026, 2), 3));
+        assertEquals(List.of(Year.of(2024), Year.of(2025)),
+                BookingPartitions.yearsToArchive(existing, YearMonth.of(2026, 3), 3));
+    }
+
+    @Test
+    void yearsToArchive_whenNoDelay_thenNotBeforeYearIsOver() {
+        List<String> existing = List.of("bookings_p202612");
+
+        assertEquals(List.of(), BookingPartitions.yearsToArchive(existing, YearMonth.of(2026, 12), 0));
+        assertEquals(List.of(Year.of(2026)), BookingPartitions.yearsToArchive(existing, YearMonth.of(2027, 1), 0));
+    }
+}
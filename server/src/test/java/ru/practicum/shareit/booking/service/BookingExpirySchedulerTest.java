@@ -0,0 +1,55 @@
+package ru.practicum.shareit.booking.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class BookingExpirySchedulerTest {
+    private final BookingExpiryService bookingExpiryService = mock(BookingExpiryService.class);
+    private final BookingExpiryProperties properties = new BookingExpiryProperties();
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private BookingExpiryScheduler scheduler;
+
+    @BeforeEach
+    void setUp() {
+        properties.setBatchSize(2);
+        properties.setMaxBatches(3);
+        scheduler = new BookingExpiryScheduler(bookingExpiryService, properties, meterRegistry);
+    }
+
+    @Test
+    void expire_whenLastBatchNotFull_thenStopAndPublishMetrics() {
+        when(bookingExpiryService.expireOverdue(any(LocalDateTime.class), anyInt())).thenReturn(2, 1);
+        when(bookingExpiryService.countOverdue(any(LocalDateTime.class))).thenReturn(0L);
+
+        scheduler.expire();
+
+        verify(bookingExpiryService, times(2)).expireOverdue(any(LocalDateTime.class), anyInt());
+        assertEquals(3.0, meterRegistry.get("shareit.bookings.expired").counter().count());
+        assertEquals(2, meterRegistry.get("shareit.bookings.expiry.batch").timer().count());
+        assertEquals(0.0, meterRegistry.get("shareit.bookings.expiry.backlog").gauge().value());
+    }
+
+    @Test
+    void expire_whenMaxBatchesReached_thenLeaveBacklog() {
+        when(bookingExpiryService.expireOverdue(any(LocalDateTime.class), anyInt())).thenReturn(2);
+        when(bookingExpiryService.countOverdue(any(LocalDateTime.class))).thenReturn(7L);
+
+        scheduler.expire();
+
+        verify(bookingExpiryService, times(3)).expireOverdue(any(LocalDateTime.class), anyInt());
+        assertEquals(6.0, meterRegistry.get("shareit.bookings.expired").counter().count());
+        assertEquals(7.0, meterRegistry.get("shareit.bookings.expiry.backlog").gauge().value());
+    }
+}
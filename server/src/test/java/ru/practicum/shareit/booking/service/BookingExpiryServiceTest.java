@@ -0,0 +1,102 @@
+package ru.practicum.shareit.booking.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.storage.BookingStorage;
+import ru.practicum.shareit.event.model.EventType;
+import ru.practicum.shareit.event.service.OutboxService;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.model.User;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class BookingExpiryServiceTest {
+    @Mock
+    private BookingStorage bookingStorage;
+    @Mock
+    private BookingIntervalIndex bookingIntervalIndex;
+    @Mock
+    private OutboxService outboxService;
+
+    @InjectMocks
+    private BookingExpiryService bookingExpiryService;
+
+    @Test
+    void expireOverdue_whenNothingOverdue_thenNoUpdate() {
+        LocalDateTime now = LocalDateTime.now();
+        when(bookingStorage.findOverdue(now, PageRequest.of(0, 10))).thenReturn(List.of());
+
+        int expired = bookingExpiryService.expireOverdue(now, 10);
+
+        assertEquals(0, expired);
+        verify(bookingStorage, never()).updateStatus(any(), any(), any());
+    }
+
+    @Test
+    void expireOverdue_whenOverdue_thenCancelAndRelease() {
+        LocalDateTime now = LocalDateTime.now();
+        Booking first = booking(1L, BookingStatus.WAITING);
+        Booking second = booking(2L, BookingStatus.WAITING);
+        when(bookingStorage.findOverdue(now, PageRequest.of(0, 10))).thenReturn(List.of(first, second));
+        when(bookingStorage.updateStatus(List.of(1L, 2L), BookingStatus.WAITING, BookingStatus.CANCELED)).thenReturn(2);
+
+        int expired = bookingExpiryService.expireOverdue(now, 10);
+
+        assertEquals(2, expired);
+        verify(bookingIntervalIndex).release(1L, first.getStart(), first.getEnd());
+        verify(bookingIntervalIndex).release(1L, second.getStart(), second.getEnd());
+        verify(outboxService).record(eq(EventType.BOOKING_CANCELED), eq(2L), any());
+        assertEquals(BookingStatus.CANCELED, second.getStatus());
+    }
+
+    @Test
+    void expireOverdue_whenDecidedConcurrently_thenReleaseOnlyCancelled() {
+        LocalDateTime now = LocalDateTime.now();
+        Booking cancelled = booking(1L, BookingStatus.CANCELED);
+        Booking approved = booking(2L, BookingStatus.APPROVED);
+        when(bookingStorage.findOverdue(now, PageRequest.of(0, 10)))
+                .thenReturn(List.of(booking(1L, BookingStatus.WAITING), booking(2L, BookingStatus.WAITING)));
+        when(bookingStorage.updateStatus(List.of(1L, 2L), BookingStatus.WAITING, BookingStatus.CANCELED)).thenReturn(1);
+        when(bookingStorage.findAllById(List.of(1L, 2L))).thenReturn(List.of(cancelled, approved));
+
+        int expired = bookingExpiryService.expireOverdue(now, 10);
+
+        assertEquals(1, expired);
+        verify(bookingIntervalIndex).release(1L, cancelled.getStart(), cancelled.getEnd());
+        verify(bookingIntervalIndex, times(1)).release(anyLong(), any(), any());
+        verify(outboxService, times(1)).record(eq(EventType.BOOKING_CANCELED), eq(1L), any());
+        verify(outboxService, times(1)).record(any(), anyLong(), any());
+    }
+
+    private static Booking booking(long id, BookingStatus status) {
+        Item item = new Item();
+        item.setId(1L);
+        Booking booking = new Booking();
+        booking.setId(id);
+        booking.setItem(item);
+        User booker = new User();
+        booker.setId(2L);
+        booking.setBooker(booker);
+        booking.setStatus(status);
+        booking.setStart(LocalDateTime.now().minusHours(id));
+        booking.setEnd(LocalDateTime.now().plusHours(id));
+        return booking;
+    }
+}
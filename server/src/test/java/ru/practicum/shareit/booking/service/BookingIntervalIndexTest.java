@@ -0,0 +1,129 @@
+package ru.practicum.shareit.booking.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.storage.BookingStorage;
+import ru.practicum.shareit.exceptions.BadRequestException;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class BookingIntervalIndexTest {
+    private static final LocalDateTime DAY = LocalDateTime.now().plusDays(10).withHour(0).withMinute(0).withSecond(0).withNano(0);
+
+    @Mock
+    private BookingStorage bookingStorage;
+
+    @InjectMocks
+    private BookingIntervalIndex bookingIntervalIndex;
+
+    @Test
+    void reserve_whenOverlapsStoredBooking_thenThrowException() {
+        Booking booking = new Booking();
+        booking.setStart(DAY.withHour(10));
+        booking.setEnd(DAY.withHour(12));
+        when(bookingStorage.findByItem_IdAndStatusInAndEndAfter(anyLong(), any(), any())).thenReturn(List.of(booking));
+
+        assertThrows(BadRequestException.class, () -> bookingIntervalIndex.reserve(1L, DAY.withHour(11), DAY.withHour(13)));
+        assertThrows(BadRequestException.class, () -> bookingIntervalIndex.reserve(1L, DAY.withHour(9), DAY.withHour(11)));
+        assertThrows(BadRequestException.class, () -> bookingIntervalIndex.reserve(1L, DAY.withHour(10), DAY.withHour(11)));
+        assertThrows(BadRequestException.class, () -> bookingIntervalIndex.reserve(1L, DAY.withHour(9), DAY.withHour(13)));
+    }
+
+    @Test
+    void reserve_whenAdjacent_thenReserve() {
+        when(bookingStorage.findByItem_IdAndStatusInAndEndAfter(anyLong(), any(), any())).thenReturn(Collections.emptyList());
+
+        bookingIntervalIndex.reserve(1L, DAY.withHour(10), DAY.withHour(12));
+
+        assertDoesNotThrow(() -> bookingIntervalIndex.reserve(1L, DAY.withHour(12), DAY.withHour(13)));
+        assertDoesNotThrow(() -> bookingIntervalIndex.reserve(1L, DAY.withHour(9), DAY.withHour(10)));
+        assertThrows(BadRequestException.class, () -> bookingIntervalIndex.reserve(1L, DAY.withHour(11), DAY.withHour(12)));
+    }
+
+    @Test
+    void reserve_whenOtherItem_thenIndependent() {
+        when(bookingStorage.findByItem_IdAndStatusInAndEndAfter(anyLong(), any(), any())).thenReturn(Collections.emptyList());
+
+        bookingIntervalIndex.reserve(1L, DAY.withHour(10), DAY.withHour(12));
+
+        assertDoesNotThrow(() -> bookingIntervalIndex.reserve(2L, DAY.withHour(10), DAY.withHour(12)));
+    }
+
+    @Test
+    void release_whenReleased_thenIntervalFree() {
+        when(bookingStorage.findByItem_IdAndStatusInAndEndAfter(anyLong(), any(), any())).thenReturn(Collections.emptyList());
+        bookingIntervalIndex.reserve(1L, DAY.withHour(10), DAY.withHour(12));
+        bookingIntervalIndex.reserve(1L, DAY.withHour(14), DAY.withHour(15));
+
+        bookingIntervalIndex.release(1L, DAY.withHour(10), DAY.withHour(12));
+
+        assertDoesNotThrow(() -> bookingIntervalIndex.reserve(1L, DAY.withHour(11), DAY.withHour(12)));
+        verify(bookingStorage, times(1)).findByItem_IdAndStatusInAndEndAfter(anyLong(), any(), any());
+    }
+
+    @Test
+    void release_whenLastInterval_thenItemDroppedAndLoadedAgain() {
+        when(bookingStorage.findByItem_IdAndStatusInAndEndAfter(anyLong(), any(), any())).thenReturn(Collections.emptyList());
+        bookingIntervalIndex.reserve(1L, DAY.withHour(10), DAY.withHour(12));
+
+        bookingIntervalIndex.release(1L, DAY.withHour(10), DAY.withHour(12));
+
+        assertEquals(0, bookingIntervalIndex.itemCount());
+        assertDoesNotThrow(() -> bookingIntervalIndex.reserve(1L, DAY.withHour(11), DAY.withHour(12)));
+        verify(bookingStorage, times(2)).findByItem_IdAndStatusInAndEndAfter(anyLong(), any(), any());
+    }
+
+    @Test
+    void sweep_whenIntervalsEnded_thenItemDropped() {
+        when(bookingStorage.findByItem_IdAndStatusInAndEndAfter(anyLong(), any(), any())).thenReturn(Collections.emptyList());
+        bookingIntervalIndex.reserve(1L, LocalDateTime.now().minusHours(3), LocalDateTime.now().minusHours(1));
+        bookingIntervalIndex.reserve(2L, DAY.withHour(10), DAY.withHour(12));
+
+        bookingIntervalIndex.sweep();
+
+        assertEquals(1, bookingIntervalIndex.itemCount());
+        assertThrows(BadRequestException.class, () -> bookingIntervalIndex.reserve(2L, DAY.withHour(11), DAY.withHour(13)));
+    }
+
+    @Test
+    void reload_whenBookedElsewhere_thenReadAgain() {
+        Booking booking = new Booking();
+        booking.setStart(DAY.withHour(10));
+        booking.setEnd(DAY.withHour(12));
+        when(bookingStorage.findByItem_IdAndStatusInAndEndAfter(anyLong(), any(), any()))
+                .thenReturn(Collections.emptyList(), List.of(booking));
+        bookingIntervalIndex.reserve(1L, DAY.withHour(14), DAY.withHour(15));
+
+        bookingIntervalIndex.reload(List.of(1L, 2L));
+
+        assertThrows(BadRequestException.class, () -> bookingIntervalIndex.reserve(1L, DAY.withHour(11), DAY.withHour(13)));
+        assertDoesNotThrow(() -> bookingIntervalIndex.reserve(1L, DAY.withHour(14), DAY.withHour(15)));
+        verify(bookingStorage, times(2)).findByItem_IdAndStatusInAndEndAfter(anyLong(), any(), any());
+    }
+
+    @Test
+    void reserve_whenStoredBookingEnded_thenPruned() {
+        Booking booking = new Booking();
+        booking.setStart(LocalDateTime.now().minusHours(2));
+        booking.setEnd(LocalDateTime.now().minusHours(1));
+        when(bookingStorage.findByItem_IdAndStatusInAndEndAfter(anyLong(), any(), any())).thenReturn(List.of(booking));
+
+        assertDoesNotThrow(() -> bookingIntervalIndex.reserve(1L, LocalDateTime.now().minusHours(3), DAY));
+    }
+}
@@ -3,34 +3,52 @@ package ru.practicum.shareit.booking.service;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.data.domain.Page;
+import org.postgresql.util.PSQLException;
+import org.postgresql.util.ServerErrorMessage;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.PageRequest;
-import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+import ru.practicum.shareit.booking.dto.BookingBatchResultDto;
+import ru.practicum.shareit.booking.dto.BookingDecisionDto;
 import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.lock.ItemLocks;
 import ru.practicum.shareit.booking.mapper.BookingMapper;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.model.BookingState;
 import ru.practicum.shareit.booking.model.BookingStatus;
 import ru.practicum.shareit.booking.storage.BookingStorage;
+import ru.practicum.shareit.event.model.EventType;
+import ru.practicum.shareit.event.service.OutboxService;
 import ru.practicum.shareit.exceptions.BadRequestException;
+import ru.practicum.shareit.exceptions.ConflictException;
 import ru.practicum.shareit.exceptions.UserNotFoundException;
 import ru.practicum.shareit.item.mapper.ItemMapper;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.service.BookingSnapshotService;
 import ru.practicum.shareit.item.storage.ItemStorage;
 import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.service.UserExistenceCache;
 import ru.practicum.shareit.user.storage.UserStorage;
 
 import javax.validation.Validator;
 import java.security.AccessControlException;
-import java.util.Collection;
+import java.time.LocalDateTime;
 import java.util.Collections;
+import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
@@ -46,6 +64,20 @@ class BookingServiceTest {
     private ItemStorage itemStorage;
     @Mock
     private Validator validator;
+    @Mock
+    private BookingSnapshotService bookingSnapshotService;
+    @Mock
+    private BookingIntervalIndex bookingIntervalIndex;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+    @Spy
+    private StatusRetryProperties retryProperties = new StatusRetryProperties();
+    @Mock
+    private ItemLocks itemLocks;
+    @Mock
+    private OutboxService outboxService;
+    @Mock
+    private UserExistenceCache userExistenceCache;
 
     @InjectMocks
     private BookingService bookingService;
@@ -57,7 +89,7 @@ class BookingServiceTest {
         when(itemStorage.findById(any())).thenReturn(Optional.empty());
 
         assertThrows(NoSuchElementException.class, () -> bookingService.create(expectedBookingDto, id));
-        verify(bookingStorage, never()).save(any());
+        verify(bookingStorage, never()).saveAndFlush(any());
     }
 
     @Test
@@ -65,11 +97,12 @@ class BookingServiceTest {
         BookingDto expectedBookingDto = new BookingDto();
         long id = 0L;
         Item item = new Item();
+        item.setId(1L);
         item.setAvailable(false);
         when(itemStorage.findById(any())).thenReturn(Optional.of(item));
 
         assertThrows(BadRequestException.class, () -> bookingService.create(expectedBookingDto, id));
-        verify(bookingStorage, never()).save(any());
+        verify(bookingStorage, never()).saveAndFlush(any());
     }
 
     @Test
@@ -77,12 +110,13 @@ class BookingServiceTest {
         BookingDto expectedBookingDto = new BookingDto();
         long id = 0L;
         Item item = new Item();
+        item.setId(1L);
         item.setAvailable(true);
         when(itemStorage.findById(any())).thenReturn(Optional.of(item));
-        when(userStorage.existsById(id)).thenReturn(false);
+        when(userExistenceCache.exists(id)).thenReturn(false);
 
         assertThrows(UserNotFoundException.class, () -> bookingService.create(expectedBookingDto, id));
-        verify(bookingStorage, never()).save(any());
+        verify(bookingStorage, never()).saveAndFlush(any());
     }
 
     @Test
@@ -90,15 +124,16 @@ class BookingServiceTest {
         BookingDto expectedBookingDto = new BookingDto();
         long id = 0L;
         Item item = new Item();
+        item.setId(1L);
         item.setAvailable(true);
         item.setOwnerId(id);
         expectedBookingDto.setItem(ItemMapper.mapToDto(item));
         when(itemStorage.findById(any())).thenReturn(Optional.of(item));
-        when(userStorage.existsById(id)).thenReturn(true);
+        when(userExistenceCache.exists(id)).thenReturn(true);
         when(userStorage.findById(id)).thenReturn(Optional.of(new User()));
 
         assertThrows(AccessControlException.class, () -> bookingService.create(expectedBookingDto, id));
-        verify(bookingStorage, never()).save(any());
+        verify(bookingStorage, never()).saveAndFlush(any());
     }
 
     @Test
@@ -106,17 +141,167 @@ class BookingServiceTest {
         BookingDto expectedBookingDto = new BookingDto();
         long id = 0L;
         Item item = new Item();
+        item.setId(1L);
         item.setAvailable(true);
         item.setOwnerId(id + 1);
         expectedBookingDto.setItem(ItemMapper.mapToDto(item));
         when(itemStorage.findById(any())).thenReturn(Optional.of(item));
-        when(userStorage.existsById(id)).thenReturn(true);
+        when(userExistenceCache.exists(id)).thenReturn(true);
         when(userStorage.findById(id)).thenReturn(Optional.of(new User()));
-        when(bookingStorage.save(any())).thenReturn(BookingMapper.mapToBooking(expectedBookingDto));
+        when(bookingStorage.saveAndFlush(any())).thenAnswer(invocation -> {
+            Booking saved = invocation.getArgument(0);
+            saved.setId(5L);
+            return saved;
+        });
 
         BookingDto actualBookingDto = bookingService.create(expectedBookingDto, id);
 
-        verify(bookingStorage).save(any());
+        verify(itemLocks).lock(1L);
+        verify(bookingIntervalIndex, never()).reload(any());
+        verify(bookingIntervalIndex).reserve(1L, expectedBookingDto.getStart(), expectedBookingDto.getEnd());
+        verify(bookingStorage).saveAndFlush(any());
+        verify(outboxService).record(EventType.BOOKING_CREATED, actualBookingDto.getId(), actualBookingDto);
+    }
+
+    @Test
+    void create_whenLocksSpanInstances_thenReloadIntervalsUnderLock() {
+        BookingDto bookingDto = new BookingDto();
+        Item item = new Item();
+        item.setId(1L);
+        item.setAvailable(true);
+        item.setOwnerId(1L);
+        bookingDto.setItem(ItemMapper.mapToDto(item));
+        when(itemStorage.findById(any())).thenReturn(Optional.of(item));
+        when(itemLocks.spansInstances()).thenReturn(true);
+        when(userExistenceCache.exists(0L)).thenReturn(true);
+        when(userStorage.findById(0L)).thenReturn(Optional.of(new User()));
+        when(bookingStorage.saveAndFlush(any())).thenAnswer(invocation -> {
+            Booking saved = invocation.getArgument(0);
+            saved.setId(5L);
+            return saved;
+        });
+
+        bookingService.create(bookingDto, 0L);
+
+        InOrder inOrder = inOrder(itemLocks, bookingIntervalIndex);
+        inOrder.verify(itemLocks).lock(1L);
+        inOrder.verify(bookingIntervalIndex).reload(List.of(1L));
+        inOrder.verify(bookingIntervalIndex).reserve(1L, bookingDto.getStart(), bookingDto.getEnd());
+    }
+
+    @Test
+    void create_whenOverlaps_thenThrowException() {
+        BookingDto bookingDto = new BookingDto();
+        bookingDto.setStart(LocalDateTime.now().plusDays(1));
+        bookingDto.setEnd(LocalDateTime.now().plusDays(2));
+        long id = 0L;
+        Item item = new Item();
+        item.setId(1L);
+        item.setAvailable(true);
+        item.setOwnerId(id + 1);
+        when(itemStorage.findById(any())).thenReturn(Optional.of(item));
+        when(userExistenceCache.exists(id)).thenReturn(true);
+        when(userStorage.findById(id)).thenReturn(Optional.of(new User()));
+        doThrow(BadRequestException.class).when(bookingIntervalIndex).reserve(1L, bookingDto.getStart(), bookingDto.getEnd());
+
+        assertThrows(BadRequestException.class, () -> bookingService.create(bookingDto, id));
+        verify(bookingStorage, never()).saveAndFlush(any());
+    }
+
+    @Test
+    void createAll_whenUserNotExist_thenThrowException() {
+        long id = 0L;
+        when(userStorage.findById(id)).thenReturn(Optional.empty());
+
+        assertThrows(UserNotFoundException.class, () -> bookingService.createAll(List.of(new BookingDto()), id));
+        verify(bookingStorage, never()).saveAllAndFlush(any());
+    }
+
+    @Test
+    void createAll_whenEmpty_thenThrowException() {
+        assertThrows(BadRequestException.class, () -> bookingService.createAll(List.of(), 0L));
+        verify(bookingStorage, never()).saveAllAndFlush(any());
+    }
+
+    @Test
+    void createAll_whenSomeInvalid_thenSaveOthersAndReportErrors() {
+        long userId = 0L;
+        Item available = new Item();
+        available.setId(1L);
+        available.setAvailable(true);
+        available.setOwnerId(userId + 1);
+        Item unavailable = new Item();
+        unavailable.setId(2L);
+        unavailable.setAvailable(false);
+        BookingDto valid = new BookingDto();
+        valid.setItemId(1L);
+        valid.setStart(LocalDateTime.now().plusDays(1));
+        valid.setEnd(LocalDateTime.now().plusDays(2));
+        BookingDto notAvailable = new BookingDto();
+        notAvailable.setItemId(2L);
+        BookingDto missingItem = new BookingDto();
+        missingItem.setItemId(3L);
+        BookingDto overlapping = new BookingDto();
+        overlapping.setItemId(1L);
+        overlapping.setStart(valid.getStart());
+        overlapping.setEnd(valid.getEnd().plusHours(1));
+        when(userStorage.findById(userId)).thenReturn(Optional.of(new User()));
+        when(itemStorage.findAllById(any())).thenReturn(List.of(available, unavailable));
+        lenient().doThrow(new BadRequestException("overlap")).when(bookingIntervalIndex)
+                .reserve(1L, overlapping.getStart(), overlapping.getEnd());
+        when(bookingStorage.saveAllAndFlush(any())).thenAnswer(invocation -> {
+            List<Booking> bookings = invocation.getArgument(0);
+            bookings.forEach(booking -> booking.setId(10L));
+            return bookings;
+        });
+
+        List<BookingBatchResultDto> results = bookingService.createAll(List.of(valid, notAvailable, missingItem, overlapping),
+                userId);
+
+        assertEquals(4, results.size());
+        assertEquals(10L, results.get(0).getBooking().getId());
+        assertEquals("Item is not available", results.get(1).getError());
+        assertEquals("Item 3 not found", results.get(2).getError());
+        assertEquals("overlap", results.get(3).getError());
+        assertEquals(3, results.get(3).getIndex());
+        verify(itemLocks).lock(Set.of(1L, 2L));
+        verify(bookingIntervalIndex).reserve(1L, valid.getStart(), valid.getEnd());
+    }
+
+    @Test
+    void createAll_whenDatabaseRejectsOverlap_thenRetryWithReloadedIntervals() {
+        long userId = 0L;
+        Item item = new Item();
+        item.setId(1L);
+        item.setAvailable(true);
+        item.setOwnerId(userId + 1);
+        BookingDto first = new BookingDto();
+        first.setItemId(1L);
+        first.setStart(LocalDateTime.now().plusDays(1));
+        first.setEnd(LocalDateTime.now().plusDays(2));
+        BookingDto bookedElsewhere = new BookingDto();
+        bookedElsewhere.setItemId(1L);
+        bookedElsewhere.setStart(LocalDateTime.now().plusDays(3));
+        bookedElsewhere.setEnd(LocalDateTime.now().plusDays(4));
+        when(userStorage.findById(userId)).thenReturn(Optional.of(new User()));
+        when(itemStorage.findAllById(any())).thenReturn(List.of(item));
+        lenient().doNothing().doThrow(new BadRequestException("overlap")).when(bookingIntervalIndex)
+                .reserve(1L, bookedElsewhere.getStart(), bookedElsewhere.getEnd());
+        when(bookingStorage.saveAllAndFlush(any()))
+                .thenThrow(new DataIntegrityViolationException("", new PSQLException(
+                        new ServerErrorMessage("C23P01\0Mconflicting key value violates exclusion constraint"))))
+                .thenAnswer(invocation -> {
+                    List<Booking> bookings = invocation.getArgument(0);
+                    bookings.forEach(booking -> booking.setId(10L));
+                    return bookings;
+                });
+
+        List<BookingBatchResultDto> results = bookingService.createAll(List.of(first, bookedElsewhere), userId);
+
+        assertEquals(10L, results.get(0).getBooking().getId());
+        assertEquals("overlap", results.get(1).getError());
+        verify(bookingIntervalIndex).reload(Set.of(1L));
+        verify(bookingStorage, times(2)).saveAllAndFlush(any());
     }
 
     @Test
@@ -126,7 +311,7 @@ class BookingServiceTest {
         when(bookingStorage.findById(id)).thenReturn(Optional.empty());
 
         assertThrows(NoSuchElementException.class, () -> bookingService.setStatus(id, isApproved, id));
-        verify(bookingStorage, never()).save(any());
+        verify(bookingStorage, never()).saveAndFlush(any());
     }
 
     @Test
@@ -140,7 +325,7 @@ class BookingServiceTest {
         when(bookingStorage.findById(id)).thenReturn(Optional.of(booking));
 
         assertThrows(AccessControlException.class, () -> bookingService.setStatus(id, isApproved, id));
-        verify(bookingStorage, never()).save(any());
+        verify(bookingStorage, never()).saveAndFlush(any());
     }
 
     @Test
@@ -155,7 +340,7 @@ class BookingServiceTest {
         when(bookingStorage.findById(id)).thenReturn(Optional.of(booking));
 
         assertThrows(BadRequestException.class, () -> bookingService.setStatus(id, isApproved, id));
-        verify(bookingStorage, never()).save(any());
+        verify(bookingStorage, never()).saveAndFlush(any());
     }
 
     @Test
@@ -163,18 +348,21 @@ class BookingServiceTest {
         long id = 0L;
         boolean isApproved = true;
         Booking booking = new Booking();
+        booking.setId(id);
         booking.setStatus(BookingStatus.WAITING);
         Item item = new Item();
         item.setOwnerId(id);
         booking.setItem(item);
         ArgumentCaptor<Booking> argument = ArgumentCaptor.forClass(Booking.class);
         when(bookingStorage.findById(id)).thenReturn(Optional.of(booking));
-        when(bookingStorage.save(any())).thenReturn(booking);
+        when(bookingStorage.saveAndFlush(any())).thenReturn(booking);
 
         bookingService.setStatus(id, isApproved, id);
 
-        verify(bookingStorage).save(argument.capture());
+        verify(bookingStorage).saveAndFlush(argument.capture());
         assertEquals(BookingStatus.APPROVED, argument.getValue().getStatus());
+        verify(bookingSnapshotService).onApproved(booking);
+        verify(outboxService).record(eq(EventType.BOOKING_APPROVED), eq(id), any());
     }
 
     @Test
@@ -182,18 +370,115 @@ class BookingServiceTest {
         long id = 0L;
         boolean isApproved = false;
         Booking booking = new Booking();
+        booking.setId(id);
         booking.setStatus(BookingStatus.WAITING);
         Item item = new Item();
+        item.setId(1L);
         item.setOwnerId(id);
         booking.setItem(item);
         ArgumentCaptor<Booking> argument = ArgumentCaptor.forClass(Booking.class);
         when(bookingStorage.findById(id)).thenReturn(Optional.of(booking));
-        when(bookingStorage.save(any())).thenReturn(booking);
+        when(bookingStorage.saveAndFlush(any())).thenReturn(booking);
 
         bookingService.setStatus(id, isApproved, id);
 
-        verify(bookingStorage).save(argument.capture());
+        verify(bookingStorage).saveAndFlush(argument.capture());
         assertEquals(BookingStatus.REJECTED, argument.getValue().getStatus());
+        verify(bookingSnapshotService, never()).onApproved(any());
+        verify(bookingIntervalIndex).release(item.getId(), booking.getStart(), booking.getEnd());
+    }
+
+    @Test
+    void setStatus_whenConcurrentlyApproved_thenRetryAndReturnApproved() {
+        long id = 0L;
+        Item item = new Item();
+        item.setOwnerId(id);
+        Booking waiting = booking(1L, item, BookingStatus.WAITING);
+        Booking approved = booking(1L, item, BookingStatus.APPROVED);
+        when(bookingStorage.findById(1L)).thenReturn(Optional.of(waiting), Optional.of(approved));
+        when(bookingStorage.saveAndFlush(any()))
+                .thenThrow(new ObjectOptimisticLockingFailureException(Booking.class, 1L));
+
+        BookingDto bookingDto = bookingService.setStatus(1L, true, id);
+
+        assertEquals(BookingStatus.APPROVED, bookingDto.getStatus());
+        verify(bookingStorage).saveAndFlush(any());
+        verify(bookingSnapshotService, never()).onApproved(any());
+    }
+
+    @Test
+    void setStatus_whenConcurrentlyRejected_thenRetryAndThrowException() {
+        long id = 0L;
+        Item item = new Item();
+        item.setOwnerId(id);
+        when(bookingStorage.findById(1L)).thenReturn(Optional.of(booking(1L, item, BookingStatus.WAITING)),
+                Optional.of(booking(1L, item, BookingStatus.REJECTED)));
+        when(bookingStorage.saveAndFlush(any()))
+                .thenThrow(new ObjectOptimisticLockingFailureException(Booking.class, 1L));
+
+        assertThrows(BadRequestException.class, () -> bookingService.setStatus(1L, true, id));
+    }
+
+    @Test
+    void setStatus_whenConflictPersists_thenThrowConflict() {
+        long id = 0L;
+        Item item = new Item();
+        item.setOwnerId(id);
+        retryProperties.setBackoffMs(0);
+        when(bookingStorage.findById(1L)).thenAnswer(invocation -> Optional.of(booking(1L, item, BookingStatus.WAITING)));
+        when(bookingStorage.saveAndFlush(any()))
+                .thenThrow(new ObjectOptimisticLockingFailureException(Booking.class, 1L));
+
+        assertThrows(ConflictException.class, () -> bookingService.setStatus(1L, true, id));
+        verify(bookingStorage, times(retryProperties.getMaxAttempts())).saveAndFlush(any());
+    }
+
+    @Test
+    void decideAll_whenSomeInvalid_thenUpdateOthersAndReportErrors() {
+        long userId = 0L;
+        Item own = new Item();
+        own.setId(1L);
+        own.setOwnerId(userId);
+        Item foreign = new Item();
+        foreign.setId(2L);
+        foreign.setOwnerId(userId + 1);
+        Booking toApprove = booking(1L, own, BookingStatus.WAITING);
+        Booking toReject = booking(2L, own, BookingStatus.WAITING);
+        Booking decided = booking(3L, own, BookingStatus.APPROVED);
+        Booking notOwned = booking(4L, foreign, BookingStatus.WAITING);
+        when(bookingStorage.findAllWithItemAndBooker(any())).thenReturn(List.of(toApprove, toReject, decided, notOwned));
+        when(bookingStorage.updateStatus(List.of(1L), BookingStatus.WAITING, BookingStatus.APPROVED)).thenReturn(1);
+        when(bookingStorage.updateStatus(List.of(2L), BookingStatus.WAITING, BookingStatus.REJECTED)).thenReturn(1);
+
+        List<BookingBatchResultDto> results = bookingService.decideAll(List.of(
+                new BookingDecisionDto(1L, true),
+                new BookingDecisionDto(2L, false),
+                new BookingDecisionDto(3L, false),
+                new BookingDecisionDto(4L, true),
+                new BookingDecisionDto(5L, true)), userId);
+
+        assertEquals(BookingStatus.APPROVED, results.get(0).getBooking().getStatus());
+        assertEquals(BookingStatus.REJECTED, results.get(1).getBooking().getStatus());
+        assertEquals("Can't change status after decision", results.get(2).getError());
+        assertEquals("User 0 is not owner of the item", results.get(3).getError());
+        assertEquals("Booking 5 not found", results.get(4).getError());
+        verify(bookingSnapshotService).onApproved(toApprove);
+        verify(bookingIntervalIndex).release(own.getId(), toReject.getStart(), toReject.getEnd());
+        verify(bookingStorage, never()).saveAndFlush(any());
+    }
+
+    @Test
+    void decideAll_whenDecidedConcurrently_thenThrowException() {
+        long userId = 0L;
+        Item item = new Item();
+        item.setId(1L);
+        item.setOwnerId(userId);
+        when(bookingStorage.findAllWithItemAndBooker(any())).thenReturn(List.of(booking(1L, item, BookingStatus.WAITING)));
+        when(bookingStorage.updateStatus(List.of(1L), BookingStatus.WAITING, BookingStatus.APPROVED)).thenReturn(0);
+
+        assertThrows(ConflictException.class,
+                () -> bookingService.decideAll(List.of(new BookingDecisionDto(1L, true)), userId));
+        verify(bookingSnapshotService, never()).onApproved(any());
     }
 
     @Test
@@ -243,9 +528,9 @@ class BookingServiceTest {
         int size = 1;
         boolean isOwner = true;
         BookingState state = BookingState.ALL;
-        when(userStorage.existsById(id)).thenReturn(false);
+        when(userExistenceCache.exists(id)).thenReturn(false);
 
-        assertThrows(UserNotFoundException.class, () -> bookingService.findBookingsForUserOrOwner(id, state, isOwner, from, size));
+        assertThrows(UserNotFoundException.class, () -> bookingService.findBookingsForUserOrOwner(id, state, isOwner, from, size, null));
     }
 
     @Test
@@ -255,11 +540,24 @@ class BookingServiceTest {
         int size = 1;
         boolean isOwner = true;
         BookingState state = BookingState.ALL;
-        when(userStorage.existsById(id)).thenReturn(true);
-        when(bookingStorage.findAll(any(Specification.class), any(PageRequest.class))).thenReturn(Page.empty());
+        when(userExistenceCache.exists(id)).thenReturn(true);
+        when(bookingStorage.findForUser(eq(id), eq(isOwner), eq(state), any(LocalDateTime.class), isNull(), any(PageRequest.class)))
+                .thenReturn(new SliceImpl<>(List.of()));
 
-        Collection<BookingDto> collection = bookingService.findBookingsForUserOrOwner(id, state, isOwner, from, size);
+        Slice<BookingDto> slice = bookingService.findBookingsForUserOrOwner(id, state, isOwner, from, size, null);
 
-        assertEquals(Collections.emptyList(), collection);
+        assertEquals(Collections.emptyList(), slice.getContent());
+        assertFalse(slice.hasNext());
+    }
+
+    private static Booking booking(long id, Item item, BookingStatus status) {
+        Booking booking = new Booking();
+        booking.setId(id);
+        booking.setItem(item);
+        booking.setBooker(new User());
+        booking.setStatus(status);
+        booking.setStart(LocalDateTime.now().plusDays(id));
+        booking.setEnd(LocalDateTime.now().plusDays(id + 1));
+        return booking;
     }
 }
\ No newline at end of file
@@ -0,0 +1,121 @@
+package ru.practicum.shareit.booking.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.event.dto.EventDto;
+import ru.practicum.shareit.event.service.EventFeed;
+import ru.practicum.shareit.exceptions.UserNotFoundException;
+import ru.practicum.shareit.user.dto.UserDto;
+import ru.practicum.shareit.user.service.UserExistenceCache;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class BookingStatusStreamTest {
+    @Mock
+    private UserExistenceCache userExistenceCache;
+    @Mock
+    private EventFeed eventFeed;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private final AtomicInteger tasks = new AtomicInteger();
+    private SimpleMeterRegistry meterRegistry;
+    private BookingStatusStream bookingStatusStream;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        bookingStatusStream = new BookingStatusStream(userExistenceCache, eventFeed, objectMapper, task -> {
+            tasks.incrementAndGet();
+            task.run();
+        }, meterRegistry, 1000L);
+    }
+
+    @Test
+    void subscribe_whenUserNotExist_thenThrowException() {
+        when(userExistenceCache.exists(1L)).thenReturn(false);
+
+        assertThrows(UserNotFoundException.class, () -> bookingStatusStream.subscribe(1L));
+        assertEquals(0, meterRegistry.get("shareit.bookings.stream.connections").gauge().value());
+    }
+
+    @Test
+    void publish_whenBookerSubscribed_thenSendAndRecordFanOut() {
+        when(userExistenceCache.exists(1L)).thenReturn(true);
+        bookingStatusStream.subscribe(1L);
+        bookingStatusStream.subscribe(1L);
+
+        bookingStatusStream.publish(booking(1L), LocalDateTime.now());
+
+        assertEquals(2, meterRegistry.get("shareit.bookings.stream.connections").gauge().value());
+        assertEquals(1, meterRegistry.get("shareit.bookings.stream.fanout").timer().count());
+    }
+
+    @Test
+    void publish_whenBookerNotSubscribed_thenSendNothing() {
+        when(userExistenceCache.exists(1L)).thenReturn(true);
+        bookingStatusStream.subscribe(1L);
+
+        bookingStatusStream.publish(booking(2L), LocalDateTime.now());
+
+        assertEquals(0, meterRegistry.get("shareit.bookings.stream.fanout").timer().count());
+    }
+
+    @Test
+    void tail_whenStatusChangePublished_thenSendToBookerAndTimeFromChange() throws Exception {
+        when(userExistenceCache.exists(1L)).thenReturn(true);
+        bookingStatusStream.subscribe(1L);
+        when(eventFeed.lastPosition()).thenReturn(5L);
+        String payload = objectMapper.writeValueAsString(booking(1L));
+        LocalDateTime changed = LocalDateTime.now().minusSeconds(3);
+        when(eventFeed.read(5L, 200)).thenReturn(List.of(
+                new EventDto(6L, "BOOKING_CREATED", 10L, changed, payload),
+                new EventDto(7L, "BOOKING_APPROVED", 10L, changed, payload)));
+
+        bookingStatusStream.tail();
+        bookingStatusStream.tail();
+        bookingStatusStream.tail();
+
+        Timer fanOut = meterRegistry.get("shareit.bookings.stream.fanout").timer();
+        assertEquals(1, fanOut.count());
+        assertTrue(fanOut.totalTime(TimeUnit.SECONDS) >= 3);
+        verify(eventFeed).read(7L, 200);
+    }
+
+    @Test
+    void heartbeat_whenConnected_thenSendOnlyThen() {
+        bookingStatusStream.heartbeat();
+        assertEquals(0, tasks.get());
+
+        when(userExistenceCache.exists(1L)).thenReturn(true);
+        bookingStatusStream.subscribe(1L);
+        bookingStatusStream.heartbeat();
+
+        assertEquals(1, tasks.get());
+    }
+
+    private static BookingDto booking(long bookerId) {
+        BookingDto booking = new BookingDto();
+        booking.setId(10L);
+        booking.setStatus(BookingStatus.APPROVED);
+        booking.setBooker(new UserDto(bookerId, "booker", "booker@mail.ru"));
+        return booking;
+    }
+}
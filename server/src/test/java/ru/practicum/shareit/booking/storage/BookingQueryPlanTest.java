@@ -0,0 +1,70 @@
+package ru.practicum.shareit.booking.storage;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import ru.practicum.shareit.booking.model.BookingState;
+import ru.practicum.shareit.utils.Cursor;
+import ru.practicum.shareit.utils.SqlCapture;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * Checks that every booking list query is served by an index: the SQL Hibernate runs for it
+ * is explained on the test database and the plan must not contain a table scan.
+ */
+@DataJpaTest(properties = SqlCapture.PROPERTY + "=ru.practicum.shareit.utils.SqlCapture")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
+class BookingQueryPlanTest {
+    @Autowired
+    private BookingStorage bookingStorage;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void addData() {
+        jdbcTemplate.update("INSERT INTO users (id, name, email) SELECT X, 'user' || X, X || '@email.com' FROM SYSTEM_RANGE(1, 100)");
+        jdbcTemplate.update("INSERT INTO items (id, name, description, available, owner_id) "
+                + "SELECT X, 'item' || X, 'desc', true, MOD(X, 100) + 1 FROM SYSTEM_RANGE(1, 500)");
+        jdbcTemplate.update("INSERT INTO bookings (id, start_date, end_date, item_id, booker_id, status) "
+                + "SELECT X, DATEADD(HOUR, X, TIMESTAMP '2023-01-01 00:00:00'), DATEADD(HOUR, X + 2, TIMESTAMP '2023-01-01 00:00:00'), "
+                + "MOD(X, 500) + 1, MOD(X, 100) + 1, CASE MOD(X, 3) WHEN 0 THEN 1 ELSE 2 END "
+                + "FROM SYSTEM_RANGE(1, 5000)");
+        jdbcTemplate.execute("ANALYZE");
+    }
+
+    @Test
+    void listQueries_whenExplained_thenNoTableScan() {
+        for (boolean isOwner : new boolean[]{false, true}) {
+            for (BookingState state : BookingState.values()) {
+                for (boolean keyset : new boolean[]{false, true}) {
+                    String sql = listSql(isOwner, state, keyset);
+
+                    String plan = explain(sql);
+
+                    assertFalse(plan.contains("tableScan"),
+                            (isOwner ? "owner " : "booker ") + state + (keyset ? " keyset" : "") + " query scans a table:\n" + plan);
+                }
+            }
+        }
+    }
+
+    private String listSql(boolean isOwner, BookingState state, boolean keyset) {
+        LocalDateTime now = LocalDateTime.of(2023, 3, 1, 0, 0);
+        Cursor after = keyset ? Cursor.of(now, 1000L) : null;
+        return SqlCapture.of(() -> bookingStorage.findForUser(1L, isOwner, state, now, after, PageRequest.of(0, 10)));
+    }
+
+    private String explain(String sql) {
+        List<String> plan = jdbcTemplate.query(connection -> connection.prepareStatement("EXPLAIN " + sql),
+                (resultSet, rowNum) -> resultSet.getString(1));
+        return String.join("\n", plan);
+    }
+}
@@ -4,18 +4,27 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.test.annotation.DirtiesContext;
 import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingState;
 import ru.practicum.shareit.booking.model.BookingStatus;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.storage.ItemStorage;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.storage.UserStorage;
+import ru.practicum.shareit.utils.Cursor;
 
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.List;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @DataJpaTest
@@ -73,37 +82,137 @@ class BookingStorageTest {
     }
 
     @Test
-    void findByItemOwnerId() {
-        long ownerId = 1L;
-        Item item1 = new Item();
-        item1.setId(1L);
-        item1.setOwnerId(1L);
-        item1.setName("first");
-        item1.setDescription("firstDesc");
-        item1.setAvailable(true);
+    void findLastAndNext() {
+        LocalDateTime now = LocalDateTime.now().plusMinutes(7);
+
+        List<ItemBookingView> list = bookingStorage.findLastAndNext(List.of(1L, 2L), now);
+
+        assertEquals(2, list.size());
+        ItemBookingView last = list.stream().filter(ItemBookingView::isLast).findFirst().orElseThrow();
+        assertEquals(1L, last.getId());
+        assertEquals(1L, last.getItemId());
+        assertEquals(2L, last.getBookerId());
+        assertEquals(BookingStatus.APPROVED, last.getStatus());
+        assertTrue(last.getEnd().isAfter(last.getStart()));
+        ItemBookingView next = list.stream().filter(booking -> !booking.isLast()).findFirst().orElseThrow();
+        assertEquals(2L, next.getId());
+        assertEquals(2L, next.getItemId());
+    }
 
-        List<Booking> list = bookingStorage.findByItemOwnerId(ownerId, List.of(item1));
+    @Test
+    void findLastAndNext_whenSeveralBookings_thenOnlyClosestPerItem() {
+        Booking later = new Booking();
+        later.setStart(LocalDateTime.now().plusMinutes(20));
+        later.setEnd(LocalDateTime.now().plusMinutes(30));
+        later.setItem(itemStorage.getReferenceById(2L));
+        later.setBooker(userStorage.getReferenceById(1L));
+        later.setStatus(BookingStatus.APPROVED);
+        bookingStorage.save(later);
+        Booking waiting = new Booking();
+        waiting.setStart(LocalDateTime.now().plusMinutes(6));
+        waiting.setEnd(LocalDateTime.now().plusMinutes(7));
+        waiting.setItem(itemStorage.getReferenceById(2L));
+        waiting.setBooker(userStorage.getReferenceById(1L));
+        waiting.setStatus(BookingStatus.WAITING);
+        bookingStorage.save(waiting);
+
+        List<ItemBookingView> list = bookingStorage.findLastAndNext(List.of(2L), LocalDateTime.now());
 
         assertEquals(1, list.size());
-        assertEquals(1, list.get(0).getId());
+        assertEquals(2L, list.get(0).getId());
+        assertFalse(list.get(0).isLast());
     }
 
     @Test
-    void findByItemId() {
-        long itemId = 2L;
-        List<Booking> list = bookingStorage.findByItemId(itemId);
+    void findApprovedPeriods() {
+        LocalDateTime now = LocalDateTime.now();
 
-        assertEquals(1, list.size());
-        assertEquals("second", list.get(0).getItem().getName());
+        List<BookingPeriod> periods = bookingStorage.findApprovedPeriods(1L, now, now.plusHours(1));
+        List<BookingPeriod> outside = bookingStorage.findApprovedPeriods(1L, now, now.plusMinutes(4));
+
+        assertEquals(1, periods.size());
+        assertTrue(periods.get(0).getEnd().isAfter(periods.get(0).getStart()));
+        assertTrue(outside.isEmpty());
+    }
+
+    @Test
+    void updateStatus() {
+        bookingStorage.updateStatus(List.of(1L), BookingStatus.APPROVED, BookingStatus.WAITING);
+
+        int updated = bookingStorage.updateStatus(List.of(1L, 2L), BookingStatus.WAITING, BookingStatus.REJECTED);
+
+        assertEquals(1, updated);
+        List<Booking> bookings = bookingStorage.findAllWithItemAndBooker(List.of(1L, 2L));
+        assertEquals(BookingStatus.REJECTED, bookings.stream().filter(b -> b.getId() == 1L).findFirst().orElseThrow().getStatus());
+        assertEquals(BookingStatus.APPROVED, bookings.stream().filter(b -> b.getId() == 2L).findFirst().orElseThrow().getStatus());
     }
 
     @Test
-    void existsByBooker_IdAndEndBeforeAndStatus() {
+    void save_whenChangedConcurrently_thenThrowException() {
+        Booking stale = bookingStorage.findById(1L).orElseThrow();
+        bookingStorage.updateStatus(List.of(1L), BookingStatus.APPROVED, BookingStatus.WAITING);
+        stale.setStatus(BookingStatus.REJECTED);
+
+        assertThrows(ObjectOptimisticLockingFailureException.class, () -> bookingStorage.saveAndFlush(stale));
+    }
+
+    @Test
+    void findOverdue() {
+        bookingStorage.updateStatus(List.of(1L, 2L), BookingStatus.APPROVED, BookingStatus.WAITING);
+        LocalDateTime now = LocalDateTime.now().plusMinutes(7);
+
+        List<Booking> overdue = bookingStorage.findOverdue(now, PageRequest.of(0, 10));
+        long count = bookingStorage.countOverdue(now);
+
+        assertEquals(List.of(1L), overdue.stream().map(Booking::getId).collect(Collectors.toList()));
+        assertEquals(1L, overdue.get(0).getItem().getId());
+        assertEquals(1L, count);
+    }
+
+    @Test
+    void existsApprovedEndedBefore() {
         long bookerId = 2L;
         LocalDateTime end = LocalDateTime.now().plusMinutes(11);
-        BookingStatus status = BookingStatus.APPROVED;
-        boolean exist = bookingStorage.existsByBooker_IdAndEndBeforeAndStatus(bookerId, end, status);
 
-        assertTrue(exist);
+        assertTrue(bookingStorage.existsApprovedEndedBefore(bookerId, end));
+        bookingStorage.updateStatus(List.of(1L, 2L), BookingStatus.APPROVED, BookingStatus.WAITING);
+        assertFalse(bookingStorage.existsApprovedEndedBefore(bookerId, end));
+    }
+
+    @Test
+    void findForUser() {
+        Booking another = new Booking();
+        another.setStart(LocalDateTime.now().plusMinutes(1));
+        another.setEnd(LocalDateTime.now().plusMinutes(2));
+        another.setItem(itemStorage.getReferenceById(2L));
+        another.setBooker(userStorage.getReferenceById(1L));
+        another.setStatus(BookingStatus.WAITING);
+        bookingStorage.save(another);
+        LocalDateTime now = LocalDateTime.now();
+
+        Slice<BookingView> first = bookingStorage.findForUser(1L, false, BookingState.ALL, now, null, PageRequest.of(0, 1));
+        Slice<BookingView> second = bookingStorage.findForUser(1L, false, BookingState.ALL, now, null, PageRequest.of(1, 1));
+        Slice<BookingView> waiting = bookingStorage.findForUser(2L, true, BookingState.WAITING, now, null, PageRequest.of(0, 5));
+
+        assertEquals(2L, first.getContent().get(0).getId());
+        assertEquals(1L, first.getContent().get(0).getBookerId());
+        assertTrue(first.hasNext());
+        assertEquals(3L, second.getContent().get(0).getId());
+        assertFalse(second.hasNext());
+        assertEquals(List.of(another.getId()), waiting.map(BookingView::getId).getContent());
+    }
+
+    @Test
+    void findForUser_whenCursorGiven_thenContinueAfterIt() {
+        Booking booking = bookingStorage.findById(2L).orElseThrow();
+        Cursor after = Cursor.of(booking.getStart().truncatedTo(ChronoUnit.SECONDS), booking.getId());
+
+        Slice<BookingView> owner = bookingStorage.findForUser(2L, true, BookingState.FUTURE, LocalDateTime.now(), after,
+                PageRequest.of(0, 5));
+        Slice<BookingView> booker = bookingStorage.findForUser(2L, false, BookingState.FUTURE, LocalDateTime.now(), after,
+                PageRequest.of(0, 5));
+
+        assertTrue(owner.getContent().isEmpty());
+        assertEquals(List.of(1L), booker.map(BookingView::getId).getContent());
     }
-}
\ No newline at end of file
+}
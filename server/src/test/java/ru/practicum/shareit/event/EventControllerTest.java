@@ -0,0 +1,61 @@
+package ru.practicum.shareit.event;
+
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.web.context.request.async.DeferredResult;
+import ru.practicum.shareit.event.dto.EventDto;
+import ru.practicum.shareit.event.model.EventType;
+import ru.practicum.shareit.event.service.EventFeed;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(EventController.class)
+class EventControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+    @MockBean
+    private EventFeed eventFeed;
+
+    @SneakyThrows
+    @Test
+    void getEvents_thenReturnEventsWithRawPayload() {
+        DeferredResult<List<EventDto>> result = new DeferredResult<>();
+        result.setResult(List.of(new EventDto(5L, EventType.BOOKING_APPROVED.name(), 3L, LocalDateTime.now(),
+                "{\"id\":3}")));
+        when(eventFeed.poll(4L, 100)).thenReturn(result);
+
+        MvcResult mvcResult = mockMvc.perform(get("/events").param("after", "4"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(mvcResult))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].position").value(5))
+                .andExpect(jsonPath("$[0].payload.id").value(3));
+    }
+
+    @SneakyThrows
+    @Test
+    void getEvents_whenLimitTooLarge_thenBadRequest() {
+        mockMvc.perform(get("/events").param("limit", "5000"))
+                .andExpect(status().is4xxClientError());
+
+        verify(eventFeed, never()).poll(0L, 5000);
+    }
+}
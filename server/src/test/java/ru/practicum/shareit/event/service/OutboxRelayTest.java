@@ -0,0 +1,74 @@
+package ru.practicum.shareit.event.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+import ru.practicum.shareit.event.dto.EventDto;
+import ru.practicum.shareit.event.model.EventType;
+import ru.practicum.shareit.event.model.OutboxEvent;
+import ru.practicum.shareit.event.sink.EventSink;
+import ru.practicum.shareit.event.storage.OutboxStorage;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class OutboxRelayTest {
+    @Mock
+    private OutboxStorage outboxStorage;
+    @Mock
+    private EventSink eventSink;
+    @Mock
+    private EventFeed eventFeed;
+
+    @InjectMocks
+    private OutboxRelay outboxRelay;
+
+    @Test
+    void relay_whenNothingUnpublished_thenPublishNothing() {
+        when(outboxStorage.lockUnpublished(PageRequest.of(0, 10))).thenReturn(List.of());
+
+        assertEquals(0, outboxRelay.relay(10));
+        verify(eventSink, never()).publish(any());
+    }
+
+    @Test
+    void relay_whenUnpublished_thenAssignConsecutivePositionsAndPublish() {
+        OutboxEvent first = event(1L);
+        OutboxEvent second = event(2L);
+        when(outboxStorage.lockUnpublished(PageRequest.of(0, 10))).thenReturn(List.of(first, second));
+        when(outboxStorage.findLastPosition()).thenReturn(7L);
+
+        int published = outboxRelay.relay(10);
+
+        assertEquals(2, published);
+        assertEquals(8L, first.getPosition());
+        assertEquals(9L, second.getPosition());
+        assertNotNull(first.getPublished());
+        ArgumentCaptor<List<EventDto>> captor = ArgumentCaptor.forClass(List.class);
+        verify(eventSink).publish(captor.capture());
+        assertEquals(List.of(8L, 9L), captor.getValue().stream().map(EventDto::getPosition).collect(Collectors.toList()));
+    }
+
+    private static OutboxEvent event(long id) {
+        OutboxEvent event = new OutboxEvent();
+        event.setId(id);
+        event.setType(EventType.BOOKING_CREATED);
+        event.setEntityId(id);
+        event.setPayload("{}");
+        event.setCreated(LocalDateTime.now());
+        return event;
+    }
+}
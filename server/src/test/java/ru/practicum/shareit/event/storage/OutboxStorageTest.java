@@ -0,0 +1,67 @@
+package ru.practicum.shareit.event.storage;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.annotation.DirtiesContext;
+import ru.practicum.shareit.event.model.EventType;
+import ru.practicum.shareit.event.model.OutboxEvent;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@DataJpaTest
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
+class OutboxStorageTest {
+    @Autowired
+    private OutboxStorage outboxStorage;
+
+    @BeforeEach
+    void addData() {
+        outboxStorage.save(event(1L, 1L));
+        outboxStorage.save(event(2L, 2L));
+        outboxStorage.save(event(3L, null));
+        outboxStorage.save(event(4L, null));
+    }
+
+    @Test
+    void lockUnpublished_thenReturnEventsWithoutPositionInWriteOrder() {
+        List<OutboxEvent> events = outboxStorage.lockUnpublished(PageRequest.of(0, 10));
+
+        assertEquals(List.of(3L, 4L), events.stream().map(OutboxEvent::getEntityId).collect(Collectors.toList()));
+    }
+
+    @Test
+    void findLastPosition_thenReturnMaxPosition() {
+        assertEquals(2L, outboxStorage.findLastPosition());
+    }
+
+    @Test
+    void findLastPosition_whenNothingPublished_thenReturnZero() {
+        outboxStorage.deleteAll();
+
+        assertEquals(0L, outboxStorage.findLastPosition());
+    }
+
+    @Test
+    void findByPositionGreaterThan_thenReturnPublishedAfterPosition() {
+        List<OutboxEvent> events = outboxStorage.findByPositionGreaterThanOrderByPosition(1L, PageRequest.of(0, 10));
+
+        assertEquals(List.of(2L), events.stream().map(OutboxEvent::getPosition).collect(Collectors.toList()));
+    }
+
+    private static OutboxEvent event(long entityId, Long position) {
+        OutboxEvent event = new OutboxEvent();
+        event.setType(EventType.BOOKING_CREATED);
+        event.setEntityId(entityId);
+        event.setPayload("{}");
+        event.setCreated(LocalDateTime.now());
+        event.setPosition(position);
+        return event;
+    }
+}
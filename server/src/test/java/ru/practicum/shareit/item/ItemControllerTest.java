@@ -10,12 +10,18 @@ import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import ru.practicum.shareit.exceptions.WrongUserException;
 import ru.practicum.shareit.item.mapper.CommentMapper;
+import ru.practicum.shareit.item.dto.IntervalDto;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.model.Comment;
 import ru.practicum.shareit.item.service.ItemService;
 import ru.practicum.shareit.user.model.User;
 
+import java.time.LocalDateTime;
+import java.util.List;
+
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
@@ -133,7 +139,7 @@ class ItemControllerTest {
                         .header(USER_ID, userId))
                 .andExpect(status().isOk());
 
-        verify(itemService).getAllForOwner(userId, from, size);
+        verify(itemService).getAllForOwner(userId, from, size, null);
     }
 
     @SneakyThrows
@@ -148,7 +154,38 @@ class ItemControllerTest {
                         .header(USER_ID, userId))
                 .andExpect(status().isOk());
 
-        verify(itemService).getAvailable(text, from, size);
+        verify(itemService).getAvailable(text, from, size, null);
+    }
+
+    @SneakyThrows
+    @Test
+    void getAvailability() {
+        long userId = 2L;
+        long itemId = 1L;
+        LocalDateTime from = LocalDateTime.of(2030, 1, 1, 0, 0);
+        LocalDateTime to = LocalDateTime.of(2030, 1, 2, 0, 0);
+        List<IntervalDto> free = List.of(new IntervalDto(from, to));
+        when(itemService.getAvailability(itemId, from, to)).thenReturn(free);
+
+        String response = mockMvc.perform(MockMvcRequestBuilders.get("/items/{itemId}/availability?from={from}&to={to}",
+                                itemId, "2030-01-01T00:00:00", "2030-01-02T00:00")
+                        .header(USER_ID, userId))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+
+        assertEquals(objectMapper.writeValueAsString(free), response);
+    }
+
+    @SneakyThrows
+    @Test
+    void getAvailability_whenNoRange_thenBadRequest() {
+        mockMvc.perform(MockMvcRequestBuilders.get("/items/{itemId}/availability", 1L)
+                        .header(USER_ID, 2L))
+                .andExpect(status().isBadRequest());
+
+        verify(itemService, never()).getAvailability(anyLong(), any(), any());
     }
 
     @SneakyThrows
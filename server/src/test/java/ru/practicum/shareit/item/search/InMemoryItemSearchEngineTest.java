@@ -0,0 +1,122 @@
+package ru.practicum.shareit.item.search;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.mapper.ItemMapper;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.storage.ItemStorage;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class InMemoryItemSearchEngineTest {
+    @Mock
+    private ItemStorage itemStorage;
+
+    @InjectMocks
+    private InMemoryItemSearchEngine searchEngine;
+
+    @BeforeEach
+    void addItems() {
+        searchEngine.index(item(1L, "Дрель", "Простая дрель", true));
+        searchEngine.index(item(2L, "Отвертка", "Аккумуляторная отвертка", true));
+        searchEngine.index(item(3L, "Дрель+", "Ударная дрель", false));
+        searchEngine.index(item(4L, "Щётка", "Щётка для обуви", true));
+    }
+
+    @Test
+    void findIds_whenLongText_thenMatchSubstringIgnoringCase() {
+        assertEquals(List.of(1L), searchEngine.findIds("дРЕль".toLowerCase(), 0, 0, 20));
+        assertEquals(List.of(2L), searchEngine.findIds("аккум", 0, 0, 20));
+    }
+
+    @Test
+    void findIds_whenShortText_thenUseSingleGram() {
+        assertEquals(List.of(1L, 2L, 4L), searchEngine.findIds("т", 0, 0, 20));
+        assertEquals(List.of(4L), searchEngine.findIds("щё", 0, 0, 20));
+    }
+
+    @Test
+    void findIds_whenTrigramsMatchButTextNot_thenSkip() {
+        searchEngine.index(item(5L, "abcxbcd", "", true));
+
+        assertTrue(searchEngine.findIds("abcd", 0, 0, 20).isEmpty());
+    }
+
+    @Test
+    void findIds_whenPaged_thenSkipOffset() {
+        assertEquals(List.of(2L), searchEngine.findIds("т", 0, 1, 1));
+    }
+
+    @Test
+    void findIds_whenAfterId_thenStartAfterIt() {
+        assertEquals(List.of(2L, 4L), searchEngine.findIds("т", 1, 0, 20));
+        assertEquals(List.of(4L), searchEngine.findIds("т", 2, 0, 1));
+    }
+
+    @Test
+    void index_whenBecameUnavailable_thenRemoved() {
+        searchEngine.index(item(1L, "Дрель", "Простая дрель", false));
+
+        assertTrue(searchEngine.findIds("дрель", 0, 0, 20).isEmpty());
+    }
+
+    @Test
+    void index_whenRenamed_thenOldTextNotFound() {
+        searchEngine.index(item(2L, "Шуруповерт", "Аккумуляторный шуруповерт", true));
+
+        assertTrue(searchEngine.findIds("отвертка", 0, 0, 20).isEmpty());
+        assertEquals(List.of(2L), searchEngine.findIds("шуруп", 0, 0, 20));
+    }
+
+    @Test
+    void rebuild_whenStorageHasItems_thenIndexThem() {
+        Item item = item(10L, "Пила", "Ножовка", true);
+        when(itemStorage.findAvailableAfter(anyLong(), any(Pageable.class))).thenReturn(List.of(item));
+
+        searchEngine.rebuild();
+
+        assertEquals(List.of(10L), searchEngine.findIds("ножов", 0, 0, 20));
+    }
+
+    @Test
+    void search_whenNothingFound_thenEmptyWithoutQuery() {
+        Collection<ItemDto> actual = searchEngine.search("пылесос", 0, 20);
+
+        assertEquals(Collections.emptyList(), actual);
+    }
+
+    @Test
+    void search_whenFound_thenLoadItemsInIdOrder() {
+        Item first = item(1L, "Дрель", "Простая дрель", true);
+        Item second = item(2L, "Отвертка", "Аккумуляторная отвертка", true);
+        when(itemStorage.findAllById(List.of(1L, 2L))).thenReturn(List.of(second, first));
+
+        Collection<ItemDto> actual = searchEngine.search("Р", 0, 20);
+
+        assertEquals(List.of(ItemMapper.mapToDto(first), ItemMapper.mapToDto(second)), actual);
+    }
+
+    private static Item item(long id, String name, String description, boolean available) {
+        Item item = new Item();
+        item.setId(id);
+        item.setName(name);
+        item.setDescription(description);
+        item.setAvailable(available);
+        return item;
+    }
+}
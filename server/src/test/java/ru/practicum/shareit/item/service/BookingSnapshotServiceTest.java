@@ -0,0 +1,117 @@
+package ru.practicum.shareit.item.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.storage.BookingStorage;
+import ru.practicum.shareit.booking.storage.ItemBookingView;
+import ru.practicum.shareit.item.model.BookingSnapshot;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.storage.ItemStorage;
+import ru.practicum.shareit.user.model.User;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class BookingSnapshotServiceTest {
+    @Mock
+    private ItemStorage itemStorage;
+    @Mock
+    private BookingStorage bookingStorage;
+
+    @InjectMocks
+    private BookingSnapshotService bookingSnapshotService;
+
+    @Test
+    void isStale() {
+        LocalDateTime now = LocalDateTime.now();
+        Item item = new Item();
+
+        assertFalse(BookingSnapshotService.isStale(item, now));
+        item.setNextBooking(new BookingSnapshot(1L, now.plusMinutes(1), now.plusMinutes(2), 2L));
+        assertFalse(BookingSnapshotService.isStale(item, now));
+        item.setNextBooking(new BookingSnapshot(1L, now, now.plusMinutes(2), 2L));
+        assertTrue(BookingSnapshotService.isStale(item, now));
+    }
+
+    @Test
+    void onApproved_whenFuture_thenOfferNext() {
+        Booking booking = booking(LocalDateTime.now().plusDays(1));
+
+        bookingSnapshotService.onApproved(booking);
+
+        verify(itemStorage).offerNextBooking(1L, 3L, booking.getStart(), booking.getEnd(), 2L);
+        verify(itemStorage, never()).offerLastBooking(anyLong(), anyLong(), any(), any(), anyLong());
+    }
+
+    @Test
+    void onApproved_whenStarted_thenOfferLast() {
+        Booking booking = booking(LocalDateTime.now().minusMinutes(1));
+
+        bookingSnapshotService.onApproved(booking);
+
+        verify(itemStorage).offerLastBooking(1L, 3L, booking.getStart(), booking.getEnd(), 2L);
+        verify(itemStorage, never()).offerNextBooking(anyLong(), anyLong(), any(), any(), anyLong());
+    }
+
+    @Test
+    void rollForward_whenNothingStale_thenReturnZero() {
+        LocalDateTime now = LocalDateTime.now();
+        when(itemStorage.lockWithStartedNextBooking(now, PageRequest.of(0, 10))).thenReturn(Collections.emptyList());
+
+        assertEquals(0, bookingSnapshotService.rollForward(now, 10));
+        verify(bookingStorage, never()).findLastAndNext(any(), any());
+    }
+
+    @Test
+    void rollForward_whenStale_thenRecompute() {
+        LocalDateTime now = LocalDateTime.now();
+        Item item = new Item();
+        item.setId(1L);
+        item.setNextBooking(new BookingSnapshot(7L, now.minusMinutes(1), now.plusDays(1), 2L));
+        when(itemStorage.lockWithStartedNextBooking(now, PageRequest.of(0, 10))).thenReturn(List.of(item));
+        ItemBookingView last = mock(ItemBookingView.class);
+        when(last.getId()).thenReturn(7L);
+        when(last.getItemId()).thenReturn(1L);
+        when(last.getStart()).thenReturn(now.minusMinutes(1));
+        when(last.getEnd()).thenReturn(now.plusDays(1));
+        when(last.getBookerId()).thenReturn(2L);
+        when(last.isLast()).thenReturn(true);
+        when(bookingStorage.findLastAndNext(List.of(1L), now)).thenReturn(List.of(last));
+
+        assertEquals(1, bookingSnapshotService.rollForward(now, 10));
+        verify(itemStorage).clearBookingSnapshots(List.of(1L));
+        verify(itemStorage).offerLastBooking(1L, 7L, now.minusMinutes(1), now.plusDays(1), 2L);
+        verify(itemStorage, never()).offerNextBooking(anyLong(), anyLong(), any(), any(), anyLong());
+    }
+
+    private static Booking booking(LocalDateTime start) {
+        Item item = new Item();
+        item.setId(1L);
+        User booker = new User();
+        booker.setId(2L);
+        Booking booking = new Booking();
+        booking.setId(3L);
+        booking.setItem(item);
+        booking.setBooker(booker);
+        booking.setStart(start);
+        booking.setEnd(start.plusDays(1));
+        return booking;
+    }
+}
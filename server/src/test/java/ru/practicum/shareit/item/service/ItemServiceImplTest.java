@@ -6,21 +6,28 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.domain.PageRequest;
-import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.storage.BookingPeriod;
 import ru.practicum.shareit.booking.storage.BookingStorage;
+import ru.practicum.shareit.booking.storage.ItemBookingView;
+import ru.practicum.shareit.event.model.EventType;
+import ru.practicum.shareit.event.service.OutboxService;
 import ru.practicum.shareit.exceptions.BadRequestException;
 import ru.practicum.shareit.exceptions.ItemNotFoundException;
 import ru.practicum.shareit.exceptions.UserNotFoundException;
 import ru.practicum.shareit.exceptions.WrongUserException;
 import ru.practicum.shareit.item.dto.CommentDto;
 import ru.practicum.shareit.item.mapper.CommentMapper;
+import ru.practicum.shareit.item.dto.IntervalDto;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.dto.ItemDtoWithCommentsAndBookings;
 import ru.practicum.shareit.item.mapper.ItemMapper;
+import ru.practicum.shareit.item.model.BookingSnapshot;
 import ru.practicum.shareit.item.model.Comment;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.search.ItemSearchEngine;
 import ru.practicum.shareit.item.storage.CommentStorage;
+import ru.practicum.shareit.item.storage.ItemCardView;
 import ru.practicum.shareit.item.storage.ItemStorage;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.service.UserService;
@@ -32,6 +39,7 @@ import java.util.Collections;
 import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -47,6 +55,10 @@ class ItemServiceImplTest {
     private UserService userService;
     @Mock
     private CommentStorage commentStorage;
+    @Mock
+    private ItemSearchEngine itemSearchEngine;
+    @Mock
+    private OutboxService outboxService;
 
     @InjectMocks
     private ItemServiceImpl itemService;
@@ -68,12 +80,15 @@ class ItemServiceImplTest {
         Item item = new Item();
         item.setOwnerId(userId);
         Item expectedItem = ItemMapper.mapToItem(itemDto, item);
+        expectedItem.setId(1L);
         when(userService.isExist(userId)).thenReturn(true);
         when(itemStorage.save(any(Item.class))).thenReturn(expectedItem);
 
         ItemDto actualItemDto = itemService.create(userId, itemDto);
 
         assertEquals(ItemMapper.mapToDto(expectedItem), actualItemDto);
+        verify(itemSearchEngine).index(expectedItem);
+        verify(outboxService).record(EventType.ITEM_CREATED, 1L, actualItemDto);
     }
 
     @Test
@@ -114,6 +129,8 @@ class ItemServiceImplTest {
 
         assertEquals(ItemMapper.mapToDto(item), actualItem);
         verify(itemStorage).save(any());
+        verify(itemSearchEngine).index(item);
+        verify(outboxService).record(EventType.ITEM_UPDATED, itemId, actualItem);
     }
 
     @Test
@@ -141,22 +158,45 @@ class ItemServiceImplTest {
     }
 
     @Test
-    void get_whenOwner_thenItemWithBooking() {
+    void get_whenOwner_thenBookingsFromSnapshot() {
+        long userId = 1L;
+        long itemId = 0L;
+        Item item = new Item();
+        item.setId(itemId);
+        item.setOwnerId(userId);
+        item.setLastBooking(new BookingSnapshot(5L, LocalDateTime.now().minusDays(2), LocalDateTime.now().minusDays(1), 2L));
+        item.setNextBooking(new BookingSnapshot(6L, LocalDateTime.now().plusDays(1), LocalDateTime.now().plusDays(2), 3L));
+        when(itemStorage.findById(itemId)).thenReturn(Optional.of(item));
+        when(commentStorage.findByItem_Id(itemId)).thenReturn(Collections.emptyList());
+
+        ItemDtoWithCommentsAndBookings itemDto = itemService.get(userId, itemId);
+
+        assertEquals(5L, itemDto.getLastBooking().getId());
+        assertEquals(2L, itemDto.getLastBooking().getBookerId());
+        assertEquals(6L, itemDto.getNextBooking().getId());
+        assertEquals(BookingStatus.APPROVED, itemDto.getNextBooking().getStatus());
+        verify(bookingStorage, never()).findLastAndNext(any(), any());
+    }
+
+    @Test
+    void get_whenSnapshotStale_thenBookingsFromQuery() {
         long userId = 1L;
         long itemId = 0L;
         Item item = new Item();
+        item.setId(itemId);
         item.setOwnerId(userId);
+        item.setNextBooking(new BookingSnapshot(6L, LocalDateTime.now().minusMinutes(1), LocalDateTime.now().plusDays(2), 3L));
         when(itemStorage.findById(itemId)).thenReturn(Optional.of(item));
         when(commentStorage.findByItem_Id(itemId)).thenReturn(Collections.emptyList());
-        Booking booking = new Booking();
-        booking.setItem(item);
-        booking.setBooker(new User());
-        booking.setStart(LocalDateTime.now().minusDays(1));
-        when(bookingStorage.findByItemId(itemId)).thenReturn(List.of(booking));
+        ItemBookingView booking = mock(ItemBookingView.class);
+        when(booking.getItemId()).thenReturn(itemId);
+        when(booking.isLast()).thenReturn(true);
+        when(bookingStorage.findLastAndNext(eq(List.of(itemId)), any(LocalDateTime.class))).thenReturn(List.of(booking));
 
         ItemDtoWithCommentsAndBookings itemDto = itemService.get(userId, itemId);
 
         assertNotNull(itemDto.getLastBooking());
+        assertNull(itemDto.getNextBooking());
     }
 
     @Test
@@ -164,22 +204,96 @@ class ItemServiceImplTest {
         long userId = 0L;
         int from = 0;
         int size = 20;
-        when(itemStorage.findByOwnerId(eq(userId), any(PageRequest.class))).thenReturn(Collections.emptyList());
-        when(bookingStorage.findByItemOwnerId(any(), any())).thenReturn(Collections.emptyList());
-        when(commentStorage.findByItem_OwnerIdAndItemIn(any(), any())).thenReturn(Collections.emptyList());
+        when(itemStorage.findCardsByOwnerId(eq(userId), any(PageRequest.class))).thenReturn(Collections.emptyList());
 
-        Collection<ItemDtoWithCommentsAndBookings> actual = itemService.getAllForOwner(userId, from, size);
+        Collection<ItemDtoWithCommentsAndBookings> actual = itemService.getAllForOwner(userId, from, size, null);
 
         assertEquals(Collections.emptyList(), actual);
     }
 
+    @Test
+    void getAllForOwner_whenBookings_thenQueryOnlyStaleItems() {
+        long userId = 0L;
+        ItemCardView first = new ItemCardView(1L, "first", "first", true, null, null, null, null, null,
+                9L, LocalDateTime.now().minusMinutes(1), LocalDateTime.now().plusDays(1), 3L);
+        ItemCardView second = new ItemCardView(2L, "second", "second", true, null, null, null, null, null,
+                12L, LocalDateTime.now().plusDays(1), LocalDateTime.now().plusDays(2), 3L);
+        when(itemStorage.findCardsByOwnerId(eq(userId), any(PageRequest.class))).thenReturn(List.of(first, second));
+        when(commentStorage.findViewsByItemIdIn(List.of(1L, 2L))).thenReturn(Collections.emptyList());
+        ItemBookingView last = mock(ItemBookingView.class);
+        when(last.getId()).thenReturn(10L);
+        when(last.getItemId()).thenReturn(1L);
+        when(last.isLast()).thenReturn(true);
+        ItemBookingView next = mock(ItemBookingView.class);
+        when(next.getId()).thenReturn(11L);
+        when(next.getItemId()).thenReturn(1L);
+        when(bookingStorage.findLastAndNext(eq(Set.of(1L)), any(LocalDateTime.class))).thenReturn(List.of(last, next));
+
+        List<ItemDtoWithCommentsAndBookings> actual = List.copyOf(itemService.getAllForOwner(userId, 0, 20, null));
+
+        assertEquals(10L, actual.get(0).getLastBooking().getId());
+        assertEquals(11L, actual.get(0).getNextBooking().getId());
+        assertNull(actual.get(1).getLastBooking());
+        assertEquals(12L, actual.get(1).getNextBooking().getId());
+    }
+
+    @Test
+    void getAvailability_whenBookings_thenReturnGaps() {
+        long itemId = 1L;
+        LocalDateTime from = LocalDateTime.of(2030, 1, 1, 0, 0);
+        LocalDateTime to = from.plusDays(1);
+        Item item = new Item();
+        item.setAvailable(true);
+        when(itemStorage.findById(itemId)).thenReturn(Optional.of(item));
+        List<BookingPeriod> booked = List.of(period(from.minusHours(2), from.plusHours(2)),
+                period(from.plusHours(5), from.plusHours(7)),
+                period(from.plusHours(6), from.plusHours(8)),
+                period(from.plusHours(8), from.plusHours(9)));
+        when(bookingStorage.findApprovedPeriods(itemId, from, to)).thenReturn(booked);
+
+        Collection<IntervalDto> actual = itemService.getAvailability(itemId, from, to);
+
+        assertEquals(List.of(new IntervalDto(from.plusHours(2), from.plusHours(5)),
+                new IntervalDto(from.plusHours(9), to)), actual);
+    }
+
+    @Test
+    void getAvailability_whenNoBookings_thenWholeRange() {
+        long itemId = 1L;
+        LocalDateTime from = LocalDateTime.of(2030, 1, 1, 0, 0);
+        LocalDateTime to = from.plusDays(1);
+        Item item = new Item();
+        item.setAvailable(true);
+        when(itemStorage.findById(itemId)).thenReturn(Optional.of(item));
+        when(bookingStorage.findApprovedPeriods(itemId, from, to)).thenReturn(Collections.emptyList());
+
+        assertEquals(List.of(new IntervalDto(from, to)), itemService.getAvailability(itemId, from, to));
+    }
+
+    @Test
+    void getAvailability_whenItemNotAvailable_thenEmpty() {
+        long itemId = 1L;
+        LocalDateTime from = LocalDateTime.of(2030, 1, 1, 0, 0);
+        when(itemStorage.findById(itemId)).thenReturn(Optional.of(new Item()));
+
+        assertEquals(Collections.emptyList(), itemService.getAvailability(itemId, from, from.plusDays(1)));
+        verify(bookingStorage, never()).findApprovedPeriods(anyLong(), any(), any());
+    }
+
+    @Test
+    void getAvailability_whenRangeEmpty_thenThrowException() {
+        LocalDateTime from = LocalDateTime.of(2030, 1, 1, 0, 0);
+
+        assertThrows(BadRequestException.class, () -> itemService.getAvailability(1L, from, from));
+    }
+
     @Test
     void getAvailable_whenEmptyText_thenReturnEmptyCollection() {
         String text = "";
         int from = 0;
         int size = 20;
 
-        Collection<ItemDto> actual = itemService.getAvailable(text, from, size);
+        Collection<ItemDto> actual = itemService.getAvailable(text, from, size, null);
 
         assertEquals(0, actual.size());
     }
@@ -189,12 +303,12 @@ class ItemServiceImplTest {
         String text = "text";
         int from = 0;
         int size = 20;
-        Item item = new Item();
-        when(itemStorage.findAvailable(text, PageRequest.of(from / size, size))).thenReturn(List.of(item));
+        ItemDto item = new ItemDto(1L, "name", "description", true, null);
+        when(itemSearchEngine.search(text, from, size)).thenReturn(List.of(item));
 
-        Collection<ItemDto> actual = itemService.getAvailable(text, from, size);
+        Collection<ItemDto> actual = itemService.getAvailable(text, from, size, null);
 
-        assertEquals(ItemMapper.mapToDto(item), actual.iterator().next());
+        assertEquals(item, actual.iterator().next());
     }
 
     @Test
@@ -203,7 +317,7 @@ class ItemServiceImplTest {
         Comment comment = new Comment();
         long itemId = 0L;
         when(userService.findById(userId)).thenReturn(new User());
-        when(bookingStorage.existsByBooker_IdAndEndBeforeAndStatus(eq(userId), any(LocalDateTime.class), eq(BookingStatus.APPROVED))).thenReturn(false);
+        when(bookingStorage.existsApprovedEndedBefore(eq(userId), any(LocalDateTime.class))).thenReturn(false);
 
         assertThrows(BadRequestException.class, () -> itemService.createComment(userId, comment, itemId));
         verify(commentStorage, never()).save(comment);
@@ -215,7 +329,7 @@ class ItemServiceImplTest {
         Comment comment = new Comment();
         long itemId = 0L;
         when(userService.findById(userId)).thenReturn(new User());
-        when(bookingStorage.existsByBooker_IdAndEndBeforeAndStatus(eq(userId), any(LocalDateTime.class), eq(BookingStatus.APPROVED))).thenReturn(true);
+        when(bookingStorage.existsApprovedEndedBefore(eq(userId), any(LocalDateTime.class))).thenReturn(true);
         when(itemStorage.findById(itemId)).thenReturn(Optional.empty());
 
         assertThrows(NoSuchElementException.class, () -> itemService.createComment(userId, comment, itemId));
@@ -228,7 +342,7 @@ class ItemServiceImplTest {
         Comment comment = new Comment();
         long itemId = 0L;
         when(userService.findById(userId)).thenReturn(new User());
-        when(bookingStorage.existsByBooker_IdAndEndBeforeAndStatus(eq(userId), any(LocalDateTime.class), eq(BookingStatus.APPROVED))).thenReturn(true);
+        when(bookingStorage.existsApprovedEndedBefore(eq(userId), any(LocalDateTime.class))).thenReturn(true);
         when(itemStorage.findById(itemId)).thenReturn(Optional.of(new Item()));
         when(commentStorage.save(comment)).thenReturn(comment);
 
@@ -236,4 +350,11 @@ class ItemServiceImplTest {
 
         assertEquals(CommentMapper.mapToDto(comment), actual);
     }
-}
\ No newline at end of file
+
+    private static BookingPeriod period(LocalDateTime start, LocalDateTime end) {
+        BookingPeriod period = mock(BookingPeriod.class);
+        when(period.getStart()).thenReturn(start);
+        when(period.getEnd()).thenReturn(end);
+        return period;
+    }
+}
@@ -4,18 +4,23 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
 import org.springframework.test.annotation.DirtiesContext;
 import ru.practicum.shareit.item.model.Comment;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.storage.UserStorage;
+import ru.practicum.shareit.utils.querycount.QueryCountConfig;
 
 import java.time.LocalDateTime;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static ru.practicum.shareit.utils.QueryBudget.assertStatements;
 
 @DataJpaTest
+@Import(QueryCountConfig.class)
 @DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
 class CommentStorageTest {
     @Autowired
@@ -24,6 +29,8 @@ class CommentStorageTest {
     private ItemStorage itemStorage;
     @Autowired
     private UserStorage userStorage;
+    @Autowired
+    private TestEntityManager entityManager;
 
     @BeforeEach
     void addData() {
@@ -67,19 +74,12 @@ class CommentStorageTest {
     }
 
     @Test
-    void findByItem_OwnerIdAndItemIn() {
-        long ownerId = 1L;
-        Item item1 = new Item();
-        item1.setId(1L);
-        item1.setOwnerId(ownerId);
-        item1.setName("first");
-        item1.setDescription("firstDesc");
-        item1.setAvailable(false);
-
-        List<Comment> list = commentStorage.findByItem_OwnerIdAndItemIn(ownerId, List.of(item1));
+    void findViewsByItemIdIn() {
+        List<CommentView> list = commentStorage.findViewsByItemIdIn(List.of(1L));
 
         assertEquals(1, list.size());
-        assertEquals(ownerId, list.get(0).getItem().getOwnerId());
+        assertEquals(1L, list.get(0).getItemId());
+        assertEquals("testName2", list.get(0).getAuthorName());
     }
 
     @Test
@@ -91,4 +91,12 @@ class CommentStorageTest {
         assertEquals(1, list.size());
         assertEquals(itemId, list.get(0).getItem().getId());
     }
-}
\ No newline at end of file
+
+    @Test
+    void findByItem_Id_loadsAuthorsInSameStatement() {
+        entityManager.clear();
+
+        assertStatements(1, () -> commentStorage.findByItem_Id(2L)
+                .forEach(comment -> comment.getAuthor().getName()));
+    }
+}
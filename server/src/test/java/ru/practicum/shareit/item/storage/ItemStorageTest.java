@@ -4,14 +4,17 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
 import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Sort;
 import org.springframework.test.annotation.DirtiesContext;
+import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.storage.UserStorage;
 
+import java.time.LocalDateTime;
 import java.util.Collection;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -23,6 +26,8 @@ class ItemStorageTest {
     private ItemStorage itemStorage;
     @Autowired
     private UserStorage userStorage;
+    @Autowired
+    private TestEntityManager entityManager;
 
     @BeforeEach
     void addItems() {
@@ -52,13 +57,14 @@ class ItemStorageTest {
     }
 
     @Test
-    void findByOwnerId() {
+    void findCardsByOwnerId() {
         long ownerId = 1L;
-        PageRequest pr = PageRequest.of(0, 20, Sort.by("id"));
-        Collection<Item> collection = itemStorage.findByOwnerId(ownerId, pr);
+        PageRequest pr = PageRequest.of(0, 20);
+        List<ItemCardView> cards = itemStorage.findCardsByOwnerId(ownerId, pr);
 
-        assertEquals(1, collection.size());
-        assertEquals(ownerId, collection.iterator().next().getOwnerId());
+        assertEquals(1, cards.size());
+        assertEquals("first", cards.get(0).getName());
+        assertNull(cards.get(0).getNextBooking());
     }
 
     @Test
@@ -66,9 +72,56 @@ class ItemStorageTest {
         String item2Name = "second";
         String searchText = "desc";
         PageRequest pr = PageRequest.of(0, 20);
-        Collection<Item> collection = itemStorage.findAvailable(searchText, pr);
+        Collection<ItemDto> collection = itemStorage.findAvailable(searchText, pr);
 
         assertEquals(1, collection.size());
         assertEquals(item2Name, collection.iterator().next().getName());
     }
-}
\ No newline at end of file
+
+    @Test
+    void findAvailableAfter() {
+        List<Item> fromStart = itemStorage.findAvailableAfter(0L, PageRequest.of(0, 20));
+        List<Item> afterLast = itemStorage.findAvailableAfter(fromStart.get(0).getId(), PageRequest.of(0, 20));
+
+        assertEquals(1, fromStart.size());
+        assertEquals("second", fromStart.get(0).getName());
+        assertTrue(afterLast.isEmpty());
+    }
+
+    @Test
+    void offerNextBooking_whenEarlier_thenReplace() {
+        LocalDateTime start = LocalDateTime.now().plusDays(2);
+
+        assertEquals(1, itemStorage.offerNextBooking(2L, 10L, start, start.plusDays(1), 1L));
+        assertEquals(0, itemStorage.offerNextBooking(2L, 11L, start.plusDays(1), start.plusDays(2), 1L));
+        assertEquals(1, itemStorage.offerNextBooking(2L, 12L, start.minusDays(1), start, 1L));
+        entityManager.clear();
+
+        assertEquals(12L, itemStorage.findById(2L).orElseThrow().getNextBooking().getId());
+        assertNull(itemStorage.findById(2L).orElseThrow().getLastBooking());
+    }
+
+    @Test
+    void offerLastBooking_whenEndsLater_thenReplace() {
+        LocalDateTime end = LocalDateTime.now().minusDays(2);
+
+        assertEquals(1, itemStorage.offerLastBooking(2L, 10L, end.minusDays(1), end, 1L));
+        assertEquals(0, itemStorage.offerLastBooking(2L, 11L, end.minusDays(2), end.minusDays(1), 1L));
+        entityManager.clear();
+
+        assertEquals(10L, itemStorage.findById(2L).orElseThrow().getLastBooking().getId());
+    }
+
+    @Test
+    void lockWithStartedNextBooking() {
+        LocalDateTime now = LocalDateTime.now();
+        itemStorage.offerNextBooking(1L, 10L, now.minusMinutes(1), now.plusDays(1), 2L);
+        itemStorage.offerNextBooking(2L, 11L, now.plusMinutes(1), now.plusDays(1), 1L);
+        entityManager.clear();
+
+        List<Item> items = itemStorage.lockWithStartedNextBooking(now, PageRequest.of(0, 20));
+
+        assertEquals(1, items.size());
+        assertEquals(1L, items.get(0).getId());
+    }
+}
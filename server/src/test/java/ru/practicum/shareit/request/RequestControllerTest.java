@@ -10,11 +10,16 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.test.web.servlet.MockMvc;
 import ru.practicum.shareit.request.dto.RequestDto;
 import ru.practicum.shareit.request.service.RequestService;
+import ru.practicum.shareit.utils.Cursor;
+
+import java.time.LocalDateTime;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(RequestController.class)
@@ -90,7 +95,48 @@ class RequestControllerTest {
                         .header(USER_ID, userId))
                 .andExpect(status().isOk());
 
-        verify(requestService).getAll(userId, from, size);
+        verify(requestService).getAll(userId, from, size, null);
+    }
+
+    @SneakyThrows
+    @Test
+    void getAllRequests_whenPageFull_thenReturnNextCursor() {
+        long userId = 1L;
+        int size = 1;
+        LocalDateTime created = LocalDateTime.of(2023, 3, 1, 12, 0);
+        RequestDto request = new RequestDto(5L, "test", null, created, null);
+        when(requestService.getAll(userId, 0, size, null)).thenReturn(List.of(request));
+
+        mockMvc.perform(get("/requests/all?size={size}", size)
+                        .header(USER_ID, userId))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Next-Cursor", Cursor.of(created, 5L).encode()));
+    }
+
+    @SneakyThrows
+    @Test
+    void getAllRequests_whenCursorGiven_thenPassDecoded() {
+        long userId = 1L;
+        int size = 20;
+        Cursor cursor = Cursor.of(LocalDateTime.of(2023, 3, 1, 12, 0), 5L);
+
+        mockMvc.perform(get("/requests/all?size={size}&after={after}", size, cursor.encode())
+                        .header(USER_ID, userId))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("X-Next-Cursor"));
+
+        verify(requestService).getAll(userId, 0, size, cursor);
+    }
+
+    @SneakyThrows
+    @Test
+    void getAllRequests_whenCursorInvalid_thenBadRequest() {
+        long userId = 1L;
+        mockMvc.perform(get("/requests/all?after={after}", Cursor.of(5L).encode())
+                        .header(USER_ID, userId))
+                .andExpect(status().isBadRequest());
+
+        verify(requestService, never()).getAll(anyLong(), anyInt(), anyInt(), any());
     }
 
     @SneakyThrows
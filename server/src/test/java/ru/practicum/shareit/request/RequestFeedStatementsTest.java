@@ -0,0 +1,123 @@
+package ru.practicum.shareit.request;
+
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.storage.ItemStorage;
+import ru.practicum.shareit.request.model.ItemRequest;
+import ru.practicum.shareit.request.storage.RequestStorage;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.storage.UserStorage;
+import ru.practicum.shareit.utils.Cursor;
+import ru.practicum.shareit.utils.QueryBudget;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static ru.practicum.shareit.utils.Constant.USER_ID;
+
+/**
+ * Statements per request feed call. A feed must cost the same number of statements however many requests
+ * and items the page holds.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+class RequestFeedStatementsTest {
+    private static final int REQUESTS = 20;
+    private static final int ITEMS_PER_REQUEST = 2;
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private UserStorage userStorage;
+    @Autowired
+    private ItemStorage itemStorage;
+    @Autowired
+    private RequestStorage requestStorage;
+    private long requestorId;
+    private long otherId;
+    private long requestId;
+
+    @BeforeAll
+    void addData() {
+        requestorId = userStorage.save(user("requestor")).getId();
+        otherId = userStorage.save(user("other")).getId();
+        LocalDateTime created = LocalDateTime.now().minusDays(1);
+        for (int i = 0; i < REQUESTS; i++) {
+            ItemRequest request = new ItemRequest();
+            request.setRequestor(userStorage.getReferenceById(requestorId));
+            request.setDescription("request" + i);
+            request.setCreated(created.plusMinutes(i));
+            requestId = requestStorage.save(request).getId();
+            for (int j = 0; j < ITEMS_PER_REQUEST; j++) {
+                Item item = new Item();
+                item.setOwnerId(otherId);
+                item.setName("item" + i + "-" + j);
+                item.setDescription("description");
+                item.setAvailable(true);
+                item.setRequestId(requestId);
+                itemStorage.save(item);
+            }
+        }
+    }
+
+    @Test
+    void getRequestsForUser_thenFixedStatements() {
+        long statements = statements(get("/requests").header(USER_ID, requestorId));
+
+        assertEquals(2, statements);
+    }
+
+    @Test
+    void getAllRequests_thenFixedStatements() {
+        long statements = statements(get("/requests/all").header(USER_ID, otherId).param("size", "20"));
+
+        assertEquals(2, statements);
+    }
+
+    @Test
+    void getAllRequestsAfterCursor_thenFixedStatements() {
+        long statements = statements(get("/requests/all").header(USER_ID, otherId).param("size", "20")
+                .param("after", Cursor.of(LocalDateTime.now(), Long.MAX_VALUE).encode()));
+
+        assertEquals(2, statements);
+    }
+
+    @Test
+    void getRequest_thenFixedStatements() {
+        long statements = statements(get("/requests/{requestId}", requestId).header(USER_ID, otherId));
+
+        assertEquals(2, statements);
+    }
+
+    /**
+     * Statements run by one call, made after a first call has warmed up the caches.
+     */
+    @SneakyThrows
+    private long statements(RequestBuilder request) {
+        mockMvc.perform(request).andExpect(status().isOk());
+        return QueryBudget.count(() -> mockMvc.perform(request)
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$..items[*]").isNotEmpty())).getStatements();
+    }
+
+    private static User user(String name) {
+        User user = new User();
+        user.setName(name);
+        user.setEmail(name + "@email.com");
+        return user;
+    }
+}
@@ -7,14 +7,18 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.domain.PageRequest;
 import ru.practicum.shareit.exceptions.UserNotFoundException;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.storage.ItemStorage;
 import ru.practicum.shareit.request.dto.RequestDto;
 import ru.practicum.shareit.request.mapper.RequestMapper;
 import ru.practicum.shareit.request.model.ItemRequest;
 import ru.practicum.shareit.request.storage.RequestStorage;
+import ru.practicum.shareit.request.storage.RequestView;
 import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.service.UserExistenceCache;
 import ru.practicum.shareit.user.storage.UserStorage;
 
-import java.util.ArrayList;
+import java.time.LocalDateTime;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
@@ -33,6 +37,10 @@ class RequestServiceTest {
     private RequestStorage requestStorage;
     @Mock
     private UserStorage userStorage;
+    @Mock
+    private UserExistenceCache userExistenceCache;
+    @Mock
+    private ItemStorage itemStorage;
 
     @InjectMocks
     private RequestService requestService;
@@ -63,7 +71,7 @@ class RequestServiceTest {
     @Test
     void getRequestsForUser_whenUserNotExist_thenThrowException() {
         long id = 0L;
-        when(userStorage.existsById(id)).thenReturn(false);
+        when(userExistenceCache.exists(id)).thenReturn(false);
 
         assertThrows(UserNotFoundException.class, () -> requestService.getRequestsForUser(id));
     }
@@ -71,8 +79,8 @@ class RequestServiceTest {
     @Test
     void getRequestsForUser_whenUserExist_thenReturnCollection() {
         long id = 0L;
-        when(userStorage.existsById(id)).thenReturn(true);
-        when(requestStorage.findByRequestor_IdOrderByCreatedDesc(id)).thenReturn(Collections.emptyList());
+        when(userExistenceCache.exists(id)).thenReturn(true);
+        when(requestStorage.findViewsOfRequestor(id)).thenReturn(Collections.emptyList());
 
         Collection<RequestDto> requests = requestService.getRequestsForUser(id);
 
@@ -84,9 +92,9 @@ class RequestServiceTest {
         long id = 0L;
         int from = 0;
         int size = 0;
-        when(userStorage.existsById(id)).thenReturn(false);
+        when(userExistenceCache.exists(id)).thenReturn(false);
 
-        assertThrows(UserNotFoundException.class, () -> requestService.getAll(id, from, size));
+        assertThrows(UserNotFoundException.class, () -> requestService.getAll(id, from, size, null));
     }
 
     @Test
@@ -94,23 +102,24 @@ class RequestServiceTest {
         long id = 0L;
         int from = 1;
         int size = 1;
-        ItemRequest itemRequest1 = new ItemRequest();
-        List<ItemRequest> requests = new ArrayList<>();
-        requests.add(itemRequest1);
-        when(userStorage.existsById(id)).thenReturn(true);
-        when(requestStorage.findByRequestor_IdNotOrderByCreatedDesc(id, PageRequest.of(from, size))).thenReturn(requests);
+        RequestView request = new RequestView(1L, "description", LocalDateTime.now(), 2L, "name", "2@email.com");
+        ItemDto item = new ItemDto(3L, "item", "description", true, 1L);
+        when(userExistenceCache.exists(id)).thenReturn(true);
+        when(requestStorage.findViewsOfOthers(id, PageRequest.of(from, size))).thenReturn(List.of(request));
+        when(itemStorage.findDtosByRequestIdIn(List.of(1L))).thenReturn(List.of(item));
 
-        Collection<RequestDto> actualRequests = requestService.getAll(id, from, size);
+        Collection<RequestDto> actualRequests = requestService.getAll(id, from, size, null);
 
         assertEquals(size, actualRequests.size());
-        assertEquals(RequestMapper.toRequestDto(itemRequest1), actualRequests.iterator().next());
+        assertEquals(RequestMapper.toRequestDto(request, List.of(item)), actualRequests.iterator().next());
+        assertEquals(List.of(item), actualRequests.iterator().next().getItems());
     }
 
     @Test
     void getRequest_whenUserNotExist_thenThrowException() {
         long id = 0L;
         long requestId = 0L;
-        when(userStorage.existsById(id)).thenReturn(false);
+        when(userExistenceCache.exists(id)).thenReturn(false);
 
         assertThrows(UserNotFoundException.class, () -> requestService.getRequest(id, requestId));
     }
@@ -119,7 +128,7 @@ class RequestServiceTest {
     void getRequest_whenRequestNotExist_thenThrowException() {
         long id = 0L;
         long requestId = 0L;
-        when(userStorage.existsById(id)).thenReturn(true);
+        when(userExistenceCache.exists(id)).thenReturn(true);
         when(requestStorage.findById(requestId)).thenReturn(Optional.empty());
 
         assertThrows(NoSuchElementException.class, () -> requestService.getRequest(id, requestId));
@@ -130,7 +139,7 @@ class RequestServiceTest {
         long id = 0L;
         long requestId = 0L;
         ItemRequest request = new ItemRequest();
-        when(userStorage.existsById(id)).thenReturn(true);
+        when(userExistenceCache.exists(id)).thenReturn(true);
         when(requestStorage.findById(requestId)).thenReturn(Optional.of(request));
 
         RequestDto actualRequestDto = requestService.getRequest(id, requestId);
@@ -11,7 +11,9 @@ import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.storage.UserStorage;
 
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.List;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
@@ -47,21 +49,47 @@ class RequestStorageTest {
     }
 
     @Test
-    void findByRequestor_IdNotOrderByCreatedDesc() {
+    void findViewsOfOthers() {
         long userId = 2L;
         PageRequest pageable = PageRequest.of(0, 20);
-        List<ItemRequest> list = requestStorage.findByRequestor_IdNotOrderByCreatedDesc(userId, pageable);
+        List<RequestView> list = requestStorage.findViewsOfOthers(userId, pageable);
 
         assertEquals(1, list.size());
-        assertEquals(1L, list.get(0).getRequestor().getId());
+        assertEquals(1L, list.get(0).getRequestorId());
+        assertEquals("firstRequest", list.get(0).getDescription());
     }
 
     @Test
-    void findByRequestor_IdOrderByCreatedDesc() {
+    void findViewsOfRequestor() {
         long userId = 2L;
-        List<ItemRequest> list = requestStorage.findByRequestor_IdOrderByCreatedDesc(userId);
+        List<RequestView> list = requestStorage.findViewsOfRequestor(userId);
 
         assertEquals(1, list.size());
-        assertEquals(2L, list.get(0).getRequestor().getId());
+        assertEquals(2L, list.get(0).getRequestorId());
+        assertEquals("testName2", list.get(0).getRequestorName());
     }
-}
\ No newline at end of file
+
+    @Test
+    void findViewsOfOthersAfter() {
+        User user3 = new User();
+        user3.setName("testName3");
+        user3.setEmail("3@email.com");
+        userStorage.save(user3);
+        LocalDateTime created = LocalDateTime.now().plusDays(1).truncatedTo(ChronoUnit.SECONDS);
+        ItemRequest first = new ItemRequest();
+        first.setDescription("thirdRequest");
+        first.setRequestor(userStorage.getReferenceById(1L));
+        first.setCreated(created);
+        requestStorage.save(first);
+        ItemRequest second = new ItemRequest();
+        second.setDescription("fourthRequest");
+        second.setRequestor(userStorage.getReferenceById(2L));
+        second.setCreated(created);
+        requestStorage.save(second);
+
+        List<RequestView> list = requestStorage.findViewsOfOthersAfter(3L, created, second.getId(),
+                PageRequest.of(0, 20));
+
+        assertEquals(List.of(first.getId(), 2L, 1L), list.stream().map(RequestView::getId).collect(Collectors.toList()));
+    }
+}
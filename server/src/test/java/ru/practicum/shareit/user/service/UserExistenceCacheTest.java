@@ -0,0 +1,79 @@
+package ru.practicum.shareit.user.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.practicum.shareit.user.storage.UserStorage;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class UserExistenceCacheTest {
+    @Mock
+    private UserStorage userStorage;
+
+    private SimpleMeterRegistry meterRegistry;
+    private UserExistenceCache userExistenceCache;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        userExistenceCache = new UserExistenceCache(userStorage, new UserExistenceCacheProperties(), meterRegistry);
+    }
+
+    @Test
+    void exists_whenCalledTwice_thenQueryOnceAndCountHit() {
+        when(userStorage.existsById(1L)).thenReturn(true);
+
+        assertTrue(userExistenceCache.exists(1L));
+        assertTrue(userExistenceCache.exists(1L));
+
+        verify(userStorage, times(1)).existsById(1L);
+        assertEquals(1, meterRegistry.get("cache.gets").tag("result", "hit").functionCounter().count());
+        assertEquals(1, meterRegistry.get("cache.gets").tag("result", "miss").functionCounter().count());
+    }
+
+    @Test
+    void exists_whenMissing_thenRememberMissing() {
+        when(userStorage.existsById(2L)).thenReturn(false);
+
+        assertFalse(userExistenceCache.exists(2L));
+        assertFalse(userExistenceCache.exists(2L));
+
+        verify(userStorage, times(1)).existsById(2L);
+    }
+
+    @Test
+    void invalidate_whenNoTransaction_thenQueryAgain() {
+        when(userStorage.existsById(3L)).thenReturn(false, true);
+        assertFalse(userExistenceCache.exists(3L));
+
+        userExistenceCache.invalidate(3L);
+
+        assertTrue(userExistenceCache.exists(3L));
+        verify(userStorage, times(2)).existsById(3L);
+    }
+
+    @Test
+    void exists_whenNegativeEntryExpired_thenQueryAgain() throws InterruptedException {
+        UserExistenceCacheProperties properties = new UserExistenceCacheProperties();
+        properties.setNegativeTtl(Duration.ofMillis(10));
+        userExistenceCache = new UserExistenceCache(userStorage, properties, meterRegistry);
+        when(userStorage.existsById(4L)).thenReturn(false, true);
+        assertFalse(userExistenceCache.exists(4L));
+
+        Thread.sleep(50);
+
+        assertTrue(userExistenceCache.exists(4L));
+    }
+}
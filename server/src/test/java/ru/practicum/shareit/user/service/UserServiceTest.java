@@ -34,6 +34,8 @@ class UserServiceTest {
     private UserStorage userStorage;
     @Mock
     private Validator validator;
+    @Mock
+    private UserExistenceCache userExistenceCache;
 
     @InjectMocks
     private UserService userService;
@@ -106,19 +108,23 @@ class UserServiceTest {
     @Test
     void createUser_whenUserValid_thenReturnSavedUser() {
         User userToSave = new User();
-        when(userStorage.save(userToSave)).thenReturn(userToSave);
+        when(userStorage.saveAndFlush(userToSave)).thenAnswer(invocation -> {
+            userToSave.setId(1L);
+            return userToSave;
+        });
 
         UserDto actualuser = userService.create(userToSave);
 
         assertEquals(UserMapper.mapToDto(userToSave), actualuser);
-        verify(userStorage).save(userToSave);
+        verify(userStorage).saveAndFlush(userToSave);
+        verify(userExistenceCache).invalidate(1L);
     }
 
     @Test
     void createUser_whenUserEmailNotValid_thenThrowException() {
         User userToSave = new User();
         DataIntegrityViolationException e = new DataIntegrityViolationException("", new PSQLException("", PSQLState.UNKNOWN_STATE));
-        when(userStorage.save(userToSave)).thenThrow(e);
+        when(userStorage.saveAndFlush(userToSave)).thenThrow(e);
 
         assertThrows(EmailIsUsedException.class, () -> userService.create(userToSave));
     }
@@ -150,7 +156,7 @@ class UserServiceTest {
     void isExist_whenExist_returnTrue() {
         long id = 0L;
         boolean expected = true;
-        when(userStorage.existsById(anyLong())).thenReturn(expected);
+        when(userExistenceCache.exists(id)).thenReturn(expected);
 
         boolean actual = userService.isExist(id);
 
@@ -161,7 +167,7 @@ class UserServiceTest {
     void isExist_whenNotExist_returnFalse() {
         long id = 0L;
         boolean expected = false;
-        when(userStorage.existsById(anyLong())).thenReturn(expected);
+        when(userExistenceCache.exists(id)).thenReturn(expected);
 
         boolean actual = userService.isExist(id);
 
@@ -174,5 +180,16 @@ class UserServiceTest {
         doThrow(EmptyResultDataAccessException.class).when(userStorage).deleteById(id);
 
         assertThrows(EmptyResultDataAccessException.class, () -> userService.delete(id));
+        verify(userExistenceCache, never()).invalidate(anyLong());
+    }
+
+    @Test
+    void delete_whenExist_thenInvalidateExistence() {
+        long id = 1L;
+
+        userService.delete(id);
+
+        verify(userStorage).deleteById(id);
+        verify(userExistenceCache).invalidate(id);
     }
 }
\ No newline at end of file
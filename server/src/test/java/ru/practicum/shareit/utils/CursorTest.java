@@ -0,0 +1,39 @@
+package ru.practicum.shareit.utils;
+
+import org.junit.jupiter.api.Test;
+import ru.practicum.shareit.exceptions.BadRequestException;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CursorTest {
+
+    @Test
+    void decode_whenEncoded_thenSameCursor() {
+        Cursor idOnly = Cursor.of(42L);
+        Cursor keyed = Cursor.of(LocalDateTime.of(2023, 3, 1, 12, 0, 30, 123_000_000), 7L);
+
+        assertEquals(idOnly, Cursor.decode(idOnly.encode()));
+        assertEquals(keyed, Cursor.decodeKeyed(keyed.encode()));
+    }
+
+    @Test
+    void decode_whenNull_thenNull() {
+        assertNull(Cursor.decode(null));
+        assertNull(Cursor.decodeKeyed(null));
+    }
+
+    @Test
+    void decode_whenGarbage_thenThrowException() {
+        assertThrows(BadRequestException.class, () -> Cursor.decode("not a cursor"));
+        assertThrows(BadRequestException.class, () -> Cursor.decode(Cursor.of(1L).encode() + "x"));
+    }
+
+    @Test
+    void decodeKeyed_whenNoKey_thenThrowException() {
+        assertThrows(BadRequestException.class, () -> Cursor.decodeKeyed(Cursor.of(1L).encode()));
+    }
+}
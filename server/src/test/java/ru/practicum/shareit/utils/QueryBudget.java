@@ -0,0 +1,39 @@
+package ru.practicum.shareit.utils;
+
+import org.junit.jupiter.api.function.Executable;
+import ru.practicum.shareit.utils.querycount.QueryCounter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Query budgets for tests: the JDBC statements an action may run on the test thread. Works wherever
+ * {@link ru.practicum.shareit.utils.querycount.QueryCountConfig} is part of the context, which a
+ * {@code @SpringBootTest} gets by itself and a {@code @DataJpaTest} by importing it.
+ */
+public final class QueryBudget {
+    private QueryBudget() {
+    }
+
+    public static QueryCounter.Counts count(Executable action) {
+        QueryCounter.Counts counts = QueryCounter.start();
+        try {
+            action.execute();
+        } catch (Throwable e) {
+            throw new AssertionError("Counted action failed", e);
+        } finally {
+            QueryCounter.stop();
+        }
+        return counts;
+    }
+
+    public static void assertStatements(long expected, Executable action) {
+        QueryCounter.Counts counts = count(action);
+        assertEquals(expected, counts.getStatements(), () -> "Unexpected query count: " + counts);
+    }
+
+    public static void assertAtMostStatements(long budget, Executable action) {
+        QueryCounter.Counts counts = count(action);
+        assertTrue(counts.getStatements() <= budget, () -> "Query budget of " + budget + " exceeded: " + counts);
+    }
+}
@@ -0,0 +1,41 @@
+package ru.practicum.shareit.utils;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Keeps the SQL Hibernate prepares on the current thread, so a test can explain the statement a repository
+ * method really runs. Registered through {@link #PROPERTY}.
+ */
+public class SqlCapture implements StatementInspector {
+    public static final String PROPERTY = "spring.jpa.properties.hibernate.session_factory.statement_inspector";
+    private static final ThreadLocal<List<String>> CAPTURED = new ThreadLocal<>();
+
+    @Override
+    public String inspect(String sql) {
+        List<String> captured = CAPTURED.get();
+        if (captured != null) {
+            captured.add(sql);
+        }
+        return sql;
+    }
+
+    /**
+     * Runs the action and returns the one statement it prepared.
+     */
+    public static String of(Runnable action) {
+        List<String> captured = new ArrayList<>();
+        CAPTURED.set(captured);
+        try {
+            action.run();
+        } finally {
+            CAPTURED.remove();
+        }
+        assertEquals(1, captured.size(), () -> "Expected one statement, got " + captured);
+        return captured.get(0);
+    }
+}
@@ -0,0 +1,147 @@
+package ru.practicum.shareit.utils.replica;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.SneakyThrows;
+import org.hibernate.cfg.AvailableSettings;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.interceptor.DefaultTransactionAttribute;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.CacheStoreMode;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.EntityTransaction;
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ReplicaRoutingDataSourceTest {
+    @Mock
+    private DataSource primary;
+    @Mock
+    private DataSource replica;
+    @Mock
+    private ReplicaLagMonitor lagMonitor;
+    @Mock
+    private EntityManagerFactory entityManagerFactory;
+    @Mock
+    private EntityManager entityManager;
+
+    private final Connection primaryConnection = mock(Connection.class);
+    private final Connection replicaConnection = mock(Connection.class);
+    private MeterRegistry meterRegistry;
+    private ReplicaRoutingDataSource dataSource;
+    private ReplicaRoutingTransactionManager transactionManager;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        ReplicaRoutingMetrics metrics = new ReplicaRoutingMetrics(lagMonitor);
+        metrics.bindTo(meterRegistry);
+        dataSource = new ReplicaRoutingDataSource(primary, replica, metrics);
+        transactionManager = new ReplicaRoutingTransactionManager(lagMonitor, metrics);
+        transactionManager.setEntityManagerFactory(entityManagerFactory);
+        lenient().when(entityManagerFactory.createEntityManager()).thenReturn(entityManager);
+        lenient().when(entityManager.getTransaction()).thenReturn(mock(EntityTransaction.class));
+    }
+
+    @Test
+    @SneakyThrows
+    void getConnection_whenReadWrite_thenPrimary() {
+        when(primary.getConnection()).thenReturn(primaryConnection);
+
+        assertSame(primaryConnection, dataSource.getConnection());
+        assertEquals(1, connections("primary"));
+        assertEquals(0, connections("replica"));
+    }
+
+    @Test
+    @SneakyThrows
+    void getConnection_whenReadOnlyAndReplicaUsable_thenReplicaWithoutCachePuts() {
+        when(lagMonitor.isUsable()).thenReturn(true);
+        when(replica.getConnection()).thenReturn(replicaConnection);
+
+        assertSame(replicaConnection, readOnly().execute(status -> connection()));
+        assertEquals(1, connections("replica"));
+        assertFalse(ReplicaRoutingTransactionManager.isReadingReplica());
+        var order = inOrder(entityManager);
+        order.verify(entityManager).setProperty(AvailableSettings.JPA_SHARED_CACHE_STORE_MODE, CacheStoreMode.BYPASS);
+        order.verify(entityManager).setProperty(AvailableSettings.JPA_SHARED_CACHE_STORE_MODE, CacheStoreMode.USE);
+    }
+
+    @Test
+    @SneakyThrows
+    void getConnection_whenReadOnlyAndReplicaLagging_thenPrimary() {
+        when(lagMonitor.isUsable()).thenReturn(false);
+        when(primary.getConnection()).thenReturn(primaryConnection);
+
+        assertSame(primaryConnection, readOnly().execute(status -> connection()));
+        assertEquals(1, connections("primary"));
+        assertEquals(1, meterRegistry.get("shareit.datasource.replica.fallbacks").functionCounter().count());
+        verify(entityManager, never()).setProperty(AvailableSettings.JPA_SHARED_CACHE_STORE_MODE, CacheStoreMode.BYPASS);
+    }
+
+    @Test
+    @SneakyThrows
+    void getConnection_whenReadOnlyLabeledPrimary_thenPrimary() {
+        when(primary.getConnection()).thenReturn(primaryConnection);
+        DefaultTransactionAttribute definition = new DefaultTransactionAttribute();
+        definition.setReadOnly(true);
+        definition.setLabels(Set.of(ReplicaRoutingTransactionManager.PRIMARY));
+
+        var status = transactionManager.getTransaction(definition);
+        assertSame(primaryConnection, connection());
+        transactionManager.commit(status);
+
+        assertEquals(1, connections("primary"));
+        assertEquals(0, meterRegistry.get("shareit.datasource.replica.fallbacks").functionCounter().count());
+    }
+
+    @Test
+    @SneakyThrows
+    void getConnection_whenNewTransactionInsideReplicaRead_thenPrimaryThenReplicaAgain() {
+        when(lagMonitor.isUsable()).thenReturn(true);
+        when(primary.getConnection()).thenReturn(primaryConnection);
+        when(replica.getConnection()).thenReturn(replicaConnection);
+        TransactionTemplate inner = new TransactionTemplate(transactionManager);
+        inner.setPropagationBehavior(TransactionTemplate.PROPAGATION_REQUIRES_NEW);
+
+        readOnly().executeWithoutResult(status -> {
+            assertSame(primaryConnection, inner.execute(innerStatus -> connection()));
+            assertTrue(ReplicaRoutingTransactionManager.isReadingReplica());
+            assertSame(replicaConnection, connection());
+        });
+    }
+
+    private TransactionTemplate readOnly() {
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setReadOnly(true);
+        return template;
+    }
+
+    @SneakyThrows
+    private Connection connection() {
+        return dataSource.getConnection();
+    }
+
+    private double connections(String pool) {
+        return meterRegistry.get("shareit.datasource.connections").tag("pool", pool).functionCounter().count();
+    }
+}
@@ -0,0 +1,153 @@
+package ru.practicum.shareit.utils.replica;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.service.ItemService;
+import ru.practicum.shareit.request.service.RequestService;
+import ru.practicum.shareit.user.dto.UserDto;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.service.UserService;
+
+import javax.persistence.EntityManagerFactory;
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The primary and the replica are two H2 databases here; the replica catches up only when a test calls
+ * {@link #replicate()}, everything committed in between is within the lag.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=" + ReplicaRoutingTest.PRIMARY_URL,
+        "shareit.datasource.replica.enabled=true",
+        "shareit.datasource.replica.url=" + ReplicaRoutingTest.REPLICA_URL,
+        "shareit.datasource.replica.username=test",
+        "shareit.datasource.replica.password=test",
+        "shareit.datasource.replica.lag-query=select 0"
+})
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+class ReplicaRoutingTest {
+    static final String PRIMARY_URL = "jdbc:h2:mem:replica-routing-primary;DB_CLOSE_DELAY=-1";
+    static final String REPLICA_URL = "jdbc:h2:mem:replica-routing-replica;DB_CLOSE_DELAY=-1";
+
+    @Autowired
+    private UserService userService;
+    @Autowired
+    private ItemService itemService;
+    @Autowired
+    private RequestService requestService;
+    @Autowired
+    private ReplicaLagMonitor lagMonitor;
+    @Autowired
+    private MeterRegistry meterRegistry;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    @Qualifier("primaryDataSource")
+    private DataSource primary;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        replicate();
+    }
+
+    @Test
+    void readOnlyTransactionsGoToReplica_writesToPrimary() throws SQLException {
+        assertTrue(lagMonitor.isUsable());
+        double primaryConnections = connections("primary");
+        double replicaConnections = connections("replica");
+
+        UserDto created = userService.create(user("routed"));
+
+        assertEquals(primaryConnections + 1, connections("primary"));
+        assertEquals(replicaConnections, connections("replica"));
+
+        replicate();
+        assertEquals("routed", userService.getAll().stream()
+                .filter(user -> user.getId().equals(created.getId()))
+                .findFirst()
+                .orElseThrow()
+                .getName());
+
+        assertEquals(primaryConnections + 1, connections("primary"));
+        assertEquals(replicaConnections + 1, connections("replica"));
+    }
+
+    @Test
+    void readWithinLag_whenItemUpdated_thenStaleRowNotCached() throws SQLException {
+        UserDto owner = userService.create(user("owner"));
+        ItemDto item = itemService.create(owner.getId(), item("before"));
+        replicate();
+
+        itemService.update(owner.getId(), item.getId(), item("after"));
+
+        assertEquals("before", itemService.get(owner.getId() + 1, item.getId()).getName());
+        assertFalse(entityManagerFactory.getCache().contains(Item.class, item.getId()));
+
+        replicate();
+
+        assertEquals("after", itemService.get(owner.getId() + 1, item.getId()).getName());
+    }
+
+    @Test
+    void readWithinLag_whenUserJustCreated_thenUserFound() {
+        UserDto created = userService.create(user("fresh"));
+
+        assertTrue(requestService.getRequestsForUser(created.getId()).isEmpty());
+    }
+
+    @Test
+    void poolsHaveMetricsOfTheirOwn() {
+        assertEquals(1, meterRegistry.get("hikaricp.connections.max").tag("pool", "primary").gauges().size());
+        assertEquals(1, meterRegistry.get("hikaricp.connections.max").tag("pool", "replica").gauges().size());
+        assertEquals(0, meterRegistry.get("shareit.datasource.replica.lag").timeGauge().value());
+    }
+
+    /**
+     * Copies the primary over the replica.
+     */
+    private void replicate() throws SQLException {
+        List<String> script = new JdbcTemplate(primary).queryForList("script", String.class);
+        try (Connection connection = DriverManager.getConnection(REPLICA_URL, "test", "test");
+             Statement statement = connection.createStatement()) {
+            statement.execute("drop all objects");
+            for (String sql : script) {
+                statement.execute(sql);
+            }
+        }
+    }
+
+    private static User user(String name) {
+        User user = new User();
+        user.setName(name);
+        user.setEmail(name + "@email.com");
+        return user;
+    }
+
+    private static ItemDto item(String name) {
+        ItemDto item = new ItemDto();
+        item.setName(name);
+        item.setDescription("description");
+        item.setAvailable(true);
+        return item;
+    }
+
+    private double connections(String pool) {
+        return meterRegistry.get("shareit.datasource.connections").tag("pool", pool).functionCounter().count();
+    }
+}